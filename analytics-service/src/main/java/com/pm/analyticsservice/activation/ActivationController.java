@@ -0,0 +1,32 @@
+package com.pm.analyticsservice.activation;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+// Registration -> billing account activation metrics of this instance (ActivationJoin)
+@RestController
+@RequestMapping("/analytics/activation")
+public class ActivationController {
+    private final ActivationJoin activationJoin;
+
+    public ActivationController(ActivationJoin activationJoin) {
+        this.activationJoin = activationJoin;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(activationJoin.stats());
+    }
+
+    // Patients registered more than analytics.activation.stuck-after ago without a billing account yet
+    @GetMapping("/stuck")
+    public ResponseEntity<List<ActivationJoin.StuckRegistration>> stuck(@RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(activationJoin.stuck(limit));
+    }
+}
@@ -0,0 +1,53 @@
+package com.pm.analyticsservice.activation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Time-to-activation distribution in power-of-two millisecond buckets: constant memory and O(1) recording.
+// Percentiles are the upper bound of their bucket, so within a factor of two, enough to tell seconds from hours.
+// Not thread-safe, ActivationJoin guards it.
+class ActivationHistogram {
+    private final long[] buckets = new long[64];
+    private long count;
+    private long sum;
+    private long max;
+
+    void record(long millis) {
+        long value = Math.max(0, millis);
+        // Bucket b holds [2^(b-1), 2^b - 1], bucket 0 holds 0
+        buckets[64 - Long.numberOfLeadingZeros(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    long count() {
+        return count;
+    }
+
+    long percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= rank) {
+                return bucket == 0 ? 0 : Math.min(max, (1L << bucket) - 1);
+            }
+        }
+        return max;
+    }
+
+    Map<String, Long> summary() {
+        Map<String, Long> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("meanMs", count == 0 ? 0 : sum / count);
+        summary.put("p50Ms", percentile(0.50));
+        summary.put("p95Ms", percentile(0.95));
+        summary.put("p99Ms", percentile(0.99));
+        summary.put("maxMs", max);
+        return summary;
+    }
+}
@@ -0,0 +1,206 @@
+package com.pm.analyticsservice.activation;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Windowed join of patient registrations ("patient" topic) with billing account creations ("billing" topic) on patient id.
+// The Kafka listener only enqueues; a single join thread owns the state, so a slow join never delays polling.
+// State: registrations waiting for their account, and accounts seen before their registration (the topics are consumed
+// independently, either side can come first). Both are bounded by max-pending (oldest evicted first) and expire after window.
+// A registration waiting longer than stuck-after is reported as stuck, one that expires is counted as never activated.
+// Both topics are keyed by patient id and read by one listener with the range assignor, so with the same partition count
+// every instance joins complete partitions; the state is per instance and starts empty after a restart.
+@Component
+public class ActivationJoin {
+    private static final Logger log = LoggerFactory.getLogger(ActivationJoin.class);
+    private static final int BATCH_SIZE = 1000;
+
+    private record Input(boolean registration, String patientId, String accountId, long eventTime) {
+    }
+
+    private record Pending(String accountId, long eventTime, long seenAt) {
+    }
+
+    public record StuckRegistration(String patientId, Instant registeredAt, long waitingMs) {
+    }
+
+    private final BlockingQueue<Input> queue;
+    private final long windowMillis;
+    private final long stuckAfterMillis;
+    private final int maxPending;
+    private final Duration evictionInterval;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Guarded by this
+    private final LinkedHashMap<String, Pending> registrations = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Pending> accounts = new LinkedHashMap<>();
+    private final ActivationHistogram timeToActivation = new ActivationHistogram();
+    private long expiredRegistrations;
+    private long expiredAccounts;
+    private long overflowEvictions;
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    public ActivationJoin(@Value("${analytics.activation.queue-capacity:65536}") int queueCapacity,
+                          @Value("${analytics.activation.window:24h}") Duration window,
+                          @Value("${analytics.activation.stuck-after:15m}") Duration stuckAfter,
+                          @Value("${analytics.activation.max-pending:100000}") int maxPending,
+                          @Value("${analytics.activation.eviction-interval:1s}") Duration evictionInterval) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.windowMillis = window.toMillis();
+        this.stuckAfterMillis = stuckAfter.toMillis();
+        this.maxPending = maxPending;
+        this.evictionInterval = evictionInterval;
+        this.worker = new Thread(this::run, "activation-join");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    // Called on the Kafka listener thread
+    public void onRegistration(String patientId, long timestamp) {
+        enqueue(new Input(true, patientId, null, timestamp));
+    }
+
+    // Called on the Kafka listener thread
+    public void onAccountCreated(String patientId, String accountId, long timestamp) {
+        enqueue(new Input(false, patientId, accountId, timestamp));
+    }
+
+    private void enqueue(Input input) {
+        // Never blocks the poll loop: a full queue means the join thread is far behind, the event is counted and dropped
+        if (!queue.offer(input)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    private void run() {
+        List<Input> batch = new ArrayList<>(BATCH_SIZE);
+        while (running) {
+            try {
+                Input first = queue.poll(evictionInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+                apply(batch, System.currentTimeMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Activation join failed on a batch of {} events", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private synchronized void apply(List<Input> batch, long now) {
+        for (Input input : batch) {
+            if (input.registration()) {
+                Pending account = accounts.remove(input.patientId());
+                if (account != null) {
+                    timeToActivation.record(account.eventTime() - input.eventTime());
+                } else {
+                    // putIfAbsent: a re-delivered registration keeps its original place in the eviction order
+                    registrations.putIfAbsent(input.patientId(), new Pending(null, input.eventTime(), now));
+                    evictOverflow(registrations);
+                }
+            } else {
+                Pending registration = registrations.remove(input.patientId());
+                if (registration != null) {
+                    timeToActivation.record(input.eventTime() - registration.eventTime());
+                } else {
+                    accounts.putIfAbsent(input.patientId(), new Pending(input.accountId(), input.eventTime(), now));
+                    evictOverflow(accounts);
+                }
+            }
+        }
+        // Insertion order is arrival order, so expired entries are always at the head
+        expiredRegistrations += expire(registrations, now);
+        expiredAccounts += expire(accounts, now);
+    }
+
+    private void evictOverflow(LinkedHashMap<String, Pending> side) {
+        if (side.size() > maxPending) {
+            Iterator<Pending> eldest = side.values().iterator();
+            eldest.next();
+            eldest.remove();
+            overflowEvictions++;
+        }
+    }
+
+    private int expire(LinkedHashMap<String, Pending> side, long now) {
+        int expired = 0;
+        Iterator<Pending> iterator = side.values().iterator();
+        while (iterator.hasNext() && now - iterator.next().seenAt() > windowMillis) {
+            iterator.remove();
+            expired++;
+        }
+        return expired;
+    }
+
+    public synchronized Map<String, Object> stats() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activated", timeToActivation.count());
+        stats.put("timeToActivation", timeToActivation.summary());
+        stats.put("pendingRegistrations", registrations.size());
+        stats.put("stuckRegistrations", countStuck(now));
+        stats.put("pendingAccounts", accounts.size());
+        stats.put("neverActivated", expiredRegistrations);
+        stats.put("accountsWithoutRegistration", expiredAccounts);
+        stats.put("overflowEvictions", overflowEvictions);
+        stats.put("droppedEvents", droppedEvents.get());
+        stats.put("queued", queue.size());
+        stats.put("windowMs", windowMillis);
+        stats.put("stuckAfterMs", stuckAfterMillis);
+        return stats;
+    }
+
+    // Oldest first, only registrations waiting longer than stuck-after
+    public synchronized List<StuckRegistration> stuck(int limit) {
+        long now = System.currentTimeMillis();
+        List<StuckRegistration> stuck = new ArrayList<>();
+        for (Map.Entry<String, Pending> entry : registrations.entrySet()) {
+            long waiting = now - entry.getValue().seenAt();
+            if (waiting <= stuckAfterMillis || stuck.size() >= limit) {
+                break;
+            }
+            stuck.add(new StuckRegistration(entry.getKey(), Instant.ofEpochMilli(entry.getValue().eventTime()), waiting));
+        }
+        return stuck;
+    }
+
+    private long countStuck(long now) {
+        long stuck = 0;
+        for (Pending registration : registrations.values()) {
+            if (now - registration.seenAt() <= stuckAfterMillis) {
+                break;
+            }
+            stuck++;
+        }
+        return stuck;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(evictionInterval.multipliedBy(10).toMillis());
+    }
+}
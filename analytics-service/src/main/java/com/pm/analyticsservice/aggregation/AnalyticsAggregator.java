@@ -0,0 +1,131 @@
+package com.pm.analyticsservice.aggregation;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import patient.events.PatientEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Owns the live aggregates fed by the Kafka listener, and snapshots them to a file so that a restart
+// doesn't start from zero. Events consumed after the last snapshot and before a crash are not in the snapshot,
+// replaying the event store or a backfill fills that gap.
+// The lock is only contended while a backfill starts or swaps its results in, or a snapshot is merged.
+@Component
+public class AnalyticsAggregator {
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsAggregator.class);
+
+    private final int topK;
+    private final int retentionDays;
+    private final Path snapshotFile;
+    private volatile PatientEventAggregates aggregates;
+    private ShadowState shadow;
+
+    public AnalyticsAggregator(@Value("${analytics.sketch.top-k:20}") int topK,
+                               @Value("${analytics.sketch.retention-days:90}") int retentionDays,
+                               @Value("${analytics.sketch.snapshot-file:data/sketches.bin}") Path snapshotFile) {
+        this.topK = topK;
+        this.retentionDays = retentionDays;
+        this.snapshotFile = snapshotFile;
+        this.aggregates = loadSnapshot();
+    }
+
+    public synchronized void record(PatientEvent event, int partition, long offset, long timestamp) {
+        aggregates.record(event, timestamp);
+        if (shadow != null) {
+            shadow.record(event, partition, offset, timestamp);
+        }
+    }
+
+    // Merges a snapshot of another instance (POST /analytics/sketches). Under the lock so that a backfill swapping in
+    // doesn't drop it: the days of an active backfill's range are also merged into its tail, which the swap keeps.
+    public synchronized void merge(PatientEventAggregates other) {
+        aggregates.merge(other);
+        if (shadow != null) {
+            shadow.merge(other);
+        }
+    }
+
+    // Starts recording the live events a backfill of [from, to] won't read. endOffsets is called under the lock,
+    // so no live event can slip between the offsets it returns and the start of the recording.
+    public synchronized ShadowState beginShadow(LocalDate from, LocalDate to, Supplier<Map<Integer, Long>> endOffsets) {
+        if (shadow != null) {
+            throw new IllegalStateException("A backfill is already running");
+        }
+        shadow = new ShadowState(from, to, endOffsets.get(), newAggregates());
+        return shadow;
+    }
+
+    // Replaces the days of the shadow range with the backfilled ones plus the live tail, in one step for readers
+    public synchronized void swapIn(ShadowState state, PatientEventAggregates backfilled) {
+        if (shadow != state) {
+            throw new IllegalStateException("The backfill is no longer active");
+        }
+        backfilled.merge(state.tail());
+        aggregates = aggregates.withDaysReplaced(backfilled, state.from(), state.to());
+        shadow = null;
+        log.info("Swapped in backfilled aggregates for {} to {}", state.from(), state.to());
+    }
+
+    public synchronized void discardShadow(ShadowState state) {
+        if (shadow == state) {
+            shadow = null;
+        }
+    }
+
+    public PatientEventAggregates aggregates() {
+        return aggregates;
+    }
+
+    public PatientEventAggregates newAggregates() {
+        return new PatientEventAggregates(topK, retentionDays);
+    }
+
+    public PatientEventAggregates read(InputStream in) throws IOException {
+        return PatientEventAggregates.readFrom(new DataInputStream(new BufferedInputStream(in)), topK, retentionDays);
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${analytics.sketch.snapshot-interval:1m}")
+    public void saveSnapshot() {
+        try {
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            Path temp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                aggregates.writeTo(out);
+            }
+            // Readers never see a half written snapshot
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to write sketch snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    private PatientEventAggregates loadSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return newAggregates();
+        }
+        try (InputStream in = Files.newInputStream(snapshotFile)) {
+            PatientEventAggregates loaded = read(in);
+            log.info("Loaded sketch snapshot {} ({} days)", snapshotFile, loaded.dayCount());
+            return loaded;
+        } catch (IOException e) {
+            log.error("Ignoring unreadable sketch snapshot {}: {}", snapshotFile, e.getMessage());
+            return newAggregates();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.pm.analyticsservice.aggregation;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+// Queries over the daily sketches. from / to are UTC days (inclusive) and default to today.
+@RestController
+@RequestMapping("/analytics")
+public class AnalyticsController {
+    private final AnalyticsAggregator aggregator;
+
+    public AnalyticsController(AnalyticsAggregator aggregator) {
+        this.aggregator = aggregator;
+    }
+
+    @GetMapping("/patients/distinct")
+    public ResponseEntity<Map<String, Object>> distinctPatients(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        DailySketches range = range(from, to);
+        return ResponseEntity.ok(Map.of(
+                "from", orToday(from).toString(),
+                "to", orToday(to).toString(),
+                "distinctPatients", range.distinctPatients().cardinality()));
+    }
+
+    @GetMapping("/email-domains/top")
+    public ResponseEntity<Map<String, Object>> topEmailDomains(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        DailySketches range = range(from, to);
+        return ResponseEntity.ok(Map.of(
+                "from", orToday(from).toString(),
+                "to", orToday(to).toString(),
+                "total", range.emailDomains().total(),
+                "top", range.emailDomains().top(limit)));
+    }
+
+    @GetMapping("/event-types/top")
+    public ResponseEntity<Map<String, Object>> topEventTypes(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        DailySketches range = range(from, to);
+        return ResponseEntity.ok(Map.of(
+                "from", orToday(from).toString(),
+                "to", orToday(to).toString(),
+                "total", range.eventTypes().total(),
+                "top", range.eventTypes().top(limit)));
+    }
+
+    // Binary snapshot of this instance, to be merged into another one with POST /analytics/sketches
+    @GetMapping(value = "/sketches", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> exportSketches() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            aggregator.aggregates().writeTo(out);
+        }
+        return ResponseEntity.ok(bytes.toByteArray());
+    }
+
+    // Not idempotent: distinct patients are unaffected by a second POST of the same snapshot, but its top-k counts
+    // (email domains, event types) are added again
+    @PostMapping(value = "/sketches", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Map<String, Object>> mergeSketches(@RequestBody byte[] snapshot) {
+        try {
+            PatientEventAggregates other = aggregator.read(new ByteArrayInputStream(snapshot));
+            aggregator.merge(other);
+            return ResponseEntity.ok(Map.of("mergedDays", other.dayCount()));
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid sketch snapshot: " + e.getMessage()));
+        }
+    }
+
+    private DailySketches range(LocalDate from, LocalDate to) {
+        return aggregator.aggregates().range(orToday(from), orToday(to));
+    }
+
+    private static LocalDate orToday(LocalDate day) {
+        return day != null ? day : LocalDate.now(ZoneOffset.UTC);
+    }
+}
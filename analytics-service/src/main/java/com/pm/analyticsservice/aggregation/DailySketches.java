@@ -0,0 +1,72 @@
+package com.pm.analyticsservice.aggregation;
+
+import com.pm.analyticsservice.sketch.HyperLogLog;
+import com.pm.analyticsservice.sketch.TopK;
+import patient.events.PatientEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Locale;
+
+// The sketches of one day (UTC): ~4 KB for the distinct patients and ~8 KB for each top-k
+public class DailySketches {
+    private final HyperLogLog distinctPatients;
+    private final TopK emailDomains;
+    private final TopK eventTypes;
+
+    public DailySketches(int topK) {
+        this(new HyperLogLog(), new TopK(topK), new TopK(topK));
+    }
+
+    private DailySketches(HyperLogLog distinctPatients, TopK emailDomains, TopK eventTypes) {
+        this.distinctPatients = distinctPatients;
+        this.emailDomains = emailDomains;
+        this.eventTypes = eventTypes;
+    }
+
+    public synchronized void record(PatientEvent event) {
+        if (!event.getPatientId().isEmpty()) {
+            distinctPatients.add(event.getPatientId());
+        }
+        int at = event.getEmail().lastIndexOf('@');
+        if (at >= 0 && at < event.getEmail().length() - 1) {
+            emailDomains.add(event.getEmail().substring(at + 1).toLowerCase(Locale.ROOT));
+        }
+        if (!event.getEventType().isEmpty()) {
+            eventTypes.add(event.getEventType());
+        }
+    }
+
+    // Adds this day into target, holding both days: target may be a live day the Kafka listener records into.
+    // Days are always locked source first, and a live day is never merged into another live day.
+    public synchronized void mergeInto(DailySketches target) {
+        synchronized (target) {
+            target.distinctPatients.merge(distinctPatients);
+            target.emailDomains.merge(emailDomains);
+            target.eventTypes.merge(eventTypes);
+        }
+    }
+
+    public HyperLogLog distinctPatients() {
+        return distinctPatients;
+    }
+
+    public TopK emailDomains() {
+        return emailDomains;
+    }
+
+    public TopK eventTypes() {
+        return eventTypes;
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        distinctPatients.writeTo(out);
+        emailDomains.writeTo(out);
+        eventTypes.writeTo(out);
+    }
+
+    public static DailySketches readFrom(DataInput in) throws IOException {
+        return new DailySketches(HyperLogLog.readFrom(in), TopK.readFrom(in), TopK.readFrom(in));
+    }
+}
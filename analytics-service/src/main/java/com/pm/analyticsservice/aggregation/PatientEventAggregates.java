@@ -0,0 +1,99 @@
+package com.pm.analyticsservice.aggregation;
+
+import patient.events.PatientEvent;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// All the daily sketches kept by one instance. Memory is bounded by retentionDays x DailySketches,
+// days older than the retention are dropped as new days start.
+public class PatientEventAggregates {
+    private static final int SNAPSHOT_FORMAT = 1;
+
+    private final int topK;
+    private final int retentionDays;
+    private final ConcurrentSkipListMap<LocalDate, DailySketches> days = new ConcurrentSkipListMap<>();
+
+    public PatientEventAggregates(int topK, int retentionDays) {
+        this.topK = topK;
+        this.retentionDays = retentionDays;
+    }
+
+    public void record(PatientEvent event, long timestamp) {
+        LocalDate day = Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC).toLocalDate();
+        LocalDate oldest = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays - 1L);
+        if (day.isBefore(oldest)) {
+            return;
+        }
+        DailySketches sketches = days.get(day);
+        if (sketches == null) {
+            sketches = days.computeIfAbsent(day, d -> new DailySketches(topK));
+            days.headMap(oldest).clear();
+        }
+        sketches.record(event);
+    }
+
+    // The sketches of [from, to] merged together
+    public DailySketches range(LocalDate from, LocalDate to) {
+        DailySketches total = new DailySketches(topK);
+        for (DailySketches day : days.subMap(from, true, to, true).values()) {
+            day.mergeInto(total);
+        }
+        return total;
+    }
+
+    // Merges the days of another instance (or partition) into this one
+    public void merge(PatientEventAggregates other) {
+        merge(other.days);
+    }
+
+    // Merges only the days of [from, to] of other
+    public void merge(PatientEventAggregates other, LocalDate from, LocalDate to) {
+        merge(other.days.subMap(from, true, to, true));
+    }
+
+    private void merge(Map<LocalDate, DailySketches> otherDays) {
+        otherDays.forEach((day, sketches) -> sketches.mergeInto(days.computeIfAbsent(day, d -> new DailySketches(topK))));
+    }
+
+    // A copy of these aggregates where the days of [from, to] come from replacement
+    public PatientEventAggregates withDaysReplaced(PatientEventAggregates replacement, LocalDate from, LocalDate to) {
+        PatientEventAggregates result = new PatientEventAggregates(topK, retentionDays);
+        result.days.putAll(days.headMap(from));
+        result.days.putAll(days.tailMap(to, false));
+        result.days.putAll(replacement.days.subMap(from, true, to, true));
+        return result;
+    }
+
+    public int dayCount() {
+        return days.size();
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(SNAPSHOT_FORMAT);
+        out.writeInt(days.size());
+        for (var entry : days.entrySet()) {
+            out.writeLong(entry.getKey().toEpochDay());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    public static PatientEventAggregates readFrom(DataInput in, int topK, int retentionDays) throws IOException {
+        int format = in.readInt();
+        if (format != SNAPSHOT_FORMAT) {
+            throw new IOException("Unsupported sketch snapshot format " + format);
+        }
+        PatientEventAggregates aggregates = new PatientEventAggregates(topK, retentionDays);
+        int dayCount = in.readInt();
+        for (int i = 0; i < dayCount; i++) {
+            aggregates.days.put(LocalDate.ofEpochDay(in.readLong()), DailySketches.readFrom(in));
+        }
+        return aggregates;
+    }
+}
@@ -0,0 +1,59 @@
+package com.pm.analyticsservice.aggregation;
+
+import patient.events.PatientEvent;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+// Live events a backfill must not miss: everything past the end offsets captured when it started,
+// inside its range of days. The backfill reads every partition up to those offsets, the live listener records the rest here.
+public class ShadowState {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final long fromMillis;
+    private final long toMillis;
+    private final Map<Integer, Long> endOffsets;
+    private final PatientEventAggregates tail;
+
+    ShadowState(LocalDate from, LocalDate to, Map<Integer, Long> endOffsets, PatientEventAggregates tail) {
+        this.from = from;
+        this.to = to;
+        this.fromMillis = from.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        this.toMillis = to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        this.endOffsets = Map.copyOf(endOffsets);
+        this.tail = tail;
+    }
+
+    // Called by the live listener, under the aggregator lock
+    void record(PatientEvent event, int partition, long offset, long timestamp) {
+        if (offset >= endOffsets.getOrDefault(partition, 0L) && covers(timestamp)) {
+            tail.record(event, timestamp);
+        }
+    }
+
+    // Called for snapshots merged from other instances while the backfill runs, under the aggregator lock
+    void merge(PatientEventAggregates other) {
+        tail.merge(other, from, to);
+    }
+
+    public boolean covers(long timestamp) {
+        return timestamp >= fromMillis && timestamp < toMillis;
+    }
+
+    public LocalDate from() {
+        return from;
+    }
+
+    public LocalDate to() {
+        return to;
+    }
+
+    public Map<Integer, Long> endOffsets() {
+        return endOffsets;
+    }
+
+    PatientEventAggregates tail() {
+        return tail;
+    }
+}
@@ -0,0 +1,48 @@
+package com.pm.analyticsservice.backfill;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/analytics/backfill")
+public class BackfillController {
+    private final BackfillService backfillService;
+
+    public BackfillController(BackfillService backfillService) {
+        this.backfillService = backfillService;
+    }
+
+    // Recomputes the aggregates of the events in [from, to) from the patient topic,
+    // e.g. POST /analytics/backfill?from=2026-10-01T00:00:00Z&to=2026-10-19T12:00:00Z
+    @PostMapping
+    public ResponseEntity<?> start(@RequestParam Instant from, @RequestParam Instant to) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(backfillService.start(from, to));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<BackfillJob> status() {
+        BackfillJob job = backfillService.current();
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping
+    public ResponseEntity<BackfillJob> cancel() {
+        BackfillJob job = backfillService.cancel();
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+}
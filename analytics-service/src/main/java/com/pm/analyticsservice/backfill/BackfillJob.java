@@ -0,0 +1,135 @@
+package com.pm.analyticsservice.backfill;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress of a backfill, serialized as is by GET /analytics/backfill
+public class BackfillJob {
+    public enum State { RUNNING, CATCHING_UP, SWAPPED, FAILED, CANCELLED }
+
+    private final UUID id = UUID.randomUUID();
+    private final Instant requestedFrom;
+    private final Instant requestedTo;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Instant startedAt = Instant.now();
+    private final Map<Integer, PartitionProgress> partitions = new ConcurrentSkipListMap<>();
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile boolean cancelRequested;
+
+    BackfillJob(Instant requestedFrom, Instant requestedTo, LocalDate from, LocalDate to) {
+        this.requestedFrom = requestedFrom;
+        this.requestedTo = requestedTo;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static class PartitionProgress {
+        private final long startOffset;
+        private final long endOffset;
+        private final AtomicLong position;
+        private final AtomicLong records = new AtomicLong();
+
+        PartitionProgress(long startOffset, long endOffset) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.position = new AtomicLong(startOffset);
+        }
+
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        public long getPosition() {
+            return position.get();
+        }
+
+        public long getRecords() {
+            return records.get();
+        }
+
+        void advance(long newPosition, long newRecords) {
+            position.set(newPosition);
+            records.addAndGet(newRecords);
+        }
+    }
+
+    PartitionProgress track(int partition, long startOffset, long endOffset) {
+        PartitionProgress progress = new PartitionProgress(startOffset, endOffset);
+        partitions.put(partition, progress);
+        return progress;
+    }
+
+    void catchingUp() {
+        this.state = State.CATCHING_UP;
+    }
+
+    boolean isActive() {
+        return state == State.RUNNING || state == State.CATCHING_UP;
+    }
+
+    void finish(State finalState, String failure) {
+        this.error = failure;
+        this.finishedAt = Instant.now();
+        this.state = finalState;
+    }
+
+    void cancel() {
+        cancelRequested = true;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public Instant getRequestedFrom() {
+        return requestedFrom;
+    }
+
+    public Instant getRequestedTo() {
+        return requestedTo;
+    }
+
+    // The aggregates are daily: the UTC days containing the requested range are recomputed whole
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Map<Integer, PartitionProgress> getPartitions() {
+        return partitions;
+    }
+}
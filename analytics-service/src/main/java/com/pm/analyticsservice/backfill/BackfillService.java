@@ -0,0 +1,242 @@
+package com.pm.analyticsservice.backfill;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.analyticsservice.aggregation.AnalyticsAggregator;
+import com.pm.analyticsservice.aggregation.PatientEventAggregates;
+import com.pm.analyticsservice.aggregation.ShadowState;
+import com.pm.analyticsservice.kafka.KafkaConsumer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+import patient.events.PatientEvent;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Recomputes the aggregates of a time range from the patient topic without touching the live consumer group.
+// The aggregates are daily sketches, so the range is widened to the UTC days containing it and those days are rebuilt whole.
+// 1. the aggregator starts a shadow state and the end offset of every partition is captured at the same time
+// 2. one independent consumer per partition (assigned, never committing) reads from the first offset of the range
+//    up to that end offset into its own aggregates
+// 3. the live listener records everything after the end offsets into the shadow tail, so nothing is missed
+// 4. when every partition is done, the backfill waits until the live group has committed past the end offsets:
+//    a lagging listener still adds the records below them to the live days, which the swap throws away, instead of
+//    adding them a second time to the swapped-in days
+// 5. the partial aggregates and the tail are merged and swapped in at once
+@Service
+public class BackfillService {
+    private static final Logger log = LoggerFactory.getLogger(BackfillService.class);
+    static final String TOPIC = "patient";
+    private static final String GROUP_ID = "analytics-service-backfill";
+
+    private final ConsumerFactory<String, byte[]> consumerFactory;
+    private final AnalyticsAggregator aggregator;
+    private final int maxParallelism;
+    private final Duration pollTimeout;
+    private final Duration catchUpTimeout;
+    private volatile BackfillJob current;
+
+    public BackfillService(ConsumerFactory<String, byte[]> consumerFactory,
+                           AnalyticsAggregator aggregator,
+                           @Value("${analytics.backfill.max-parallelism:4}") int maxParallelism,
+                           @Value("${analytics.backfill.poll-timeout:1s}") Duration pollTimeout,
+                           @Value("${analytics.backfill.catch-up-timeout:10m}") Duration catchUpTimeout) {
+        this.consumerFactory = consumerFactory;
+        this.aggregator = aggregator;
+        this.maxParallelism = maxParallelism;
+        this.pollTimeout = pollTimeout;
+        this.catchUpTimeout = catchUpTimeout;
+    }
+
+    // Events of [requestedFrom, requestedTo), by record timestamp
+    public synchronized BackfillJob start(Instant requestedFrom, Instant requestedTo) {
+        if (!requestedFrom.isBefore(requestedTo)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        if (current != null && current.isActive()) {
+            throw new IllegalStateException("Backfill " + current.getId() + " is still running");
+        }
+        LocalDate from = requestedFrom.atOffset(ZoneOffset.UTC).toLocalDate();
+        LocalDate to = requestedTo.minusNanos(1).atOffset(ZoneOffset.UTC).toLocalDate();
+        BackfillJob job = new BackfillJob(requestedFrom, requestedTo, from, to);
+        long fromMillis = from.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+
+        Map<TopicPartition, Long> startOffsets = new HashMap<>();
+        ShadowState shadow = null;
+        try (Consumer<String, byte[]> consumer = newConsumer("metadata")) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(TOPIC)) {
+                partitions.add(new TopicPartition(TOPIC, info.partition()));
+            }
+            shadow = aggregator.beginShadow(from, to, () -> {
+                Map<Integer, Long> ends = new HashMap<>();
+                consumer.endOffsets(partitions).forEach((partition, end) -> ends.put(partition.partition(), end));
+                return ends;
+            });
+            Map<TopicPartition, Long> timestamps = new HashMap<>();
+            partitions.forEach(partition -> timestamps.put(partition, fromMillis));
+            Map<TopicPartition, OffsetAndTimestamp> firstInRange = consumer.offsetsForTimes(timestamps);
+            for (TopicPartition partition : partitions) {
+                OffsetAndTimestamp first = firstInRange.get(partition);
+                long end = shadow.endOffsets().get(partition.partition());
+                // No offset means no record at or after "from" in this partition
+                startOffsets.put(partition, first == null ? end : Math.min(first.offset(), end));
+            }
+        } catch (RuntimeException e) {
+            if (shadow != null) {
+                aggregator.discardShadow(shadow);
+            }
+            throw e;
+        }
+        ShadowState started = shadow;
+        startOffsets.forEach((partition, start) ->
+                job.track(partition.partition(), start, started.endOffsets().get(partition.partition())));
+
+        current = job;
+        new Thread(() -> run(job, started, startOffsets), "analytics-backfill-" + job.getId()).start();
+        log.info("Started backfill {} for {} to {} over {} partition(s)", job.getId(), from, to, startOffsets.size());
+        return job;
+    }
+
+    public BackfillJob current() {
+        return current;
+    }
+
+    public BackfillJob cancel() {
+        BackfillJob job = current;
+        if (job != null) {
+            job.cancel();
+        }
+        return job;
+    }
+
+    private void run(BackfillJob job, ShadowState shadow, Map<TopicPartition, Long> startOffsets) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int threads = Math.max(1, Math.min(maxParallelism, startOffsets.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                task -> new Thread(task, "analytics-backfill-worker-" + threadNumber.incrementAndGet()));
+        try {
+            List<Future<PatientEventAggregates>> results = new ArrayList<>();
+            startOffsets.forEach((partition, start) -> results.add(executor.submit(() -> readPartition(job, shadow, partition, start))));
+
+            PatientEventAggregates backfilled = aggregator.newAggregates();
+            for (Future<PatientEventAggregates> result : results) {
+                backfilled.merge(result.get());
+            }
+            if (!job.isCancelRequested()) {
+                job.catchingUp();
+                awaitLiveConsumer(job, shadow.endOffsets());
+            }
+            if (job.isCancelRequested()) {
+                aggregator.discardShadow(shadow);
+                job.finish(BackfillJob.State.CANCELLED, null);
+                log.info("Backfill {} cancelled", job.getId());
+                return;
+            }
+            aggregator.swapIn(shadow, backfilled);
+            aggregator.saveSnapshot();
+            job.finish(BackfillJob.State.SWAPPED, null);
+            log.info("Backfill {} done, aggregates for {} to {} swapped in", job.getId(), job.getFrom(), job.getTo());
+        } catch (Exception e) {
+            // Stops the other partitions early
+            job.cancel();
+            aggregator.discardShadow(shadow);
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            job.finish(BackfillJob.State.FAILED, cause.getMessage());
+            log.error("Backfill {} failed: {}", job.getId(), cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private PatientEventAggregates readPartition(BackfillJob job, ShadowState shadow, TopicPartition partition, long start) {
+        PatientEventAggregates aggregates = aggregator.newAggregates();
+        BackfillJob.PartitionProgress progress = job.getPartitions().get(partition.partition());
+        long end = progress.getEndOffset();
+        try (Consumer<String, byte[]> consumer = newConsumer("p" + partition.partition())) {
+            consumer.assign(List.of(partition));
+            consumer.seek(partition, start);
+            long position = start;
+            while (position < end && !job.isCancelRequested()) {
+                long records = 0;
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(pollTimeout)) {
+                    // Records from the end offset on belong to the live tail
+                    if (record.offset() >= end) {
+                        break;
+                    }
+                    if (shadow.covers(record.timestamp())) {
+                        try {
+                            aggregates.record(PatientEvent.parseFrom(record.value()), record.timestamp());
+                            records++;
+                        } catch (InvalidProtocolBufferException e) {
+                            log.warn("Skipping unreadable event at {}-{}: {}", partition, record.offset(), e.getMessage());
+                        }
+                    }
+                }
+                position = consumer.position(partition);
+                progress.advance(position, records);
+            }
+        }
+        return aggregates;
+    }
+
+    // Until the live group's committed offset is at or past the captured end offset of every partition. Committed offsets
+    // trail what the listener has processed, so every record below the end offsets has been through the live path by then.
+    private void awaitLiveConsumer(BackfillJob job, Map<Integer, Long> endOffsets) throws InterruptedException {
+        Map<TopicPartition, Long> pending = new HashMap<>();
+        endOffsets.forEach((partition, end) -> {
+            if (end > 0) {
+                pending.put(new TopicPartition(TOPIC, partition), end);
+            }
+        });
+        long deadline = System.nanoTime() + catchUpTimeout.toNanos();
+        try (Consumer<String, byte[]> consumer = newConsumer(KafkaConsumer.GROUP_ID, "catch-up")) {
+            while (!job.isCancelRequested()) {
+                Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(pending.keySet());
+                pending.entrySet().removeIf(entry -> {
+                    OffsetAndMetadata offset = committed.get(entry.getKey());
+                    return offset != null && offset.offset() >= entry.getValue();
+                });
+                if (pending.isEmpty()) {
+                    return;
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("The " + KafkaConsumer.GROUP_ID + " group did not reach the end offsets within "
+                            + catchUpTimeout + ", still behind on " + pending.keySet());
+                }
+                Thread.sleep(pollTimeout.toMillis());
+            }
+        }
+    }
+
+    private Consumer<String, byte[]> newConsumer(String clientIdSuffix) {
+        return newConsumer(GROUP_ID, clientIdSuffix);
+    }
+
+    // Never subscribes nor commits: with the live group id it only reads the group's committed offsets, without joining it
+    private Consumer<String, byte[]> newConsumer(String groupId, String clientIdSuffix) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return consumerFactory.createConsumer(groupId, GROUP_ID + "-", clientIdSuffix, overrides);
+    }
+}
@@ -0,0 +1,34 @@
+package com.pm.analyticsservice.config;
+
+import billing.events.BillingEvent;
+import patient.events.PatientEvent;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+// Only needed for the GraalVM native image (mvn -Pnative native:compile): generated protobuf messages look up
+// their accessors and builders reflectively, so they have to be registered for reflection ahead of time
+@Configuration
+@ImportRuntimeHints(ProtobufRuntimeHints.MessageHints.class)
+public class ProtobufRuntimeHints {
+
+    static class MessageHints implements RuntimeHintsRegistrar {
+        private static final Class<?>[] MESSAGES = {
+                PatientEvent.class,
+                BillingEvent.class
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> message : MESSAGES) {
+                hints.reflection().registerType(message, MemberCategory.INVOKE_PUBLIC_METHODS);
+                // The nested class is the generated Builder
+                for (Class<?> nested : message.getDeclaredClasses()) {
+                    hints.reflection().registerType(nested, MemberCategory.INVOKE_PUBLIC_METHODS);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.pm.analyticsservice.directory;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.UUID;
+
+// Lookups in the local patient directory (PatientDirectory) and its footprint
+@RestController
+@RequestMapping("/analytics/directory")
+public class DirectoryController {
+    private final PatientDirectory patientDirectory;
+
+    public DirectoryController(PatientDirectory patientDirectory) {
+        this.patientDirectory = patientDirectory;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(patientDirectory.stats());
+    }
+
+    @GetMapping("/{patientId}")
+    public ResponseEntity<PatientAttributes> patient(@PathVariable UUID patientId) {
+        return ResponseEntity.of(patientDirectory.find(patientId));
+    }
+}
@@ -0,0 +1,14 @@
+package com.pm.analyticsservice.directory;
+
+import java.time.Instant;
+
+// What the directory knows about one patient, null where no event told it yet. Built on lookup only, the directory
+// itself keeps no object per patient.
+public record PatientAttributes(String patientId,
+                                String name,
+                                String email,
+                                Instant registeredAt,
+                                Instant updatedAt,
+                                String billingAccountId,
+                                Instant accountCreatedAt) {
+}
@@ -0,0 +1,541 @@
+package com.pm.analyticsservice.directory;
+
+import com.pm.analyticsservice.sketch.Hashing;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Local copy of the patient attributes, to enrich and join events by patient id without a call to patient-service.
+// Sized for millions of patients in a 512 MB task, with no object per patient:
+// - keys: UUIDs as two longs in open-addressing arrays (linear probing), 16 bytes of heap per slot
+// - fixed-size attributes: patients.slots, memory-mapped, one SLOT_BYTES record per key slot at the same index
+// - names and emails: patients-<generation>.data, memory-mapped and append-only, a slot points at its latest record
+// Both files are outside the heap, so the GC neither copies nor scans them and heap use only changes when the table grows.
+// Writes go straight to the mappings: a killed process loses nothing (the page cache outlives it), an OS crash loses
+// what wasn't flushed yet (analytics.directory.flush-interval). A restart maps the files and reads the keys back.
+// Growing the table and compacting the data file write new files and swap them in with one rename of patients.slots.
+@Component
+public class PatientDirectory {
+    private static final Logger log = LoggerFactory.getLogger(PatientDirectory.class);
+
+    private static final String SLOT_FILE = "patients.slots";
+    private static final int MAGIC = 0x50444952; // "PDIR"
+    private static final int VERSION = 1;
+
+    // Header of patients.slots
+    private static final int HEADER_BYTES = 64;
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_CAPACITY = 8;
+    private static final int H_SIZE = 12;
+    private static final int H_GENERATION = 16;
+    private static final int H_DATA_END = 24;
+    private static final int H_GARBAGE = 32;
+
+    // One slot, timestamps are epoch millis and 0 when unknown
+    private static final int SLOT_BYTES = 64;
+    private static final int S_MSB = 0;
+    private static final int S_LSB = 8;
+    private static final int S_REGISTERED_AT = 16;
+    private static final int S_UPDATED_AT = 24;
+    private static final int S_ACCOUNT_MSB = 32;
+    private static final int S_ACCOUNT_LSB = 40;
+    private static final int S_ACCOUNT_CREATED_AT = 48;
+    private static final int S_DATA_OFFSET = 56;
+    private static final int S_DATA_LENGTH = 60;
+
+    // A mapping is at most 2 GB: 2^24 slots (12.5M patients at the maximum load) and data records below that
+    private static final int MAX_CAPACITY = 1 << 24;
+    private static final int MAX_DATA_BYTES = Integer.MAX_VALUE - 8;
+    private static final double MAX_LOAD = 0.75;
+    private static final long MIN_COMPACT_GARBAGE = 1 << 20;
+
+    private final Path directory;
+    private final Path slotFile;
+    private final int initialDataBytes;
+    private final double compactGarbageRatio;
+
+    // Guarded by this. The arrays and the slot file always have the same capacity and the same key at each index.
+    private long[] msbs;
+    private long[] lsbs;
+    private int capacity;
+    private int mask;
+    private int size;
+    private MappedByteBuffer slots;
+    private long generation;
+    private MappedByteBuffer data;
+    private int dataEnd;
+    private long garbage;
+    private long rejected;
+    private boolean fullReported;
+
+    public PatientDirectory(@Value("${analytics.directory.path:data/patient-directory}") Path directory,
+                            @Value("${analytics.directory.expected-patients:1000000}") int expectedPatients,
+                            @Value("${analytics.directory.initial-data-size:16MB}") DataSize initialDataSize,
+                            @Value("${analytics.directory.compact-garbage-ratio:0.5}") double compactGarbageRatio) throws IOException {
+        this.directory = directory;
+        this.slotFile = directory.resolve(SLOT_FILE);
+        this.initialDataBytes = Math.toIntExact(initialDataSize.toBytes());
+        this.compactGarbageRatio = compactGarbageRatio;
+
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        if (!open()) {
+            create(tableSize(expectedPatients));
+        }
+        deleteStaleFiles();
+        log.info("Opened patient directory in {}: {} patients, capacity {}, {} data bytes, in {} ms",
+                directory, size, capacity, dataEnd, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Called on the Kafka listener thread for every "patient" event. Events older than the attributes already stored
+    // (re-deliveries, a backfill) only fill in what is missing.
+    public synchronized void patientChanged(String patientId, String name, String email, boolean registration, long timestamp) {
+        UUID id = parse(patientId);
+        if (id == null) {
+            return;
+        }
+        try {
+            byte[] record = encode(name, email);
+            // Before locating the slot: compacting the data file moves the slots around
+            boolean roomForRecord = ensureData(record.length);
+            int slot = slotFor(id.getMostSignificantBits(), id.getLeastSignificantBits(), true);
+            if (slot < 0) {
+                return;
+            }
+            int base = slotBase(slot);
+            if (registration && slots.getLong(base + S_REGISTERED_AT) == 0) {
+                slots.putLong(base + S_REGISTERED_AT, timestamp);
+            }
+            if (timestamp < slots.getLong(base + S_UPDATED_AT)) {
+                return;
+            }
+            if (!roomForRecord) {
+                rejected++;
+                return;
+            }
+            putRecord(base, record);
+            slots.putLong(base + S_UPDATED_AT, timestamp);
+        } catch (UncheckedIOException e) {
+            rejected++;
+            log.error("Patient directory update failed for patient {}", patientId, e);
+        }
+    }
+
+    // Called on the Kafka listener thread for "billing" ACCOUNT_CREATED events, which may arrive before the registration
+    public synchronized void accountCreated(String patientId, String accountId, long timestamp) {
+        UUID id = parse(patientId);
+        if (id == null) {
+            return;
+        }
+        try {
+            int slot = slotFor(id.getMostSignificantBits(), id.getLeastSignificantBits(), true);
+            if (slot < 0) {
+                return;
+            }
+            int base = slotBase(slot);
+            UUID account = parse(accountId);
+            if (account != null) {
+                slots.putLong(base + S_ACCOUNT_MSB, account.getMostSignificantBits());
+                slots.putLong(base + S_ACCOUNT_LSB, account.getLeastSignificantBits());
+            }
+            slots.putLong(base + S_ACCOUNT_CREATED_AT, timestamp);
+        } catch (UncheckedIOException e) {
+            rejected++;
+            log.error("Patient directory update failed for patient {}", patientId, e);
+        }
+    }
+
+    public synchronized Optional<PatientAttributes> find(UUID id) {
+        int slot = slotFor(id.getMostSignificantBits(), id.getLeastSignificantBits(), false);
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        int base = slotBase(slot);
+        String name = null;
+        String email = null;
+        int length = slots.getInt(base + S_DATA_LENGTH);
+        if (length > 0) {
+            int offset = slots.getInt(base + S_DATA_OFFSET);
+            int nameLength = data.getInt(offset);
+            name = decode(offset + 4, nameLength);
+            email = decode(offset + 8 + nameLength, data.getInt(offset + 4 + nameLength));
+        }
+        long accountMsb = slots.getLong(base + S_ACCOUNT_MSB);
+        long accountLsb = slots.getLong(base + S_ACCOUNT_LSB);
+        return Optional.of(new PatientAttributes(
+                id.toString(),
+                name,
+                email,
+                instant(slots.getLong(base + S_REGISTERED_AT)),
+                instant(slots.getLong(base + S_UPDATED_AT)),
+                accountMsb == 0 && accountLsb == 0 ? null : new UUID(accountMsb, accountLsb).toString(),
+                instant(slots.getLong(base + S_ACCOUNT_CREATED_AT))));
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("patients", size);
+        stats.put("capacity", capacity);
+        stats.put("load", capacity == 0 ? 0 : (double) size / capacity);
+        stats.put("heapBytes", (long) capacity * 16);
+        stats.put("slotFileBytes", slotFileBytes(capacity));
+        stats.put("dataBytes", dataEnd);
+        stats.put("dataFileBytes", data.capacity());
+        stats.put("garbageBytes", garbage);
+        stats.put("generation", generation);
+        stats.put("rejectedUpdates", rejected);
+        return stats;
+    }
+
+    // Compacts when due, then writes the mappings back to disk. The force runs outside the lock, writers carry on.
+    @Scheduled(fixedDelayString = "${analytics.directory.flush-interval:10s}")
+    public void flush() {
+        MappedByteBuffer slotsToFlush;
+        MappedByteBuffer dataToFlush;
+        synchronized (this) {
+            try {
+                if (garbage >= MIN_COMPACT_GARBAGE && garbage > compactGarbageRatio * dataEnd) {
+                    rewrite(capacity, true);
+                }
+            } catch (UncheckedIOException e) {
+                log.error("Patient directory compaction failed", e);
+            }
+            slotsToFlush = slots;
+            dataToFlush = data;
+        }
+        // Data first: a flushed slot never points at an unflushed record
+        dataToFlush.force();
+        slotsToFlush.force();
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    // Index of the key, inserting it when create is set. -1 when absent, or when the table is full at MAX_CAPACITY.
+    // The nil UUID (both longs 0) marks an empty slot, parse() never lets it in.
+    private int slotFor(long msb, long lsb, boolean create) {
+        int index = index(msb, lsb, mask);
+        while (true) {
+            long slotMsb = msbs[index];
+            long slotLsb = lsbs[index];
+            if (slotMsb == msb && slotLsb == lsb) {
+                return index;
+            }
+            if (slotMsb == 0 && slotLsb == 0) {
+                if (!create) {
+                    return -1;
+                }
+                if (size + 1 > capacity * MAX_LOAD) {
+                    if (capacity >= MAX_CAPACITY) {
+                        rejected++;
+                        if (!fullReported) {
+                            fullReported = true;
+                            log.warn("Patient directory is full at {} patients, new patients are not stored", size);
+                        }
+                        return -1;
+                    }
+                    rewrite(capacity * 2, false);
+                    return slotFor(msb, lsb, true);
+                }
+                msbs[index] = msb;
+                lsbs[index] = lsb;
+                int base = slotBase(index);
+                slots.putLong(base + S_MSB, msb);
+                slots.putLong(base + S_LSB, lsb);
+                size++;
+                slots.putInt(H_SIZE, size);
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    // Appends the record unless the slot already holds the same bytes. The record and the new data end are written
+    // before the slot points at the record, so the slot never points at a partly written one.
+    private void putRecord(int base, byte[] record) {
+        int offset = slots.getInt(base + S_DATA_OFFSET);
+        int length = slots.getInt(base + S_DATA_LENGTH);
+        if (length == record.length && data.slice(offset, length).equals(ByteBuffer.wrap(record))) {
+            return;
+        }
+        int at = dataEnd;
+        data.put(at, record);
+        dataEnd += record.length;
+        if (length > 0) {
+            garbage += length;
+        }
+        slots.putLong(H_DATA_END, dataEnd);
+        slots.putLong(H_GARBAGE, garbage);
+        slots.putInt(base + S_DATA_OFFSET, at);
+        slots.putInt(base + S_DATA_LENGTH, record.length);
+    }
+
+    // Makes room for a record of length bytes: compacts when half of the file is garbage, grows the mapping otherwise.
+    // False when the data file can't grow any further.
+    private boolean ensureData(int length) {
+        if ((long) dataEnd + length <= data.capacity()) {
+            return true;
+        }
+        if (garbage >= MIN_COMPACT_GARBAGE && garbage > compactGarbageRatio * dataEnd) {
+            rewrite(capacity, true);
+            if ((long) dataEnd + length <= data.capacity()) {
+                return true;
+            }
+        }
+        long needed = (long) dataEnd + length;
+        if (needed > MAX_DATA_BYTES) {
+            return false;
+        }
+        // Mapping past the end grows the file, the old mapping is released by the GC
+        data = map(dataFile(generation), Math.min(MAX_DATA_BYTES, Math.max(needed, (long) data.capacity() * 2)));
+        return true;
+    }
+
+    // Copies every key into a table of newCapacity slots (rehashed) and, when compacting, only the latest record of
+    // every slot into a data file of the next generation. Readers and writers wait: a few seconds for millions of patients.
+    private void rewrite(int newCapacity, boolean compact) {
+        long start = System.nanoTime();
+        long newGeneration = compact ? generation + 1 : generation;
+        int newMask = newCapacity - 1;
+        Path temp = directory.resolve(SLOT_FILE + ".tmp");
+        try {
+            Files.deleteIfExists(temp);
+            if (compact) {
+                Files.deleteIfExists(dataFile(newGeneration));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        MappedByteBuffer newSlots = map(temp, slotFileBytes(newCapacity));
+        MappedByteBuffer newData = compact
+                ? map(dataFile(newGeneration), Math.min(MAX_DATA_BYTES, Math.max(initialDataBytes, 2 * (dataEnd - garbage))))
+                : data;
+        long[] newMsbs = new long[newCapacity];
+        long[] newLsbs = new long[newCapacity];
+        int newDataEnd = compact ? 0 : dataEnd;
+        byte[] slot = new byte[SLOT_BYTES];
+
+        for (int i = 0; i < capacity; i++) {
+            if (msbs[i] == 0 && lsbs[i] == 0) {
+                continue;
+            }
+            int index = index(msbs[i], lsbs[i], newMask);
+            while (newMsbs[index] != 0 || newLsbs[index] != 0) {
+                index = (index + 1) & newMask;
+            }
+            newMsbs[index] = msbs[i];
+            newLsbs[index] = lsbs[i];
+            slots.get(slotBase(i), slot);
+            newSlots.put(slotBase(index), slot);
+            int length = slots.getInt(slotBase(i) + S_DATA_LENGTH);
+            if (compact && length > 0) {
+                newData.put(newDataEnd, data, slots.getInt(slotBase(i) + S_DATA_OFFSET), length);
+                newSlots.putInt(slotBase(index) + S_DATA_OFFSET, newDataEnd);
+                newDataEnd += length;
+            }
+        }
+        long newGarbage = compact ? 0 : garbage;
+        writeHeader(newSlots, newCapacity, newGeneration, newDataEnd, newGarbage);
+        if (compact) {
+            newData.force();
+        }
+        newSlots.force();
+
+        try {
+            // The switch: from here on a restart opens the new table, and the new data file with it
+            Files.move(temp, slotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (compact) {
+                Files.deleteIfExists(dataFile(generation));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Rewrote patient directory: capacity {} -> {}, {} -> {} data bytes, in {} ms",
+                capacity, newCapacity, dataEnd, newDataEnd, (System.nanoTime() - start) / 1_000_000);
+
+        msbs = newMsbs;
+        lsbs = newLsbs;
+        capacity = newCapacity;
+        mask = newMask;
+        slots = newSlots;
+        generation = newGeneration;
+        data = newData;
+        dataEnd = newDataEnd;
+        garbage = newGarbage;
+    }
+
+    // Maps an existing directory, false when there is none or it can't be trusted (it is then replaced by an empty one)
+    private boolean open() {
+        if (!Files.exists(slotFile)) {
+            return false;
+        }
+        try {
+            long fileBytes = Files.size(slotFile);
+            if (fileBytes < HEADER_BYTES) {
+                log.error("Ignoring truncated patient directory {}", slotFile);
+                return false;
+            }
+            MappedByteBuffer mapped = map(slotFile, fileBytes);
+            int fileCapacity = mapped.getInt(H_CAPACITY);
+            long fileGeneration = mapped.getLong(H_GENERATION);
+            long fileDataEnd = mapped.getLong(H_DATA_END);
+            Path fileData = dataFile(fileGeneration);
+            if (mapped.getInt(H_MAGIC) != MAGIC || mapped.getInt(H_VERSION) != VERSION
+                    || Integer.bitCount(fileCapacity) != 1 || fileCapacity > MAX_CAPACITY
+                    || slotFileBytes(fileCapacity) != fileBytes
+                    || !Files.exists(fileData) || fileDataEnd > Files.size(fileData)) {
+                log.error("Ignoring unreadable patient directory {}", slotFile);
+                return false;
+            }
+
+            msbs = new long[fileCapacity];
+            lsbs = new long[fileCapacity];
+            int count = 0;
+            for (int i = 0; i < fileCapacity; i++) {
+                int base = HEADER_BYTES + i * SLOT_BYTES;
+                msbs[i] = mapped.getLong(base + S_MSB);
+                lsbs[i] = mapped.getLong(base + S_LSB);
+                if (msbs[i] != 0 || lsbs[i] != 0) {
+                    count++;
+                }
+            }
+            capacity = fileCapacity;
+            mask = fileCapacity - 1;
+            // Counted rather than read: the count is what the table holds even if the process died between the two writes
+            size = count;
+            slots = mapped;
+            generation = fileGeneration;
+            dataEnd = (int) fileDataEnd;
+            garbage = mapped.getLong(H_GARBAGE);
+            data = map(fileData, Math.max(initialDataBytes, Files.size(fileData)));
+            slots.putInt(H_SIZE, size);
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Ignoring unreadable patient directory {}: {}", slotFile, e.getMessage());
+            return false;
+        }
+    }
+
+    private void create(int initialCapacity) throws IOException {
+        Files.deleteIfExists(slotFile);
+        Files.deleteIfExists(dataFile(0));
+        msbs = new long[initialCapacity];
+        lsbs = new long[initialCapacity];
+        capacity = initialCapacity;
+        mask = initialCapacity - 1;
+        size = 0;
+        generation = 0;
+        dataEnd = 0;
+        garbage = 0;
+        data = map(dataFile(0), initialDataBytes);
+        slots = map(slotFile, slotFileBytes(initialCapacity));
+        writeHeader(slots, capacity, generation, dataEnd, garbage);
+    }
+
+    // Data files of other generations and temporary files left by a rewrite that didn't finish
+    private void deleteStaleFiles() throws IOException {
+        String current = dataFile(generation).getFileName().toString();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp") || (name.endsWith(".data") && !name.equals(current))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void writeHeader(MappedByteBuffer target, int tableCapacity, long tableGeneration, long end, long garbageBytes) {
+        target.putInt(H_MAGIC, MAGIC);
+        target.putInt(H_VERSION, VERSION);
+        target.putInt(H_CAPACITY, tableCapacity);
+        target.putInt(H_SIZE, size);
+        target.putLong(H_GENERATION, tableGeneration);
+        target.putLong(H_DATA_END, end);
+        target.putLong(H_GARBAGE, garbageBytes);
+    }
+
+    private Path dataFile(long dataGeneration) {
+        return directory.resolve("patients-" + dataGeneration + ".data");
+    }
+
+    private static MappedByteBuffer map(Path file, long bytes) {
+        // The mapping stays valid once the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int index(long msb, long lsb, int mask) {
+        return (int) Hashing.fmix64(msb ^ Long.rotateLeft(lsb, 32)) & mask;
+    }
+
+    private static int slotBase(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static long slotFileBytes(int slotCount) {
+        return HEADER_BYTES + (long) slotCount * SLOT_BYTES;
+    }
+
+    // Smallest power of two holding the requested number of patients at the maximum load
+    private static int tableSize(int patients) {
+        int slotCount = Integer.highestOneBit((int) Math.min(MAX_CAPACITY, Math.max(16, (long) (patients / MAX_LOAD))) - 1) << 1;
+        return Math.min(MAX_CAPACITY, slotCount);
+    }
+
+    // [nameLength:int][name][emailLength:int][email], UTF-8
+    private static byte[] encode(String name, String email) {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(8 + nameBytes.length + emailBytes.length)
+                .putInt(nameBytes.length).put(nameBytes)
+                .putInt(emailBytes.length).put(emailBytes)
+                .array();
+    }
+
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        data.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Instant instant(long epochMillis) {
+        return epochMillis == 0 ? null : Instant.ofEpochMilli(epochMillis);
+    }
+
+    private static UUID parse(String id) {
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.getMostSignificantBits() == 0 && uuid.getLeastSignificantBits() == 0 ? null : uuid;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
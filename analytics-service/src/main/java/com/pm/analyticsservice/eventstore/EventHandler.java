@@ -0,0 +1,10 @@
+package com.pm.analyticsservice.eventstore;
+
+import java.nio.ByteBuffer;
+
+// Receives replayed events. The payload is a read-only view over the mapped segment (no copy),
+// it is only valid during the call: parse it or copy it, don't keep it.
+@FunctionalInterface
+public interface EventHandler {
+    void onEvent(long offset, long timestamp, ByteBuffer payload);
+}
@@ -0,0 +1,142 @@
+package com.pm.analyticsservice.eventstore;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+// Append-only log of the raw events consumed from Kafka, kept on local disk in memory-mapped segments (see Segment).
+// Lets the analytics be rebuilt from any point in time without re-reading the topic:
+// - a segment is rolled when it is full or older than event-store.roll-interval
+// - whole segments are dropped once their newest event is older than event-store.retention
+// - replay(from, handler) hands every event since "from" to the handler as a view over the mapped file
+@Component
+public class EventLog {
+    private static final Logger log = LoggerFactory.getLogger(EventLog.class);
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int indexIntervalBytes;
+    private final Duration rollInterval;
+    private final Duration retention;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment active;
+
+    public EventLog(@Value("${event-store.directory:data/event-store}") Path directory,
+                    @Value("${event-store.segment-size:64MB}") DataSize segmentSize,
+                    @Value("${event-store.index-interval:4KB}") DataSize indexInterval,
+                    @Value("${event-store.roll-interval:1d}") Duration rollInterval,
+                    @Value("${event-store.retention:30d}") Duration retention) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = Math.toIntExact(segmentSize.toBytes());
+        this.indexIntervalBytes = Math.toIntExact(indexInterval.toBytes());
+        this.rollInterval = rollInterval;
+        this.retention = retention;
+
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".log")).toList()) {
+                String name = file.getFileName().toString();
+                long baseOffset = Long.parseLong(name.substring(0, name.length() - ".log".length()));
+                segments.put(baseOffset, Segment.open(directory, baseOffset, segmentBytes, indexIntervalBytes));
+            }
+        }
+        this.active = segments.isEmpty() ? newSegment(0) : segments.lastEntry().getValue();
+        log.info("Opened event store in {}: {} segment(s), next offset {}", directory, segments.size(), active.nextOffset());
+    }
+
+    // Called from the Kafka listener thread, returns the offset of the stored event
+    public synchronized long append(long timestamp, byte[] payload) {
+        if (Segment.RECORD_HEADER_BYTES + payload.length > segmentBytes) {
+            throw new IllegalArgumentException("Event of " + payload.length + " bytes does not fit in a segment of " + segmentBytes + " bytes");
+        }
+        if (!active.hasRoomFor(payload.length) || rollDue()) {
+            roll();
+        }
+        return active.append(timestamp, payload);
+    }
+
+    // Replays, in offset order, every stored event with a timestamp >= fromTimestamp (epoch millis)
+    public long replay(long fromTimestamp, EventHandler handler) {
+        long replayed = 0;
+        for (Segment segment : segments.values()) {
+            if (segment.maxTimestamp() >= fromTimestamp) {
+                replayed += segment.replay(fromTimestamp, handler);
+            }
+        }
+        return replayed;
+    }
+
+    public long nextOffset() {
+        return active.nextOffset();
+    }
+
+    @Scheduled(fixedDelayString = "${event-store.flush-interval:1s}")
+    public void flush() {
+        active.flush();
+    }
+
+    @Scheduled(fixedDelayString = "${event-store.retention-check-interval:5m}")
+    public void enforceRetention() {
+        long cutoff = System.currentTimeMillis() - retention.toMillis();
+        for (Map.Entry<Long, Segment> entry : segments.entrySet()) {
+            Segment segment = entry.getValue();
+            // The active segment is never deleted, it is rolled first on the next append
+            if (segment == active || segment.maxTimestamp() >= cutoff) {
+                continue;
+            }
+            segments.remove(entry.getKey());
+            try {
+                segment.delete();
+                log.info("Deleted event store segment {} (events up to offset {})", segment.baseOffset(), segment.nextOffset() - 1);
+            } catch (IOException e) {
+                log.error("Failed to delete event store segment {}: {}", segment.baseOffset(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (Segment segment : segments.values()) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.error("Failed to close event store segment {}: {}", segment.baseOffset(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean rollDue() {
+        return active.size() > 0 && System.currentTimeMillis() - active.createdAt() >= rollInterval.toMillis();
+    }
+
+    private void roll() {
+        Segment previous = active;
+        previous.flush();
+        active = newSegment(previous.nextOffset());
+        log.info("Rolled event store segment {} ({} bytes), new segment starts at offset {}",
+                previous.baseOffset(), previous.size(), active.baseOffset());
+    }
+
+    private Segment newSegment(long baseOffset) {
+        try {
+            Segment segment = Segment.open(directory, baseOffset, segmentBytes, indexIntervalBytes);
+            segments.put(baseOffset, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create event store segment " + baseOffset, e);
+        }
+    }
+}
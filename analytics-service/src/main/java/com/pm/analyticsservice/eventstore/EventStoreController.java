@@ -0,0 +1,47 @@
+package com.pm.analyticsservice.eventstore;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import patient.events.PatientEvent;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/events")
+public class EventStoreController {
+    private final EventLog eventLog;
+
+    public EventStoreController(EventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    // Rebuilds the event counts per type from the local event store, e.g. GET /events/replay?from=2026-01-01T00:00:00Z
+    @GetMapping("/replay")
+    public ResponseEntity<Map<String, Object>> replay(
+            @RequestParam(defaultValue = "1970-01-01T00:00:00Z") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from) {
+        long start = System.nanoTime();
+        Map<String, Long> countsByType = new TreeMap<>();
+        long replayed = eventLog.replay(from.toEpochMilli(), (offset, timestamp, payload) -> {
+            String type;
+            try {
+                type = PatientEvent.parseFrom(payload).getEventType();
+            } catch (InvalidProtocolBufferException e) {
+                type = "UNREADABLE";
+            }
+            countsByType.merge(type, 1L, Long::sum);
+        });
+
+        return ResponseEntity.ok(Map.of(
+                "from", from.toString(),
+                "events", replayed,
+                "eventsByType", countsByType,
+                "durationMs", (System.nanoTime() - start) / 1_000_000));
+    }
+}
@@ -0,0 +1,209 @@
+package com.pm.analyticsservice.eventstore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// One file of the event log, preallocated and memory-mapped.
+// <baseOffset>.log holds records [length:int][crc32:int][timestamp:long][payload]
+// <baseOffset>.index is the sparse index, one [offset:long][maxTimestampBefore:long][position:int] entry every indexIntervalBytes
+// maxTimestampBefore is the highest timestamp of all records stored before that position, so it never decreases
+// and a replay can skip straight to the first entry that may contain a matching record.
+final class Segment implements Closeable {
+    static final int RECORD_HEADER_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 20;
+
+    private final long baseOffset;
+    private final Path logFile;
+    private final Path indexFile;
+    private final FileChannel logChannel;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer log;
+    private final MappedByteBuffer index;
+    private final int indexIntervalBytes;
+    private final long createdAt;
+
+    // Written by the appending thread only, volatile so concurrent replays see fully written records
+    private volatile int size;
+    private volatile long nextOffset;
+    private volatile int indexEntries;
+    private volatile long maxTimestamp = Long.MIN_VALUE;
+    private int bytesSinceIndex;
+
+    private Segment(Path directory, long baseOffset, int segmentBytes, int indexIntervalBytes) throws IOException {
+        this.baseOffset = baseOffset;
+        this.logFile = directory.resolve(fileName(baseOffset, ".log"));
+        this.indexFile = directory.resolve(fileName(baseOffset, ".index"));
+        this.indexIntervalBytes = indexIntervalBytes;
+        this.logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Mapping past the end grows the (sparse) file, unused space reads as zeros
+        int logBytes = (int) Math.max(segmentBytes, logChannel.size());
+        this.log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, logBytes);
+        this.index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                (long) (logBytes / indexIntervalBytes + 2) * INDEX_ENTRY_BYTES);
+        this.createdAt = Files.getLastModifiedTime(logFile).toMillis();
+        recover();
+    }
+
+    static Segment open(Path directory, long baseOffset, int segmentBytes, int indexIntervalBytes) throws IOException {
+        return new Segment(directory, baseOffset, segmentBytes, indexIntervalBytes);
+    }
+
+    static String fileName(long baseOffset, String suffix) {
+        return String.format("%020d%s", baseOffset, suffix);
+    }
+
+    // Finds the end of the log after a restart: trusts the index up to its last entry, then walks the records
+    // and stops at the first empty or torn (bad checksum) one
+    private void recover() {
+        int entries = 0;
+        int position = 0;
+        long offset = baseOffset;
+        long timestamp = Long.MIN_VALUE;
+        while ((entries + 1) * INDEX_ENTRY_BYTES <= index.capacity()) {
+            int entry = entries * INDEX_ENTRY_BYTES;
+            long entryOffset = index.getLong(entry);
+            int entryPosition = index.getInt(entry + 16);
+            boolean valid = entries == 0 ? entryOffset == baseOffset && entryPosition == 0 : entryPosition > position;
+            if (!valid) {
+                break;
+            }
+            offset = entryOffset;
+            position = entryPosition;
+            timestamp = index.getLong(entry + 8);
+            entries++;
+        }
+        int lastIndexed = position;
+        while (position + RECORD_HEADER_BYTES <= log.capacity()) {
+            int length = log.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_BYTES + length > log.capacity() || !checksumMatches(position, length)) {
+                break;
+            }
+            timestamp = Math.max(timestamp, log.getLong(position + 8));
+            position += RECORD_HEADER_BYTES + length;
+            offset++;
+        }
+        this.indexEntries = entries;
+        this.bytesSinceIndex = position - lastIndexed;
+        this.nextOffset = offset;
+        this.maxTimestamp = timestamp;
+        this.size = position;
+    }
+
+    boolean hasRoomFor(int payloadBytes) {
+        return size + RECORD_HEADER_BYTES + payloadBytes <= log.capacity();
+    }
+
+    // Single writer: only EventLog.append (synchronized) calls this
+    long append(long timestamp, byte[] payload) {
+        int position = size;
+        if (indexEntries == 0 || bytesSinceIndex >= indexIntervalBytes) {
+            int entry = indexEntries * INDEX_ENTRY_BYTES;
+            index.putLong(entry, nextOffset);
+            index.putLong(entry + 8, maxTimestamp);
+            index.putInt(entry + 16, position);
+            indexEntries++;
+            bytesSinceIndex = 0;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        log.putLong(position + 8, timestamp);
+        log.put(position + RECORD_HEADER_BYTES, payload);
+        log.putInt(position + 4, (int) crc.getValue());
+        // The length goes last: a record without it is treated as the end of the log on recovery
+        log.putInt(position, payload.length);
+
+        int recordBytes = RECORD_HEADER_BYTES + payload.length;
+        bytesSinceIndex += recordBytes;
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        long offset = nextOffset;
+        nextOffset = offset + 1;
+        size = position + recordBytes;
+        return offset;
+    }
+
+    // Replays every record with a timestamp >= fromTimestamp, returns how many were handed to the handler
+    long replay(long fromTimestamp, EventHandler handler) {
+        int end = size;
+        int entries = indexEntries;
+        ByteBuffer view = log.asReadOnlyBuffer();
+
+        // Last index entry before which every record is older than fromTimestamp
+        int position = 0;
+        long offset = baseOffset;
+        for (int i = 0; i < entries; i++) {
+            int entry = i * INDEX_ENTRY_BYTES;
+            if (index.getLong(entry + 8) >= fromTimestamp) {
+                break;
+            }
+            offset = index.getLong(entry);
+            position = index.getInt(entry + 16);
+        }
+
+        long replayed = 0;
+        while (position < end) {
+            int length = view.getInt(position);
+            long timestamp = view.getLong(position + 8);
+            if (timestamp >= fromTimestamp) {
+                handler.onEvent(offset, timestamp, view.slice(position + RECORD_HEADER_BYTES, length));
+                replayed++;
+            }
+            position += RECORD_HEADER_BYTES + length;
+            offset++;
+        }
+        return replayed;
+    }
+
+    private boolean checksumMatches(int position, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(log.slice(position + RECORD_HEADER_BYTES, length));
+        return (int) crc.getValue() == log.getInt(position + 4);
+    }
+
+    void flush() {
+        log.force();
+        index.force();
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    long nextOffset() {
+        return nextOffset;
+    }
+
+    long maxTimestamp() {
+        return maxTimestamp;
+    }
+
+    long createdAt() {
+        return createdAt;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        logChannel.close();
+        indexChannel.close();
+    }
+
+    // The mappings are released by the GC, on Linux the files can be deleted while still mapped
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(logFile);
+        Files.deleteIfExists(indexFile);
+    }
+}
@@ -1,25 +1,94 @@
 package com.pm.analyticsservice.kafka;
 
+import billing.events.BillingEvent;
 import com.google.protobuf.InvalidProtocolBufferException;
+import com.pm.analyticsservice.activation.ActivationJoin;
+import com.pm.analyticsservice.aggregation.AnalyticsAggregator;
+import com.pm.analyticsservice.directory.PatientDirectory;
+import com.pm.analyticsservice.eventstore.EventLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 import patient.events.PatientEvent;
 
 @Service
 public class KafkaConsumer {
+    // Live consumer group, BackfillService waits for its committed offsets before swapping a backfill in
+    public static final String GROUP_ID = "analytics-service";
+
     private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
-    @KafkaListener(topics = "patient", groupId = "analytics-service")
-    public void consumeEvent(byte[] event) {
+    private final EventLog eventLog;
+    private final AnalyticsAggregator aggregator;
+    private final ActivationJoin activationJoin;
+    private final PatientDirectory patientDirectory;
+
+    public KafkaConsumer(EventLog eventLog, AnalyticsAggregator aggregator, ActivationJoin activationJoin,
+                         PatientDirectory patientDirectory) {
+        this.eventLog = eventLog;
+        this.aggregator = aggregator;
+        this.activationJoin = activationJoin;
+        this.patientDirectory = patientDirectory;
+    }
+
+    // One listener for both topics: with the range assignor this consumer gets the same partition numbers of each,
+    // which is what the patient/billing join needs (both topics are keyed by patient id)
+    @KafkaListener(topics = {"patient", "billing"}, groupId = GROUP_ID)
+    public void consumeEvent(byte[] event,
+                             @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
+                             @Header(KafkaHeaders.RECEIVED_PARTITION) int partition,
+                             @Header(KafkaHeaders.OFFSET) long offset,
+                             @Header(KafkaHeaders.RECEIVED_TIMESTAMP) long timestamp) {
+        if ("billing".equals(topic)) {
+            consumeBillingEvent(event, timestamp);
+            return;
+        }
+        // Keep the raw bytes first, so the event can be replayed even if this version can't read it
+        eventLog.append(timestamp, event);
         // Logic to consume event from Kafka topic
         try {
             PatientEvent patientEvent = PatientEvent.parseFrom(event);
+            aggregator.record(patientEvent, partition, offset, timestamp);
+            boolean registration = "PATIENT_CREATED".equals(patientEvent.getEventType());
+            long occurredAt = occurredAt(patientEvent.getOccurredAt(), timestamp);
+            if (registration) {
+                activationJoin.onRegistration(patientEvent.getPatientId(), occurredAt);
+            }
+            patientDirectory.patientChanged(patientEvent.getPatientId(), patientEvent.getName(), patientEvent.getEmail(),
+                    registration, occurredAt);
             // ... Perform any business related to analytics here
-            log.info("Received Patient Event: [PatientId={}, PatientName={}, "
-                    + "PatientEmail={} ]", patientEvent.getPatientId(), patientEvent.getName(), patientEvent.getEmail());
+            // Sampled and rate limited (logging.rate-limit.loggers), name and email stay out of the logs
+            log.atInfo()
+                    .setMessage("Received Patient Event")
+                    .addKeyValue("patientId", patientEvent.getPatientId())
+                    .addKeyValue("eventType", patientEvent.getEventType())
+                    .addKeyValue("partition", partition)
+                    .addKeyValue("offset", offset)
+                    .log();
         } catch (InvalidProtocolBufferException e) {
             log.error("Error deserializing event {}", e.getMessage());
         }
     }
+
+    private void consumeBillingEvent(byte[] event, long timestamp) {
+        try {
+            BillingEvent billingEvent = BillingEvent.parseFrom(event);
+            if ("ACCOUNT_CREATED".equals(billingEvent.getEventType())) {
+                long occurredAt = occurredAt(billingEvent.getOccurredAt(), timestamp);
+                activationJoin.onAccountCreated(billingEvent.getPatientId(), billingEvent.getAccountId(), occurredAt);
+                patientDirectory.accountCreated(billingEvent.getPatientId(), billingEvent.getAccountId(), occurredAt);
+            }
+        } catch (InvalidProtocolBufferException e) {
+            log.error("Error deserializing billing event {}", e.getMessage());
+        }
+    }
+
+    // Time to activation is measured between when things happened, not when they were published: patient-service
+    // publishes the registration only after the billing call that creates the account. Events of older producers
+    // carry no time, their record timestamp is the best there is.
+    private static long occurredAt(long eventTime, long recordTimestamp) {
+        return eventTime > 0 ? eventTime : recordTimestamp;
+    }
 }
@@ -0,0 +1,107 @@
+package com.pm.analyticsservice.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-logger sampling and rate limiting, configured in logback-spring.xml from logging.rate-limit.loggers.
+// Runs before the event is created, so a dropped event costs neither message formatting nor a slot in the async queue.
+// Only INFO and below are limited, WARN and ERROR always pass.
+public class LogRateLimitFilter extends TurboFilter {
+    private static final Limit UNLIMITED = new Limit("", Integer.MAX_VALUE, 1.0);
+
+    private volatile List<Limit> limits = List.of();
+    private final Map<String, Limit> limitByLogger = new ConcurrentHashMap<>();
+
+    // "<logger or package>=<events per second>/<sample rate>, ...", e.g. "com.pm.analyticsservice.grpc=50/0.1"
+    public void setLimits(String value) {
+        List<Limit> parsed = new ArrayList<>();
+        for (String entry : value == null || value.isBlank() ? new String[0] : value.split(",")) {
+            String[] loggerAndLimit = entry.trim().split("=");
+            String[] rateAndSample = loggerAndLimit.length == 2 ? loggerAndLimit[1].split("/") : new String[0];
+            if (rateAndSample.length == 0 || rateAndSample.length > 2) {
+                addError("Ignoring log rate limit \"" + entry.trim() + "\", expected <logger>=<per second>[/<sample rate>]");
+                continue;
+            }
+            try {
+                double sampleRate = rateAndSample.length == 2 ? Double.parseDouble(rateAndSample[1].trim()) : 1.0;
+                parsed.add(new Limit(loggerAndLimit[0].trim(), Integer.parseInt(rateAndSample[0].trim()), sampleRate));
+            } catch (NumberFormatException e) {
+                addError("Ignoring log rate limit \"" + entry.trim() + "\": " + e.getMessage());
+            }
+        }
+        // Most specific logger name first
+        parsed.sort(Comparator.comparingInt((Limit limit) -> limit.logger.length()).reversed());
+        limits = List.copyOf(parsed);
+        limitByLogger.clear();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.WARN) || limits.isEmpty()) {
+            return FilterReply.NEUTRAL;
+        }
+        // Turbo filters see calls for disabled levels too, those must not use up the budget.
+        // getEffectiveLevel() is a plain read, isEnabledFor() would come back through this filter.
+        if (!level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Limit limit = limitByLogger.computeIfAbsent(logger.getName(), this::limitFor);
+        if (limit == UNLIMITED) {
+            return FilterReply.NEUTRAL;
+        }
+        // The fluent API (log.atInfo()...) only asks once, through isInfoEnabled() with a null format,
+        // so that call is limited as well; an explicit isInfoEnabled() guard therefore counts as an event
+        return limit.tryAcquire() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    private Limit limitFor(String loggerName) {
+        for (Limit limit : limits) {
+            if (loggerName.equals(limit.logger) || loggerName.startsWith(limit.logger + ".")) {
+                return limit;
+            }
+        }
+        return UNLIMITED;
+    }
+
+    private static final class Limit {
+        private final String logger;
+        private final int perSecond;
+        private final double sampleRate;
+        private final AtomicLong second = new AtomicLong();
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Limit(String logger, int perSecond, double sampleRate) {
+            if (perSecond < 0 || sampleRate < 0 || sampleRate > 1) {
+                throw new NumberFormatException("rate must be >= 0 and sample rate between 0 and 1");
+            }
+            this.logger = logger;
+            this.perSecond = perSecond;
+            this.sampleRate = sampleRate;
+        }
+
+        // Sampling first, then a fixed one second window: approximate under contention, which is fine for logs
+        private boolean tryAcquire() {
+            if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                return false;
+            }
+            long now = System.currentTimeMillis() / 1000;
+            long current = second.get();
+            if (current != now && second.compareAndSet(current, now)) {
+                count.set(0);
+            }
+            return count.incrementAndGet() <= perSecond;
+        }
+    }
+}
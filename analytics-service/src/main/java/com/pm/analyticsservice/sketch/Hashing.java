@@ -0,0 +1,32 @@
+package com.pm.analyticsservice.sketch;
+
+import java.nio.charset.StandardCharsets;
+
+// 64-bit FNV-1a over the UTF-8 bytes, followed by the MurmurHash3 finalizer so that every bit of the result is usable
+// by the sketches (HyperLogLog takes its register index from the top bits). Stable across JVMs, unlike String.hashCode
+// combined with a random seed, which is what makes sketches built on different instances mergeable.
+public final class Hashing {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private Hashing() {
+    }
+
+    public static long hash64(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return fmix64(hash);
+    }
+
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
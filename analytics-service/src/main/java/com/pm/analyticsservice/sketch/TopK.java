@@ -0,0 +1,95 @@
+package com.pm.analyticsservice.sketch;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Heavy hitters: a count-min sketch for the frequencies plus the k values with the highest estimates seen so far.
+// Memory is bounded by the sketch and k candidates, however many distinct values go through it.
+public class TopK {
+    private final int k;
+    private final CountMinSketch sketch;
+    private final Map<String, Long> candidates;
+
+    public TopK(int k) {
+        this(k, new CountMinSketch());
+    }
+
+    private TopK(int k, CountMinSketch sketch) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Top-k size must be positive, got " + k);
+        }
+        this.k = k;
+        this.sketch = sketch;
+        this.candidates = new HashMap<>(k * 2);
+    }
+
+    public void add(String value) {
+        long estimate = sketch.add(value, 1);
+        if (candidates.containsKey(value) || candidates.size() < k) {
+            candidates.put(value, estimate);
+            return;
+        }
+        Map.Entry<String, Long> smallest = smallestCandidate();
+        if (estimate > smallest.getValue()) {
+            candidates.remove(smallest.getKey());
+            candidates.put(value, estimate);
+        }
+    }
+
+    // The candidates by decreasing estimated count, at most limit of them
+    public Map<String, Long> top(int limit) {
+        Map<String, Long> top = new LinkedHashMap<>();
+        candidates.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> top.put(entry.getKey(), entry.getValue()));
+        return top;
+    }
+
+    public long total() {
+        return sketch.total();
+    }
+
+    public void merge(TopK other) {
+        sketch.merge(other.sketch);
+        // The merged sketch gives the combined counts, candidates of both sides compete for the k places
+        Set<String> values = new HashSet<>(candidates.keySet());
+        values.addAll(other.candidates.keySet());
+        candidates.clear();
+        values.stream()
+                .map(value -> Map.entry(value, sketch.estimate(value)))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(k)
+                .forEach(entry -> candidates.put(entry.getKey(), entry.getValue()));
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(k);
+        sketch.writeTo(out);
+        out.writeInt(candidates.size());
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            out.writeUTF(candidate.getKey());
+            out.writeLong(candidate.getValue());
+        }
+    }
+
+    public static TopK readFrom(DataInput in) throws IOException {
+        TopK topK = new TopK(in.readInt(), CountMinSketch.readFrom(in));
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            topK.candidates.put(in.readUTF(), in.readLong());
+        }
+        return topK;
+    }
+
+    private Map.Entry<String, Long> smallestCandidate() {
+        return candidates.entrySet().stream().min(Comparator.comparingLong(Map.Entry::getValue)).orElseThrow();
+    }
+}
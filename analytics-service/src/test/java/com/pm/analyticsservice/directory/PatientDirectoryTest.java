@@ -0,0 +1,136 @@
+package com.pm.analyticsservice.directory;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PatientDirectoryTest {
+    @TempDir
+    Path directory;
+
+    private PatientDirectory open() throws IOException {
+        return new PatientDirectory(directory, 16, DataSize.ofKilobytes(4), 0.5);
+    }
+
+    private static List<UUID> ids(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(new UUID(i + 1, ~i));
+        }
+        return ids;
+    }
+
+    @Test
+    void growsPastItsInitialCapacityAndFindsEveryPatient() throws IOException {
+        PatientDirectory patientDirectory = open();
+        List<UUID> ids = ids(5000);
+        for (int i = 0; i < ids.size(); i++) {
+            patientDirectory.patientChanged(ids.get(i).toString(), "Patient " + i, "p" + i + "@example.com", true, 1000 + i);
+        }
+        assertEquals(5000, patientDirectory.stats().get("patients"));
+        for (int i = 0; i < ids.size(); i++) {
+            PatientAttributes attributes = patientDirectory.find(ids.get(i)).orElseThrow();
+            assertEquals("Patient " + i, attributes.name());
+            assertEquals("p" + i + "@example.com", attributes.email());
+            assertEquals(Instant.ofEpochMilli(1000 + i), attributes.registeredAt());
+        }
+        assertTrue(patientDirectory.find(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void reopensWithEveryPatient() throws IOException {
+        PatientDirectory patientDirectory = open();
+        List<UUID> ids = ids(500);
+        for (int i = 0; i < ids.size(); i++) {
+            patientDirectory.patientChanged(ids.get(i).toString(), "Patient " + i, "p" + i + "@example.com", true, 1000 + i);
+        }
+        patientDirectory.accountCreated(ids.get(7).toString(), "223e4567-e89b-12d3-a456-426614174000", 5000);
+        patientDirectory.close();
+
+        PatientDirectory reopened = open();
+        assertEquals(500, reopened.stats().get("patients"));
+        PatientAttributes attributes = reopened.find(ids.get(7)).orElseThrow();
+        assertEquals("Patient 7", attributes.name());
+        assertEquals("223e4567-e89b-12d3-a456-426614174000", attributes.billingAccountId());
+        assertEquals(Instant.ofEpochMilli(5000), attributes.accountCreatedAt());
+    }
+
+    @Test
+    void olderEventsDoNotOverwriteNewerAttributes() throws IOException {
+        PatientDirectory patientDirectory = open();
+        String id = ids(1).get(0).toString();
+        patientDirectory.patientChanged(id, "New Name", "new@example.com", false, 2000);
+        // A re-delivered registration: fills in the registration time, keeps the newer name
+        patientDirectory.patientChanged(id, "Old Name", "old@example.com", true, 1000);
+
+        PatientAttributes attributes = patientDirectory.find(UUID.fromString(id)).orElseThrow();
+        assertEquals("New Name", attributes.name());
+        assertEquals(Instant.ofEpochMilli(2000), attributes.updatedAt());
+        assertEquals(Instant.ofEpochMilli(1000), attributes.registeredAt());
+    }
+
+    @Test
+    void accountCreatedBeforeTheRegistrationIsKept() throws IOException {
+        PatientDirectory patientDirectory = open();
+        String id = ids(1).get(0).toString();
+        patientDirectory.accountCreated(id, "223e4567-e89b-12d3-a456-426614174000", 900);
+        PatientAttributes beforeRegistration = patientDirectory.find(UUID.fromString(id)).orElseThrow();
+        assertNull(beforeRegistration.name());
+
+        patientDirectory.patientChanged(id, "Patient", "p@example.com", true, 1000);
+        PatientAttributes attributes = patientDirectory.find(UUID.fromString(id)).orElseThrow();
+        assertEquals("Patient", attributes.name());
+        assertEquals("223e4567-e89b-12d3-a456-426614174000", attributes.billingAccountId());
+    }
+
+    @Test
+    void compactsRewrittenRecordsAndReopensTheNewGeneration() throws IOException {
+        PatientDirectory patientDirectory = open();
+        List<UUID> ids = ids(100);
+        String padding = "x".repeat(200);
+        // About 2.4 MB of superseded records, past the 1 MB compaction threshold
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < ids.size(); i++) {
+                patientDirectory.patientChanged(ids.get(i).toString(), "Patient " + i + " v" + round + padding,
+                        "p" + i + "@example.com", round == 0, 1000 + round);
+            }
+        }
+        patientDirectory.close();
+        // Compacted at least once, and the superseded records never pile up past the threshold
+        assertTrue((long) patientDirectory.stats().get("generation") > 0);
+        assertTrue((long) patientDirectory.stats().get("garbageBytes") < (1 << 20));
+        assertTrue((int) patientDirectory.stats().get("dataBytes") < 3 << 19);
+
+        PatientDirectory reopened = open();
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals("Patient " + i + " v99" + padding, reopened.find(ids.get(i)).orElseThrow().name());
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.toString().endsWith(".data")).count());
+        }
+    }
+
+    @Test
+    void startsEmptyWhenTheSlotFileIsUnreadable() throws IOException {
+        PatientDirectory patientDirectory = open();
+        patientDirectory.patientChanged(ids(1).get(0).toString(), "Patient", "p@example.com", true, 1000);
+        patientDirectory.close();
+        Files.write(directory.resolve("patients.slots"), new byte[128]);
+
+        PatientDirectory reopened = open();
+        assertEquals(0, reopened.stats().get("patients"));
+        assertTrue(reopened.find(ids(1).get(0)).isEmpty());
+    }
+}
@@ -0,0 +1,145 @@
+package com.pm.analyticsservice.eventstore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventLogTest {
+    @TempDir
+    Path directory;
+
+    private EventLog open(DataSize segmentSize, DataSize indexInterval) throws IOException {
+        return new EventLog(directory, segmentSize, indexInterval, Duration.ofDays(1), Duration.ofDays(30));
+    }
+
+    private EventLog open() throws IOException {
+        return open(DataSize.ofKilobytes(64), DataSize.ofKilobytes(4));
+    }
+
+    private static byte[] event(int i) {
+        return ("event-" + i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> replay(EventLog eventLog, long fromTimestamp) {
+        List<String> events = new ArrayList<>();
+        eventLog.replay(fromTimestamp, (offset, timestamp, payload) -> {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            events.add(offset + ":" + timestamp + ":" + new String(bytes, StandardCharsets.UTF_8));
+        });
+        return events;
+    }
+
+    private Path onlyLogFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+    }
+
+    @Test
+    void replaysEventsFromATimestampInOffsetOrder() throws IOException {
+        EventLog eventLog = open();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, eventLog.append(1000 + i, event(i)));
+        }
+        assertEquals(List.of("3:1003:event-3", "4:1004:event-4"), replay(eventLog, 1003));
+        assertEquals(5, replay(eventLog, 0).size());
+        eventLog.close();
+    }
+
+    @Test
+    void continuesAfterTheLastRecordWhenReopened() throws IOException {
+        EventLog eventLog = open();
+        for (int i = 0; i < 3; i++) {
+            eventLog.append(1000 + i, event(i));
+        }
+        eventLog.close();
+
+        EventLog reopened = open();
+        assertEquals(3, reopened.nextOffset());
+        assertEquals(3, reopened.append(1003, event(3)));
+        assertEquals(List.of("0:1000:event-0", "1:1001:event-1", "2:1002:event-2", "3:1003:event-3"), replay(reopened, 0));
+        reopened.close();
+    }
+
+    @Test
+    void recoveryStopsAtARecordWithABadChecksum() throws IOException {
+        EventLog eventLog = open();
+        for (int i = 0; i < 3; i++) {
+            eventLog.append(1000 + i, event(i));
+        }
+        eventLog.close();
+
+        // Flip the last payload byte of the third record: length and checksum are there, the payload isn't what was written
+        int recordBytes = Segment.RECORD_HEADER_BYTES + event(0).length;
+        try (FileChannel channel = FileChannel.open(onlyLogFile(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long lastByte = 3L * recordBytes - 1;
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, lastByte);
+            channel.write(ByteBuffer.wrap(new byte[] {(byte) (b.get(0) ^ 0xff)}), lastByte);
+        }
+
+        EventLog reopened = open();
+        assertEquals(2, reopened.nextOffset());
+        assertEquals(List.of("0:1000:event-0", "1:1001:event-1"), replay(reopened, 0));
+        // The torn record is overwritten by the next append
+        assertEquals(2, reopened.append(1005, event(5)));
+        assertEquals(List.of("0:1000:event-0", "1:1001:event-1", "2:1005:event-5"), replay(reopened, 0));
+        reopened.close();
+    }
+
+    @Test
+    void recoveryStopsAtARecordWhoseLengthWasNeverWritten() throws IOException {
+        EventLog eventLog = open();
+        for (int i = 0; i < 3; i++) {
+            eventLog.append(1000 + i, event(i));
+        }
+        eventLog.close();
+
+        // Crash between the payload and the length of the third record: the length goes last
+        int recordBytes = Segment.RECORD_HEADER_BYTES + event(0).length;
+        try (FileChannel channel = FileChannel.open(onlyLogFile(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4), 2L * recordBytes);
+        }
+
+        EventLog reopened = open();
+        assertEquals(2, reopened.nextOffset());
+        assertEquals(2, replay(reopened, 0).size());
+        reopened.close();
+    }
+
+    @Test
+    void rollsFullSegmentsAndRecoversAllOfThem() throws IOException {
+        // About 40 records per segment and an index entry every 4 records
+        EventLog eventLog = open(DataSize.ofBytes(1024), DataSize.ofBytes(100));
+        for (int i = 0; i < 200; i++) {
+            eventLog.append(1000 + i, event(i));
+        }
+        eventLog.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.filter(file -> file.toString().endsWith(".log")).count() > 1);
+        }
+
+        EventLog reopened = open(DataSize.ofBytes(1024), DataSize.ofBytes(100));
+        assertEquals(200, reopened.nextOffset());
+        List<String> events = replay(reopened, 1150);
+        assertEquals(50, events.size());
+        assertEquals("150:1150:event-150", events.get(0));
+        reopened.close();
+    }
+}
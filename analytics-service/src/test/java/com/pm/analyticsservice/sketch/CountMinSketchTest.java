@@ -0,0 +1,67 @@
+package com.pm.analyticsservice.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    // Skewed stream: value i occurs about 1/(i+1) as often as value 0
+    private static Map<String, Long> addSkewedStream(CountMinSketch sketch, int events, long seed) {
+        Random random = new Random(seed);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < events; i++) {
+            String value = "clinic-" + (int) Math.floor(Math.exp(random.nextDouble() * Math.log(5000)) - 1);
+            sketch.add(value, 1);
+            exact.merge(value, 1L, Long::sum);
+        }
+        return exact;
+    }
+
+    @Test
+    void neverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch();
+        Map<String, Long> exact = addSkewedStream(sketch, 100_000, 1);
+        exact.forEach((value, count) -> assertTrue(sketch.estimate(value) >= count, value));
+    }
+
+    @Test
+    void overcountsByAtMostEOverWidthOfTheTotalWithHighProbability() {
+        CountMinSketch sketch = new CountMinSketch();
+        Map<String, Long> exact = addSkewedStream(sketch, 100_000, 2);
+        double bound = Math.E / CountMinSketch.DEFAULT_WIDTH * sketch.total();
+        long within = exact.entrySet().stream()
+                .filter(entry -> sketch.estimate(entry.getKey()) - entry.getValue() <= bound)
+                .count();
+        // The guarantee holds per value with probability 1 - e^-4 (98%)
+        assertTrue(within >= 0.98 * exact.size(), within + " of " + exact.size() + " within the bound");
+    }
+
+    @Test
+    void mergeAddsTheCounts() {
+        CountMinSketch left = new CountMinSketch();
+        CountMinSketch right = new CountMinSketch();
+        CountMinSketch all = new CountMinSketch();
+        for (int i = 0; i < 10_000; i++) {
+            String value = "clinic-" + (i % 300);
+            (i % 2 == 0 ? left : right).add(value, 1);
+            all.add(value, 1);
+        }
+        left.merge(right);
+        assertEquals(all.total(), left.total());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(all.estimate("clinic-" + i), left.estimate("clinic-" + i));
+        }
+    }
+
+    @Test
+    void refusesToMergeOtherDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(4, 256).merge(new CountMinSketch(4, 128)));
+    }
+}
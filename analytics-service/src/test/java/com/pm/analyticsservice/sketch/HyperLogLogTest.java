@@ -0,0 +1,90 @@
+package com.pm.analyticsservice.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+    // 1.04 / sqrt(2^12)
+    private static final double STANDARD_ERROR = 0.01625;
+
+    @Test
+    void estimatesLargeCardinalityWithinThreeStandardErrors() {
+        for (int distinct : new int[] {20_000, 100_000, 1_000_000}) {
+            HyperLogLog hll = new HyperLogLog();
+            for (int i = 0; i < distinct; i++) {
+                hll.add("patient-" + i);
+            }
+            double error = Math.abs(hll.cardinality() - distinct) / (double) distinct;
+            assertTrue(error < 3 * STANDARD_ERROR, "error " + error + " for " + distinct + " distinct values");
+        }
+    }
+
+    @Test
+    void smallCardinalityIsNearlyExact() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 200; i++) {
+            hll.add("patient-" + i);
+        }
+        assertTrue(Math.abs(hll.cardinality() - 200) <= 4, "estimate " + hll.cardinality());
+    }
+
+    @Test
+    void duplicatesDoNotCount() {
+        HyperLogLog hll = new HyperLogLog();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 1000; i++) {
+                hll.add("patient-" + i);
+            }
+        }
+        HyperLogLog once = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            once.add("patient-" + i);
+        }
+        assertEquals(once.cardinality(), hll.cardinality());
+    }
+
+    @Test
+    void mergeEqualsSketchOfTheUnion() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        HyperLogLog all = new HyperLogLog();
+        for (int i = 0; i < 50_000; i++) {
+            // Overlapping halves: 0..30k on the left, 20k..50k on the right
+            if (i < 30_000) {
+                left.add("patient-" + i);
+            }
+            if (i >= 20_000) {
+                right.add("patient-" + i);
+            }
+            all.add("patient-" + i);
+        }
+        left.merge(right);
+        assertEquals(all.cardinality(), left.cardinality());
+    }
+
+    @Test
+    void refusesToMergeAnotherPrecision() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(12).merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void survivesSerialization() throws IOException {
+        HyperLogLog hll = new HyperLogLog();
+        for (int i = 0; i < 10_000; i++) {
+            hll.add("patient-" + i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hll.writeTo(new DataOutputStream(bytes));
+        HyperLogLog read = HyperLogLog.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(hll.cardinality(), read.cardinality());
+    }
+}
@@ -0,0 +1,57 @@
+package com.pm.analyticsservice.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopKTest {
+    private static final Set<String> HEAVY = Set.of("clinic-a", "clinic-b", "clinic-c");
+
+    // Three heavy hitters (1000, 800 and 600 events) among 20,000 values seen once or twice
+    private static void addStream(TopK topK, int part, int parts) {
+        int event = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (event++ % parts == part) {
+                topK.add("clinic-a");
+            }
+            if (i < 800 && event++ % parts == part) {
+                topK.add("clinic-b");
+            }
+            if (i < 600 && event++ % parts == part) {
+                topK.add("clinic-c");
+            }
+            for (int j = 0; j < 20; j++) {
+                if (event++ % parts == part) {
+                    topK.add("rare-" + (i * 20 + j) % 15_000);
+                }
+            }
+        }
+    }
+
+    @Test
+    void findsTheHeavyHittersInOrder() {
+        TopK topK = new TopK(10);
+        addStream(topK, 0, 1);
+        Map<String, Long> top = topK.top(3);
+        assertEquals(List.of("clinic-a", "clinic-b", "clinic-c"), List.copyOf(top.keySet()));
+        // Estimates never undercount, and stay within e/width of the total above the exact counts
+        double bound = Math.E / CountMinSketch.DEFAULT_WIDTH * topK.total();
+        assertTrue(top.get("clinic-a") >= 1000 && top.get("clinic-a") <= 1000 + bound, "estimate " + top.get("clinic-a"));
+    }
+
+    @Test
+    void mergedInstancesFindTheSameHeavyHitters() {
+        TopK left = new TopK(10);
+        TopK right = new TopK(10);
+        addStream(left, 0, 2);
+        addStream(right, 1, 2);
+        left.merge(right);
+        assertEquals(HEAVY, left.top(3).keySet());
+        assertTrue(left.top(1).get("clinic-a") >= 1000);
+    }
+}
@@ -0,0 +1,132 @@
+package com.pm.apigateway.config;
+
+import com.pm.apigateway.loadbalancer.UpstreamLoadBalancerFilter;
+import com.pm.apigateway.loadbalancer.UpstreamProperties;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.cloud.gateway.config.GatewayProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Replaces the HttpClient Spring Cloud Gateway would build itself (it backs off when an HttpClient bean exists)
+// so the upstream connection pool can be tuned per route and upstreams can be reached over h2c
+@Configuration
+@EnableConfigurationProperties(UpstreamProperties.class)
+public class HttpClientConfig {
+
+    // Patient ids are collapsed so the client metrics keep a bounded number of uri tags
+    private static final Pattern UUID_SEGMENT =
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider gatewayConnectionProvider(HttpClientProperties httpClientProperties,
+                                                        GatewayProperties gatewayProperties,
+                                                        UpstreamProperties upstreamProperties) {
+        HttpClientProperties.Pool defaults = httpClientProperties.getPool();
+
+        // Global defaults come from spring.cloud.gateway.server.webflux.httpclient.pool.*
+        ConnectionProvider.Builder builder = ConnectionProvider.builder(defaults.getName())
+                .maxConnections(defaults.getMaxConnections())
+                .metrics(defaults.isMetrics());
+        if (defaults.getAcquireTimeout() != null) {
+            builder.pendingAcquireTimeout(Duration.ofMillis(defaults.getAcquireTimeout()));
+        }
+        if (defaults.getMaxIdleTime() != null) {
+            builder.maxIdleTime(defaults.getMaxIdleTime());
+        }
+        if (defaults.getMaxLifeTime() != null) {
+            builder.maxLifeTime(defaults.getMaxLifeTime());
+        }
+        if (defaults.getEvictionInterval() != null) {
+            builder.evictInBackground(defaults.getEvictionInterval());
+        }
+
+        // Routes can override the defaults with a "pool" block in their metadata, applied to the route's upstream host,
+        // or for upstream://<name> routes to each static instance of the upstream (instances found through DNS
+        // are only known at runtime and use the defaults)
+        for (RouteDefinition route : gatewayProperties.getRoutes()) {
+            Object pool = route.getMetadata().get("pool");
+            URI uri = route.getUri();
+            if (!(pool instanceof Map<?, ?> poolSettings) || uri == null || uri.getHost() == null) {
+                continue;
+            }
+            List<URI> hosts = List.of(uri);
+            if (UpstreamLoadBalancerFilter.SCHEME.equals(uri.getScheme())) {
+                UpstreamProperties.Upstream upstream = upstreamProperties.upstreams().get(uri.getHost());
+                hosts = upstream != null ? upstream.instances() : List.of();
+            }
+            for (URI host : hosts) {
+                builder.forRemoteHost(InetSocketAddress.createUnresolved(host.getHost(), port(host)),
+                        spec -> applyPoolSettings(spec.metrics(defaults.isMetrics()), poolSettings));
+            }
+        }
+        return builder.build();
+    }
+
+    private static int port(URI uri) {
+        return uri.getPort() != -1 ? uri.getPort() : ("https".equals(uri.getScheme()) ? 443 : 80);
+    }
+
+    @Bean
+    public HttpClient gatewayHttpClient(ConnectionProvider gatewayConnectionProvider,
+                                        HttpClientProperties httpClientProperties,
+                                        @Value("${gateway.upstream.h2c-enabled:true}") boolean h2cEnabled) {
+        HttpClient httpClient = HttpClient.create(gatewayConnectionProvider)
+                .metrics(true, uri -> UUID_SEGMENT.matcher(uri).replaceAll("{id}"));
+
+        if (httpClientProperties.getConnectTimeout() != null) {
+            httpClient = httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, httpClientProperties.getConnectTimeout());
+        }
+        if (httpClientProperties.getResponseTimeout() != null) {
+            httpClient = httpClient.responseTimeout(httpClientProperties.getResponseTimeout());
+        }
+        if (h2cEnabled) {
+            // HTTP/1.1 upgrade to h2c, upstreams that don't accept the upgrade keep talking HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+
+    private static <T extends ConnectionProvider.ConnectionPoolSpec<T>> T applyPoolSettings(T spec, Map<?, ?> settings) {
+        Object maxConnections = settings.get("max-connections");
+        if (maxConnections != null) {
+            spec.maxConnections(Integer.parseInt(maxConnections.toString()));
+        }
+        Object acquireTimeout = settings.get("acquire-timeout");
+        if (acquireTimeout != null) {
+            spec.pendingAcquireTimeout(toDuration(acquireTimeout));
+        }
+        Object maxIdleTime = settings.get("max-idle-time");
+        if (maxIdleTime != null) {
+            spec.maxIdleTime(toDuration(maxIdleTime));
+        }
+        Object maxLifeTime = settings.get("max-life-time");
+        if (maxLifeTime != null) {
+            spec.maxLifeTime(toDuration(maxLifeTime));
+        }
+        Object evictionInterval = settings.get("eviction-interval");
+        if (evictionInterval != null) {
+            spec.evictInBackground(toDuration(evictionInterval));
+        }
+        return spec;
+    }
+
+    // Accepts the same formats as @ConfigurationProperties durations, plain numbers are milliseconds
+    private static Duration toDuration(Object value) {
+        return DurationStyle.detectAndParse(value.toString());
+    }
+}
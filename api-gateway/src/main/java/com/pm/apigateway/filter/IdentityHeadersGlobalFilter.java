@@ -0,0 +1,47 @@
+package com.pm.apigateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+// Upstream services trust the identity headers because only the gateway can set them: whatever a client sends
+// under these names is removed on every route before any other filter runs. JwtValidation adds them back from /validate.
+// The tenant is part of the identity: a client can't pick another clinic with X-Tenant-Id, JwtValidation sets it
+// to the tenant of the token.
+@Component
+public class IdentityHeadersGlobalFilter implements GlobalFilter, Ordered {
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
+    public static final String USER_TENANT_HEADER = "X-User-Tenant";
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    // Shared secret proving the headers come from the gateway (gateway.identity.token), upstreams require it
+    public static final String GATEWAY_TOKEN_HEADER = "X-Gateway-Token";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        var headers = exchange.getRequest().getHeaders();
+        if (!headers.containsKey(USER_EMAIL_HEADER) && !headers.containsKey(USER_ROLE_HEADER) && !headers.containsKey(USER_TENANT_HEADER)
+                && !headers.containsKey(TENANT_HEADER) && !headers.containsKey(GATEWAY_TOKEN_HEADER)) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(h -> {
+                    h.remove(USER_EMAIL_HEADER);
+                    h.remove(USER_ROLE_HEADER);
+                    h.remove(USER_TENANT_HEADER);
+                    h.remove(TENANT_HEADER);
+                    h.remove(GATEWAY_TOKEN_HEADER);
+                })
+                .build();
+        return chain.filter(exchange.mutate().request(request).build());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -1,21 +1,37 @@
 package com.pm.apigateway.filter;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import static com.pm.apigateway.filter.IdentityHeadersGlobalFilter.GATEWAY_TOKEN_HEADER;
+import static com.pm.apigateway.filter.IdentityHeadersGlobalFilter.TENANT_HEADER;
+import static com.pm.apigateway.filter.IdentityHeadersGlobalFilter.USER_EMAIL_HEADER;
+import static com.pm.apigateway.filter.IdentityHeadersGlobalFilter.USER_ROLE_HEADER;
+import static com.pm.apigateway.filter.IdentityHeadersGlobalFilter.USER_TENANT_HEADER;
+
 @Component
 public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+    private static final Logger log = LoggerFactory.getLogger(JwtValidationGatewayFilterFactory.class);
 
     private final WebClient webClient;
+    private final String gatewayToken;
 
     public JwtValidationGatewayFilterFactory(WebClient.Builder webClientBuilder,
-                                             @Value("${auth.service.url}") String authServiceUrl){
+                                             @Value("${auth.service.url}") String authServiceUrl,
+                                             @Value("${gateway.identity.token:}") String gatewayToken){
         this.webClient = webClientBuilder.baseUrl(authServiceUrl).build();
+        this.gatewayToken = gatewayToken;
+        if (gatewayToken.isEmpty()) {
+            log.warn("gateway.identity.token is not set, upstreams will ignore the forwarded identity and answer 401");
+        }
     }
 
     @Override
@@ -28,12 +44,36 @@ public class JwtValidationGatewayFilterFactory extends AbstractGatewayFilterFact
                 return exchange.getResponse().setComplete();
             }
 
+            // /validate answers with the identity of the token, forwarded so upstreams never parse the JWT.
+            // No tenant in the token: neither tenant header is sent and upstreams use their default tenant.
             return webClient.get()
                     .uri("/validate")
                     .header(HttpHeaders.AUTHORIZATION, token)
                     .retrieve()
                     .toBodilessEntity()
-                    .then(chain.filter(exchange));
+                    .flatMap(response -> {
+                        String email = response.getHeaders().getFirst(USER_EMAIL_HEADER);
+                        String role = response.getHeaders().getFirst(USER_ROLE_HEADER);
+                        String tenant = response.getHeaders().getFirst(USER_TENANT_HEADER);
+                        ServerHttpRequest request = exchange.getRequest().mutate()
+                                .headers(headers -> {
+                                    if (email != null) {
+                                        headers.set(USER_EMAIL_HEADER, email);
+                                    }
+                                    if (role != null) {
+                                        headers.set(USER_ROLE_HEADER, role);
+                                    }
+                                    if (tenant != null) {
+                                        headers.set(USER_TENANT_HEADER, tenant);
+                                        headers.set(TENANT_HEADER, tenant);
+                                    }
+                                    if (!gatewayToken.isEmpty()) {
+                                        headers.set(GATEWAY_TOKEN_HEADER, gatewayToken);
+                                    }
+                                })
+                                .build();
+                        return chain.filter(exchange.mutate().request(request).build());
+                    });
         };
     }
 }
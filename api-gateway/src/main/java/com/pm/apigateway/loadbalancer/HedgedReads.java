@@ -0,0 +1,145 @@
+package com.pm.apigateway.loadbalancer;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+// Hedged GETs: the request goes to one instance and, if it hasn't answered after the upstream's hedge delay
+// (UpstreamGroup.hedgeDelay), to a second one as well. Whichever answers first is written to the client, the other
+// request is cancelled. GETs are safe to send twice, anything else is routed once by UpstreamLoadBalancerFilter.
+// The upstream call is made here with the gateway's HttpClient rather than by NettyRoutingFilter, which can only
+// stream a single upstream response, so responses are buffered up to hedge.max-response-size.
+@Component
+public class HedgedReads {
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private record UpstreamResponse(int status, HttpHeaders headers, byte[] body, boolean hedged) {
+    }
+
+    private final HttpClient httpClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+
+    public HedgedReads(HttpClient gatewayHttpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters) {
+        this.httpClient = gatewayHttpClient;
+        this.headersFilters = headersFilters;
+    }
+
+    boolean applies(UpstreamGroup group, ServerWebExchange exchange) {
+        if (!group.hedge().enabled() || !HttpMethod.GET.equals(exchange.getRequest().getMethod())
+                || group.instances().size() < 2) {
+            return false;
+        }
+        URI url = exchange.getRequiredAttribute(GATEWAY_REQUEST_URL_ATTR);
+        return group.hedge().excludedPaths().stream().noneMatch(pattern -> PATHS.match(pattern, url.getRawPath()));
+    }
+
+    Mono<Void> proxy(UpstreamGroup group, ServerWebExchange exchange, URI url) {
+        UpstreamInstance primary = group.choose(null);
+        if (primary == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No instance of upstream " + group.name());
+        }
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, primary.resolve(url));
+        HttpHeaders headers = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(), exchange);
+        headers.remove(HttpHeaders.HOST);
+        int maxResponseSize = (int) group.hedge().maxResponseSize().toBytes();
+        group.earnHedge();
+
+        Mono<UpstreamResponse> first = call(group, primary, url, headers, maxResponseSize, false);
+        Mono<UpstreamResponse> second = Mono.delay(group.hedgeDelay())
+                .flatMap(tick -> {
+                    UpstreamInstance other = group.choose(primary);
+                    // Completing empty leaves the first request on its own
+                    if (other == null || !group.spendHedge()) {
+                        return Mono.empty();
+                    }
+                    return call(group, other, url, headers, maxResponseSize, true);
+                });
+
+        return Mono.firstWithValue(first, second)
+                .onErrorMap(NoSuchElementException.class, e -> toResponseStatus(group, e))
+                .flatMap(response -> {
+                    if (response.hedged()) {
+                        group.hedgeWon();
+                    }
+                    return write(exchange, response);
+                });
+    }
+
+    private Mono<UpstreamResponse> call(UpstreamGroup group, UpstreamInstance instance, URI url, HttpHeaders headers,
+                                        int maxResponseSize, boolean hedged) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            instance.start();
+            return httpClient
+                    .headers(h -> headers.forEach(h::set))
+                    .get()
+                    .uri(instance.resolve(url))
+                    .response((response, body) -> body.asByteArray()
+                            .collect(ByteArrayOutputStream::new, (out, chunk) -> {
+                                if (out.size() + chunk.length > maxResponseSize) {
+                                    throw new DataBufferLimitException("Hedged response of upstream " + group.name()
+                                            + " is larger than " + maxResponseSize + " bytes, exclude its path from hedging");
+                                }
+                                out.write(chunk, 0, chunk.length);
+                            })
+                            .map(out -> {
+                                HttpHeaders responseHeaders = new HttpHeaders();
+                                response.responseHeaders().forEach(header -> responseHeaders.add(header.getKey(), header.getValue()));
+                                return new UpstreamResponse(response.status().code(), responseHeaders, out.toByteArray(), hedged);
+                            }))
+                    .single()
+                    // A cancelled request counts with the time it had taken so far, a slow instance loses its races
+                    .doFinally(signal -> {
+                        long elapsed = System.nanoTime() - start;
+                        instance.finish(elapsed);
+                        if (signal == SignalType.ON_COMPLETE) {
+                            group.recordRead(elapsed);
+                        }
+                    });
+        });
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, UpstreamResponse upstreamResponse) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(upstreamResponse.status()));
+        HttpHeaders headers = HttpHeadersFilter.filter(headersFilters.getIfAvailable(), upstreamResponse.headers(),
+                exchange, HttpHeadersFilter.Type.RESPONSE);
+        response.getHeaders().putAll(headers);
+        // The body is sent in one piece now
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(upstreamResponse.body().length);
+        setAlreadyRouted(exchange);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(upstreamResponse.body())));
+    }
+
+    // Both requests failed (or the hedge wasn't sent): report the first request's failure like NettyRoutingFilter would
+    private static ResponseStatusException toResponseStatus(UpstreamGroup group, NoSuchElementException e) {
+        Throwable cause = e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e;
+        if (cause instanceof ReadTimeoutException || cause instanceof TimeoutException) {
+            return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Upstream " + group.name() + " timed out", cause);
+        }
+        return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Upstream " + group.name() + " failed", cause);
+    }
+}
@@ -0,0 +1,47 @@
+package com.pm.apigateway.loadbalancer;
+
+import java.util.Arrays;
+
+// The last SIZE latencies of an upstream, percentiles are recomputed at most once per second from a sorted copy
+final class LatencyWindow {
+    private static final int SIZE = 1024;
+    // Below this many samples a percentile says little, callers fall back to their own default
+    private static final int MIN_SAMPLES = 100;
+    private static final long RECOMPUTE_NANOS = 1_000_000_000L;
+
+    private final long[] samples = new long[SIZE];
+    private int next;
+    private int count;
+    private double cachedPercentile;
+    private long cachedNanos = -1;
+    private long cachedAt;
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % SIZE;
+        count = Math.min(count + 1, SIZE);
+    }
+
+    // -1 until there are enough samples
+    long percentile(double percentile) {
+        long now = System.nanoTime();
+        long[] copy;
+        synchronized (this) {
+            if (count < MIN_SAMPLES) {
+                return -1;
+            }
+            if (cachedNanos >= 0 && cachedPercentile == percentile && now - cachedAt < RECOMPUTE_NANOS) {
+                return cachedNanos;
+            }
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        long value = copy[Math.min(copy.length - 1, (int) Math.ceil(percentile * copy.length) - 1)];
+        synchronized (this) {
+            cachedPercentile = percentile;
+            cachedNanos = value;
+            cachedAt = now;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,120 @@
+package com.pm.apigateway.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// The instances of one upstream (gateway.upstreams.<name>). Instances are picked with the power of two choices:
+// two at random, the one with the lower load wins, which spreads load almost as well as scanning every instance
+// without sending a burst to the single least loaded one.
+public class UpstreamGroup {
+    // At most this many hedges can be saved up for a burst
+    private static final long MAX_SAVED_HEDGES = 10;
+
+    private final String name;
+    private final UpstreamProperties.Upstream settings;
+    private final LatencyWindow readLatencies = new LatencyWindow();
+    // In thousandths of a hedge
+    private final AtomicLong hedgeBudget = new AtomicLong();
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private volatile List<UpstreamInstance> instances = List.of();
+
+    UpstreamGroup(String name, UpstreamProperties.Upstream settings, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.hedgesSent = meterRegistry.counter("gateway.upstream.hedges", "upstream", name, "result", "sent");
+        this.hedgesWon = meterRegistry.counter("gateway.upstream.hedges", "upstream", name, "result", "won");
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public UpstreamProperties.Hedge hedge() {
+        return settings.hedge();
+    }
+
+    public List<UpstreamInstance> instances() {
+        return instances;
+    }
+
+    // Keeps the statistics of instances that are still there, so a DNS refresh doesn't reset what was learned
+    synchronized void update(Collection<URI> uris) {
+        Map<URI, UpstreamInstance> current = new LinkedHashMap<>();
+        instances.forEach(instance -> current.put(instance.uri(), instance));
+        List<UpstreamInstance> updated = new ArrayList<>();
+        for (URI uri : uris) {
+            UpstreamInstance instance = current.get(uri);
+            updated.add(instance != null ? instance : new UpstreamInstance(uri, settings.decayTime().toNanos()));
+        }
+        instances = List.copyOf(updated);
+    }
+
+    // null when there is no instance other than excluded
+    UpstreamInstance choose(UpstreamInstance excluded) {
+        List<UpstreamInstance> candidates = instances;
+        if (excluded != null) {
+            candidates = candidates.stream().filter(instance -> instance != excluded).toList();
+        }
+        int size = candidates.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        UpstreamInstance a = candidates.get(first);
+        UpstreamInstance b = candidates.get(second);
+        return a.load(settings.strategy()) <= b.load(settings.strategy()) ? a : b;
+    }
+
+    void recordRead(long nanos) {
+        readLatencies.record(nanos);
+    }
+
+    // Recent percentile of read latencies within [min-delay, max-delay], max-delay until enough reads were seen
+    Duration hedgeDelay() {
+        UpstreamProperties.Hedge hedge = settings.hedge();
+        long percentile = readLatencies.percentile(hedge.percentile());
+        if (percentile < 0) {
+            return hedge.maxDelay();
+        }
+        return Duration.ofNanos(Math.max(hedge.minDelay().toNanos(), Math.min(hedge.maxDelay().toNanos(), percentile)));
+    }
+
+    // Every read earns max-ratio of a hedge, so hedging never adds more than that share of load, even when
+    // the whole upstream is slow and every read would otherwise be sent twice
+    void earnHedge() {
+        long earned = Math.round(settings.hedge().maxRatio() * 1000);
+        hedgeBudget.getAndUpdate(budget -> Math.min(MAX_SAVED_HEDGES * 1000, budget + earned));
+    }
+
+    boolean spendHedge() {
+        long left = hedgeBudget.getAndUpdate(budget -> budget >= 1000 ? budget - 1000 : budget);
+        if (left < 1000) {
+            return false;
+        }
+        hedgesSent.increment();
+        return true;
+    }
+
+    void hedgeWon() {
+        hedgesWon.increment();
+    }
+}
@@ -0,0 +1,94 @@
+package com.pm.apigateway.loadbalancer;
+
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One instance of an upstream with what the balancer knows about it: requests in flight and a peak EWMA of its latency.
+// The EWMA takes any slower sample at once and decays towards faster ones over decayTime, so a struggling instance
+// is avoided immediately and tried again gradually.
+public final class UpstreamInstance {
+    // Cost of an instance that has requests in flight but never answered one yet
+    private static final double UNSAMPLED_PENALTY = 1e12;
+
+    private final URI uri;
+    private final double decayNanos;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // guarded by this
+    private double ewmaNanos;
+    private long stamp = System.nanoTime();
+    private boolean sampled;
+
+    UpstreamInstance(URI uri, long decayNanos) {
+        this.uri = uri;
+        this.decayNanos = decayNanos;
+    }
+
+    public URI uri() {
+        return uri;
+    }
+
+    public int outstanding() {
+        return outstanding.get();
+    }
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    void finish(long elapsedNanos) {
+        outstanding.decrementAndGet();
+        observe(elapsedNanos);
+    }
+
+    // Request url with this instance's scheme, host and port, path and query stay encoded as they are
+    URI resolve(URI requestUrl) {
+        return UriComponentsBuilder.fromUri(requestUrl)
+                .scheme(uri.getScheme())
+                .host(uri.getHost())
+                .port(uri.getPort())
+                .build(true)
+                .toUri();
+    }
+
+    double load(UpstreamProperties.Strategy strategy) {
+        int inFlight = outstanding.get();
+        if (strategy == UpstreamProperties.Strategy.LEAST_OUTSTANDING) {
+            return inFlight;
+        }
+        synchronized (this) {
+            if (!sampled) {
+                return inFlight == 0 ? 0 : UNSAMPLED_PENALTY + inFlight;
+            }
+            // An idle instance drifts back towards zero so it gets probed again
+            decay(0, System.nanoTime());
+            return ewmaNanos * (inFlight + 1);
+        }
+    }
+
+    private synchronized void observe(long rttNanos) {
+        if (!sampled) {
+            sampled = true;
+            ewmaNanos = rttNanos;
+            stamp = System.nanoTime();
+            return;
+        }
+        decay(rttNanos, System.nanoTime());
+    }
+
+    private void decay(long rttNanos, long now) {
+        if (rttNanos > ewmaNanos) {
+            ewmaNanos = rttNanos;
+        } else {
+            double weight = Math.exp(-Math.max(0, now - stamp) / decayNanos);
+            ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+        }
+        stamp = now;
+    }
+
+    @Override
+    public String toString() {
+        return uri.toString();
+    }
+}
@@ -0,0 +1,73 @@
+package com.pm.apigateway.loadbalancer;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.addOriginalRequestUrl;
+
+// Routes with uri upstream://<name> are sent to one of the instances of gateway.upstreams.<name>, chosen by
+// UpstreamGroup. Runs right after the request url is built (path already stripped or rewritten by the route filters)
+// and counts the request against the instance until the response is written. Hedgeable GETs go to HedgedReads instead.
+@Component
+public class UpstreamLoadBalancerFilter implements GlobalFilter, Ordered {
+    public static final String SCHEME = "upstream";
+    // Where Spring Cloud LoadBalancer's lb:// filter would run, it isn't on the classpath
+    public static final int ORDER = RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 150;
+
+    private final UpstreamRegistry registry;
+    private final HedgedReads hedgedReads;
+
+    public UpstreamLoadBalancerFilter(UpstreamRegistry registry, HedgedReads hedgedReads) {
+        this.registry = registry;
+        this.hedgedReads = hedgedReads;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (url == null || !SCHEME.equals(url.getScheme())) {
+            return chain.filter(exchange);
+        }
+        addOriginalRequestUrl(exchange, url);
+        UpstreamGroup group = registry.get(url.getHost());
+        if (group == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Unknown upstream " + url.getHost());
+        }
+        if (hedgedReads.applies(group, exchange)) {
+            return hedgedReads.proxy(group, exchange, url);
+        }
+
+        UpstreamInstance instance = group.choose(null);
+        if (instance == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No instance of upstream " + group.name());
+        }
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, instance.resolve(url));
+        boolean read = HttpMethod.GET.equals(exchange.getRequest().getMethod());
+        long start = System.nanoTime();
+        instance.start();
+        return chain.filter(exchange).doFinally(signal -> {
+            long elapsed = System.nanoTime() - start;
+            instance.finish(elapsed);
+            if (read && signal == SignalType.ON_COMPLETE) {
+                group.recordRead(elapsed);
+            }
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
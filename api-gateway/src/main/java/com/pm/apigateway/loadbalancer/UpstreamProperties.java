@@ -0,0 +1,55 @@
+package com.pm.apigateway.loadbalancer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+// gateway.upstreams.<name> lists the instances a route with uri upstream://<name> is balanced over:
+// static instances, a DNS name resolving to one address per instance (dns: http://patient-service:4000), or both.
+@ConfigurationProperties(prefix = "gateway")
+public record UpstreamProperties(Map<String, Upstream> upstreams) {
+
+    public enum Strategy {
+        // fewest requests in flight
+        LEAST_OUTSTANDING,
+        // lowest recent latency (decaying, but jumping up on any slow response) times requests in flight
+        PEAK_EWMA
+    }
+
+    public record Upstream(List<URI> instances,
+                           URI dns,
+                           @DefaultValue("30s") Duration dnsRefreshInterval,
+                           @DefaultValue("peak-ewma") Strategy strategy,
+                           @DefaultValue("10s") Duration decayTime,
+                           @DefaultValue Hedge hedge) {
+
+        public List<URI> instances() {
+            return instances != null ? instances : List.of();
+        }
+    }
+
+    // GETs still unanswered after the upstream's recent percentile latency are sent to a second instance as well,
+    // the first response wins and the other request is cancelled. Hedged responses are buffered, so endpoints
+    // streaming large bodies (exports) belong in excluded-paths.
+    public record Hedge(@DefaultValue("false") boolean enabled,
+                        @DefaultValue("0.95") double percentile,
+                        @DefaultValue("10ms") Duration minDelay,
+                        @DefaultValue("1s") Duration maxDelay,
+                        @DefaultValue("0.1") double maxRatio,
+                        @DefaultValue("4MB") DataSize maxResponseSize,
+                        List<String> excludedPaths) {
+
+        public List<String> excludedPaths() {
+            return excludedPaths != null ? excludedPaths : List.of();
+        }
+    }
+
+    public Map<String, Upstream> upstreams() {
+        return upstreams != null ? upstreams : Map.of();
+    }
+}
@@ -0,0 +1,82 @@
+package com.pm.apigateway.loadbalancer;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Builds an UpstreamGroup per gateway.upstreams entry. Upstreams with a dns name are resolved again every
+// dns-refresh-interval (every task of an ECS service or every replica of a compose service answers the name),
+// a failed lookup keeps the instances found last time.
+@Component
+public class UpstreamRegistry {
+    private static final Logger log = LoggerFactory.getLogger(UpstreamRegistry.class);
+
+    private final Map<String, UpstreamGroup> groups = new LinkedHashMap<>();
+    private final ScheduledExecutorService resolver = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "upstream-dns");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public UpstreamRegistry(UpstreamProperties properties, MeterRegistry meterRegistry) {
+        properties.upstreams().forEach((name, upstream) -> {
+            UpstreamGroup group = new UpstreamGroup(name, upstream, meterRegistry);
+            group.update(upstream.instances());
+            groups.put(name, group);
+            Gauge.builder("gateway.upstream.instances", group, g -> g.instances().size())
+                    .tag("upstream", name)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.upstream.outstanding", group,
+                            g -> g.instances().stream().mapToInt(UpstreamInstance::outstanding).sum())
+                    .tag("upstream", name)
+                    .register(meterRegistry);
+
+            if (upstream.dns() != null) {
+                resolve(group, upstream);
+                long interval = upstream.dnsRefreshInterval().toMillis();
+                resolver.scheduleWithFixedDelay(() -> resolve(group, upstream), interval, interval, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    public UpstreamGroup get(String name) {
+        return groups.get(name);
+    }
+
+    private void resolve(UpstreamGroup group, UpstreamProperties.Upstream upstream) {
+        URI dns = upstream.dns();
+        try {
+            Set<URI> uris = new LinkedHashSet<>(upstream.instances());
+            for (InetAddress address : InetAddress.getAllByName(dns.getHost())) {
+                uris.add(new URI(dns.getScheme(), null, address.getHostAddress(), dns.getPort(), null, null, null));
+            }
+            if (uris.size() != group.instances().size()) {
+                log.info("Upstream {} now has {} instances: {}", group.name(), uris.size(), uris);
+            }
+            group.update(uris);
+        } catch (UnknownHostException e) {
+            log.warn("Could not resolve {} for upstream {}, keeping {} instances", dns.getHost(), group.name(), group.instances().size());
+        } catch (Exception e) {
+            log.error("Resolving upstream {} failed", group.name(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        resolver.shutdownNow();
+    }
+}
@@ -3,6 +3,7 @@ package com.pm.authservice.controller;
 import com.pm.authservice.dto.LoginRequestDTO;
 import com.pm.authservice.dto.LoginResponseDTO;
 import com.pm.authservice.service.AuthService;
+import com.pm.authservice.util.TokenClaims;
 import io.swagger.v3.oas.annotations.Operation;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +13,10 @@ import java.util.Optional;
 
 @RestController
 public class AuthController {
+    // Identity of a valid token, returned by /validate so the caller doesn't parse the token again
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
+    public static final String USER_TENANT_HEADER = "X-User-Tenant";
 
     private final AuthService authService;
 
@@ -43,8 +48,17 @@ public class AuthController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        return authService.validateToken(authHeader.substring(7))
-                ? ResponseEntity.ok().build()
-                : ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        Optional<TokenClaims> claims = authService.validateToken(authHeader.substring(7));
+        if (claims.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(USER_EMAIL_HEADER, claims.get().email())
+                .header(USER_ROLE_HEADER, claims.get().role());
+        if (claims.get().tenant() != null) {
+            response.header(USER_TENANT_HEADER, claims.get().tenant());
+        }
+        return response.build();
     }
 }
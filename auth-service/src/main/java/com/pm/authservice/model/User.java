@@ -20,6 +20,10 @@ public class User {
     @Column(nullable = false)
     private String role;
 
+    // Tenant (clinic) whose patients the user works on, carried in the token. null: the default tenant
+    @Column(name = "tenant_id")
+    private String tenantId;
+
     public UUID getId() {
         return id;
     }
@@ -52,6 +56,14 @@ public class User {
         this.role = role;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
 
 
 }
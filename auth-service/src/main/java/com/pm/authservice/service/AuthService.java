@@ -3,6 +3,7 @@ package com.pm.authservice.service;
 import com.pm.authservice.dto.LoginRequestDTO;
 import com.pm.authservice.model.User;
 import com.pm.authservice.util.JwtUtil;
+import com.pm.authservice.util.TokenClaims;
 import io.jsonwebtoken.JwtException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -23,16 +24,15 @@ public class AuthService {
     public Optional<String> authenticate(LoginRequestDTO loginRequestDTO){
         Optional<String> token = userService.findByEmail(loginRequestDTO.getEmail())
                 .filter(u -> passwordEncoder.matches(loginRequestDTO.getPassword(), u.getPassword()))
-                .map(u -> jwtUtil.generateToken(u.getEmail(), u.getRole())); // Convert the object to a token
+                .map(u -> jwtUtil.generateToken(u.getEmail(), u.getRole(), u.getTenantId())); // Convert the object to a token
         return token;
     }
 
-    public boolean validateToken(String token){
+    public Optional<TokenClaims> validateToken(String token){
         try{
-            jwtUtil.validateToken(token);
-            return true;
+            return Optional.of(jwtUtil.validateToken(token));
         } catch (JwtException e){
-            return false;
+            return Optional.empty();
         }
     }
 }
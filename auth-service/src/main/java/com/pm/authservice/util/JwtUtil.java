@@ -1,6 +1,8 @@
 package com.pm.authservice.util;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
@@ -10,34 +12,90 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @Component
 public class JwtUtil {
 
     private final Key secretKey;
+    // Immutable and thread-safe, built once instead of on every validation
+    private final JwtParser parser;
+    // Recently verified tokens, by SHA-256 digest (see validateToken)
+    private final AtomicReferenceArray<CachedToken> verifiedTokens;
+    private final int cacheMask;
 
-    public JwtUtil(@Value("${jwt.secret}") String secret){
+    private record CachedToken(byte[] digest, TokenClaims claims) {
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    public JwtUtil(@Value("${jwt.secret}") String secret,
+                   @Value("${jwt.validation-cache-size:4096}") int validationCacheSize){
         byte[] keyBytes = Base64.getDecoder().decode(secret.getBytes(StandardCharsets.UTF_8));
         this.secretKey = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parser().verifyWith((SecretKey) secretKey).build();
+        // Rounded up to a power of two so the slot is a mask of the digest, 0 disables the cache
+        int slots = validationCacheSize <= 0 ? 0 : Integer.highestOneBit(Math.max(1, validationCacheSize - 1)) << 1;
+        this.verifiedTokens = new AtomicReferenceArray<>(slots);
+        this.cacheMask = slots - 1;
     }
 
     public String generateToken(String email, String role){
+        return generateToken(email, role, null);
+    }
+
+    // tenant: the clinic the user belongs to, tokens without one act for the services' default tenant
+    public String generateToken(String email, String role, String tenant){
         return Jwts.builder()
                 .subject(email)
                 .claim("role", role)
+                .claim("tenant", tenant)
                 .issuedAt(new Date())
                 .expiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10))
                 .signWith(secretKey)
                 .compact();
     }
 
-    public void validateToken(String token){
+    // The same token is usually presented many times in a row (every request of a session goes through /validate),
+    // so verified tokens are remembered by digest in a fixed-size, lock-free, direct-mapped table:
+    // one SHA-256 instead of base64 + JSON parsing + HMAC. A colliding token simply replaces the slot.
+    // Only the digest is kept, never the token itself, and a cached token stops being valid at its expiration.
+    public TokenClaims validateToken(String token){
+        if (cacheMask < 0) {
+            return verify(token);
+        }
+        byte[] digest = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        int slot = ((digest[0] & 0xff) | (digest[1] & 0xff) << 8 | (digest[2] & 0xff) << 16 | (digest[3] & 0xff) << 24) & cacheMask;
+
+        CachedToken cached = verifiedTokens.get(slot);
+        if (cached != null && MessageDigest.isEqual(cached.digest(), digest)) {
+            if (cached.claims().expiresAtMillis() > System.currentTimeMillis()) {
+                return cached.claims();
+            }
+            throw new JwtException("Invalid JWT");
+        }
+
+        TokenClaims claims = verify(token);
+        verifiedTokens.set(slot, new CachedToken(digest, claims));
+        return claims;
+    }
+
+    private TokenClaims verify(String token){
         try{
-            Jwts.parser().verifyWith((SecretKey) secretKey)
-                    .build()
-                    .parseSignedClaims(token);
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+            return new TokenClaims(claims.getSubject(), claims.get("role", String.class),
+                    claims.get("tenant", String.class), expiresAt);
         } catch (SignatureException e){
             throw new JwtException("Invalid JWT signature");
         } catch (JwtException e){
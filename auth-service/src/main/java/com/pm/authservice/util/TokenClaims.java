@@ -0,0 +1,6 @@
+package com.pm.authservice.util;
+
+// What callers of /validate need from a verified token, so they don't have to parse it again. tenant is null for
+// users that don't belong to a particular clinic (default tenant).
+public record TokenClaims(String email, String role, String tenant, long expiresAtMillis) {
+}
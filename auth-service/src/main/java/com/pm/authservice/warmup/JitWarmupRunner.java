@@ -0,0 +1,114 @@
+package com.pm.authservice.warmup;
+
+import com.pm.authservice.dto.LoginRequestDTO;
+import com.pm.authservice.util.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+// Optional JIT warm-up (warmup.enabled=true). ApplicationRunners finish before Spring Boot publishes
+// ReadinessState.ACCEPTING_TRAFFIC, so /actuator/health/readiness stays OUT_OF_SERVICE until the hot paths are compiled.
+// Nothing is written: tokens are issued for a synthetic subject and logins use an unknown email (401).
+@Component
+public class JitWarmupRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(JitWarmupRunner.class);
+    private static final String WARMUP_EMAIL = "warmup@warmup.invalid";
+    private static final String WARMUP_PASSWORD = "warmup-password";
+
+    private final boolean enabled;
+    private final int iterations;
+    private final int bcryptIterations;
+    private final Duration maxDuration;
+    private final Environment environment;
+    private final JwtUtil jwtUtil;
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    public JitWarmupRunner(@Value("${warmup.enabled:false}") boolean enabled,
+                           @Value("${warmup.iterations:2000}") int iterations,
+                           @Value("${warmup.bcrypt-iterations:20}") int bcryptIterations,
+                           @Value("${warmup.max-duration:60s}") Duration maxDuration,
+                           Environment environment,
+                           JwtUtil jwtUtil,
+                           PasswordEncoder passwordEncoder,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.bcryptIterations = bcryptIterations;
+        this.maxDuration = maxDuration;
+        this.environment = environment;
+        this.jwtUtil = jwtUtil;
+        this.passwordEncoder = passwordEncoder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // The flag is read at runtime rather than through @ConditionalOnProperty so AOT builds can still toggle it
+        if (!enabled) {
+            return;
+        }
+        RestClient restClient = RestClient.create("http://localhost:" + environment.getProperty("local.server.port"));
+        log.info("JIT warm-up started: up to {} iterations or {}", iterations, maxDuration);
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        // BCrypt is deliberately slow (tens of ms per check on 0.25 vCPU), it gets its own much smaller budget
+        String passwordHash = passwordEncoder.encode(WARMUP_PASSWORD);
+        for (int i = 0; i < bcryptIterations && System.nanoTime() < deadline; i++) {
+            passwordEncoder.matches(WARMUP_PASSWORD, passwordHash);
+        }
+
+        int completed = 0;
+        int failed = 0;
+        while (completed < iterations && System.nanoTime() < deadline) {
+            try {
+                warmup(restClient);
+            } catch (RuntimeException e) {
+                failed++;
+                log.debug("JIT warm-up iteration {} failed", completed, e);
+            }
+            completed++;
+        }
+
+        Duration took = Duration.ofNanos(System.nanoTime() - start);
+        meterRegistry.timer("warmup.duration").record(took);
+        log.info("JIT warm-up finished: {} iterations ({} failed) in {} ms", completed, failed, took.toMillis());
+    }
+
+    private void warmup(RestClient restClient) {
+        // JwtUtil signing and parsing through the real /validate endpoint
+        String token = jwtUtil.generateToken(WARMUP_EMAIL, "WARMUP");
+        restClient.get()
+                .uri("/validate")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, (req, res) -> { })
+                .toBodilessEntity();
+
+        // Jackson + user lookup through /login, the email doesn't exist so no BCrypt check and a 401
+        LoginRequestDTO loginRequestDTO = new LoginRequestDTO();
+        loginRequestDTO.setEmail(WARMUP_EMAIL);
+        loginRequestDTO.setPassword(WARMUP_PASSWORD);
+        restClient.post()
+                .uri("/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(loginRequestDTO)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, (req, res) -> { })
+                .toBodilessEntity();
+    }
+}
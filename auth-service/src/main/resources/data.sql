@@ -3,9 +3,13 @@ CREATE TABLE IF NOT EXISTS "users" (
                                        id UUID PRIMARY KEY,
                                        email VARCHAR(255) UNIQUE NOT NULL,
                                        password VARCHAR(255) NOT NULL,
-                                       role VARCHAR(50) NOT NULL
+                                       role VARCHAR(50) NOT NULL,
+                                       tenant_id VARCHAR(64)
     );
 
+-- Tenant (clinic) carried in the user's token, NULL for the default tenant. Tables created before it get the column here
+ALTER TABLE "users" ADD COLUMN IF NOT EXISTS tenant_id VARCHAR(64);
+
 -- Insert the user if no existing user with the same id or email exists
 INSERT INTO "users" (id, email, password, role)
 SELECT '223e4567-e89b-12d3-a456-426614174006', 'testuser@test.com',
@@ -17,4 +21,24 @@ SELECT '223e4567-e89b-12d3-a456-426614174006', 'testuser@test.com',
        OR email = 'testuser@test.com'
 );
 
+-- Administrator of the clinic-north tenant (same password as testuser)
+INSERT INTO "users" (id, email, password, role, tenant_id)
+SELECT '223e4567-e89b-12d3-a456-426614174007', 'north.admin@test.com',
+       '$2b$12$7hoRZfJrRKD2nIm2vHLs7OBETy.LWenXXMLKf99W8M4PUwO6KB7fu', 'ADMIN', 'clinic-north'
+    WHERE NOT EXISTS (
+    SELECT 1
+    FROM "users"
+    WHERE id = '223e4567-e89b-12d3-a456-426614174007'
+       OR email = 'north.admin@test.com'
+);
 
+-- Platform operator: no tenant, manages the shards across every tenant (same password as testuser)
+INSERT INTO "users" (id, email, password, role)
+SELECT '223e4567-e89b-12d3-a456-426614174008', 'operator@test.com',
+       '$2b$12$7hoRZfJrRKD2nIm2vHLs7OBETy.LWenXXMLKf99W8M4PUwO6KB7fu', 'OPERATOR'
+    WHERE NOT EXISTS (
+    SELECT 1
+    FROM "users"
+    WHERE id = '223e4567-e89b-12d3-a456-426614174008'
+       OR email = 'operator@test.com'
+);
@@ -0,0 +1,42 @@
+import billing.BillingRequest;
+import billing.BillingResponse;
+import billing.BillingServiceGrpc;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Stand-in for billing-service in reactive-comparison.sh: answers CreateBillingAccount after a fixed delay, so both
+// patient-service builds wait on billing for the same time without billing's database being part of the measurement.
+// Answers are scheduled rather than slept on, the stub itself never runs out of threads.
+// Usage: java -cp <patient-service classpath> BillingStub.java <port> <delay ms>
+public class BillingStub {
+    public static void main(String[] args) throws Exception {
+        int port = Integer.parseInt(args[0]);
+        long delayMs = Long.parseLong(args[1]);
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+        Server server = ServerBuilder.forPort(port)
+                .addService(new BillingServiceGrpc.BillingServiceImplBase() {
+                    @Override
+                    public void createBillingAccount(BillingRequest request, StreamObserver<BillingResponse> responseObserver) {
+                        BillingResponse response = BillingResponse.newBuilder()
+                                .setAccountId(UUID.randomUUID().toString())
+                                .setStatus("ACTIVE")
+                                .build();
+                        scheduler.schedule(() -> {
+                            responseObserver.onNext(response);
+                            responseObserver.onCompleted();
+                        }, delayMs, TimeUnit.MILLISECONDS);
+                    }
+                })
+                .build()
+                .start();
+        System.out.println("Billing stub listening on " + port + " with " + delayMs + " ms delay");
+        server.awaitTermination();
+    }
+}
@@ -0,0 +1,51 @@
+import com.pm.authservice.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.function.Consumer;
+
+// Single-threaded validations per second of the three /validate strategies, run by validate-throughput.sh:
+// - a new parser for every token (what JwtUtil did before)
+// - one shared parser
+// - one shared parser behind the verified token cache (the default)
+// Tokens are drawn from a pool of SESSIONS so the cache sees the same mix of repeated tokens as real traffic.
+public class ValidateBenchmark {
+    private static final String SECRET = Base64.getEncoder().encodeToString("benchmark-only-secret-key-of-32-bytes!!".getBytes());
+    private static final int SESSIONS = 1000;
+
+    public static void main(String[] args) {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 10;
+        SecretKey key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+        JwtUtil uncached = new JwtUtil(SECRET, 0);
+        JwtUtil cached = new JwtUtil(SECRET, 4096);
+        String[] tokens = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            tokens[i] = uncached.generateToken("user" + i + "@test.com", "ADMIN");
+        }
+
+        report("New parser per token", seconds, tokens,
+                token -> Jwts.parser().verifyWith(key).build().parseSignedClaims(token));
+        report("Shared parser", seconds, tokens, uncached::validateToken);
+        report("Shared parser + verified token cache", seconds, tokens, cached::validateToken);
+    }
+
+    private static void report(String name, long seconds, String[] tokens, Consumer<String> validate) {
+        // Warm-up for a third of the measured time
+        run(seconds * 1000 / 3, tokens, validate);
+        long validations = run(seconds * 1000, tokens, validate);
+        System.out.printf("| %s | %,d |%n", name, validations / seconds);
+    }
+
+    private static long run(long millis, String[] tokens, Consumer<String> validate) {
+        long deadline = System.currentTimeMillis() + millis;
+        long count = 0;
+        while (System.currentTimeMillis() < deadline) {
+            for (int i = 0; i < 1000; i++) {
+                validate.accept(tokens[(int) (count++ % tokens.length)]);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,19 @@
+-- wrk script for reactive-comparison.sh: POST /patients with a unique email per request (duplicates get a 400)
+wrk.method = "POST"
+wrk.headers["Content-Type"] = "application/json"
+
+local counter = 0
+local thread_id = 0
+
+function setup(thread)
+    thread:set("thread_id", thread_id)
+    thread_id = thread_id + 1
+end
+
+function request()
+    counter = counter + 1
+    local body = string.format(
+        '{"name":"Bench Patient","email":"bench-%d-%d-%d@example.com","address":"1 Load St","dateOfBirth":"1990-01-01","registeredDate":"2024-01-01"}',
+        os.time(), thread_id, counter)
+    return wrk.format(nil, nil, nil, body)
+end
@@ -0,0 +1,104 @@
+#!/bin/bash
+set -e # Stops the script if any command fails
+
+# Compares the servlet build (patient-service) with the reactive build (patient-service-reactive) at CONNECTIONS
+# concurrent connections: GET /patients and POST /patients, the latter waiting on billing (BillingStub.java, answering
+# after BILLING_DELAY_MS) and on Kafka. Both builds run one after the other against the same PostgreSQL and Kafka
+# (docker), with the same heap, and are called directly with the identity headers the api-gateway would set.
+#
+# Usage: ./benchmarks/reactive-comparison.sh [connections] [seconds per run] [billing delay ms]
+# Output: benchmarks/reactive-report.md
+# Needs: docker, wrk, and a file descriptor limit above the connection count (ulimit -n is raised below when allowed)
+
+CONNECTIONS=${1:-10000}
+DURATION=${2:-60}
+BILLING_DELAY_MS=${3:-50}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK="$ROOT/benchmarks/target"
+REPORT="$ROOT/benchmarks/reactive-report.md"
+THREADS=$(nproc)
+HEAP="-Xmx1g"
+HEADERS=(-H "X-User-Email: bench@example.com" -H "X-User-Role: ADMIN")
+
+ulimit -n $((CONNECTIONS * 2 + 1024)) 2> /dev/null || echo "Could not raise ulimit -n, wrk may fail to open $CONNECTIONS connections"
+
+cleanup() {
+    [ -n "$APP_PID" ] && kill "$APP_PID" 2> /dev/null || true
+    [ -n "$STUB_PID" ] && kill "$STUB_PID" 2> /dev/null || true
+    docker rm -f bench-postgres bench-kafka > /dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+rm -rf "$WORK/reactive" && mkdir -p "$WORK/reactive"
+
+docker run -d --name bench-postgres -p 5432:5432 -e POSTGRES_USER=bench -e POSTGRES_PASSWORD=bench -e POSTGRES_DB=patients \
+    postgres:17 -c max_connections=300 > /dev/null
+docker run -d --name bench-kafka -p 9092:9092 apache/kafka:3.8.0 > /dev/null
+
+(cd "$ROOT/patient-service" && mvn -B -q clean package -DskipTests dependency:build-classpath -Dmdep.outputFile="$WORK/reactive/patient-classpath.txt")
+(cd "$ROOT/patient-service-reactive" && mvn -B -q clean package -DskipTests)
+
+java -cp "$ROOT/patient-service/target/classes:$(cat "$WORK/reactive/patient-classpath.txt")" \
+    "$ROOT/benchmarks/BillingStub.java" 9001 "$BILLING_DELAY_MS" > "$WORK/reactive/billing-stub.log" 2>&1 &
+STUB_PID=$!
+
+# Waits for the readiness of the build started last
+wait_ready() {
+    for _ in $(seq 120); do
+        curl -sf http://localhost:4000/actuator/health > /dev/null && return 0
+        sleep 1
+    done
+    echo "Service did not start, see $WORK/reactive/*.log" && exit 1
+}
+
+# Prints "requests/s | p50 | p99 | errors" of one wrk run
+measure() {
+    local output
+    output=$(wrk -t"$THREADS" -c"$CONNECTIONS" -d"${DURATION}s" --latency --timeout 10s "${HEADERS[@]}" "$@")
+    echo "$output" > "$WORK/reactive/wrk-$RANDOM.txt"
+    local rps p50 p99 errors
+    rps=$(echo "$output" | awk '/Requests\/sec/ {print $2}')
+    p50=$(echo "$output" | awk '$1 == "50%" {print $2}')
+    p99=$(echo "$output" | awk '$1 == "99%" {print $2}')
+    errors=$(echo "$output" | awk '/Socket errors|Non-2xx/ {print}' | tr '\n' ' ')
+    echo "$rps | $p50 | $p99 | ${errors:-none}"
+}
+
+# Starts one build, warms it up, runs both scenarios and stops it
+run() {
+    local name=$1 && shift
+    java $HEAP -jar "$@" \
+        --billing.service.address=localhost --billing.service.grpc.port=9001 \
+        --spring.kafka.bootstrap-servers=localhost:9092 \
+        --spring.sql.init.platform=postgresql --spring.sql.init.mode=always \
+        > "$WORK/reactive/$name.log" 2>&1 &
+    APP_PID=$!
+    wait_ready
+    wrk -t"$THREADS" -c100 -d15s "${HEADERS[@]}" http://localhost:4000/patients > /dev/null
+    wrk -t"$THREADS" -c100 -d15s "${HEADERS[@]}" -s "$ROOT/benchmarks/create-patient.lua" http://localhost:4000/patients > /dev/null
+
+    echo "| $name | GET /patients | $(measure http://localhost:4000/patients) |" >> "$REPORT"
+    echo "| $name | POST /patients | $(measure -s "$ROOT/benchmarks/create-patient.lua" http://localhost:4000/patients) |" >> "$REPORT"
+    kill "$APP_PID" && wait "$APP_PID" 2> /dev/null || true
+    APP_PID=
+}
+
+{
+    echo "# Servlet vs reactive patient-service"
+    echo
+    echo "$CONNECTIONS connections, $THREADS wrk threads, $DURATION s per run, billing answering after $BILLING_DELAY_MS ms,"
+    echo "$HEAP heap, measured on $(uname -srm) with $(java -version 2>&1 | head -1). Both builds read and write the same PostgreSQL."
+    echo
+    echo "| Build | Endpoint | Requests/s | p50 | p99 | Errors |"
+    echo "|---|---|---|---|---|---|"
+} > "$REPORT"
+
+run servlet "$ROOT/patient-service/target/patient-service-0.0.1-SNAPSHOT.jar" \
+    --spring.datasource.url=jdbc:postgresql://localhost:5432/patients \
+    --spring.datasource.username=bench --spring.datasource.password=bench
+
+run reactive "$ROOT/patient-service-reactive/target/patient-service-reactive-0.0.1-SNAPSHOT.jar" \
+    --spring.r2dbc.url=r2dbc:postgresql://localhost:5432/patients \
+    --spring.r2dbc.username=bench --spring.r2dbc.password=bench
+
+echo "Report written to $REPORT"
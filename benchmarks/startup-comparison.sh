@@ -0,0 +1,86 @@
+#!/bin/bash
+set -e # Stops the script if any command fails
+
+# Compares cold start time of every service as a plain fat jar, as an AOT + CDS jar (-Pfast-startup)
+# and, when GraalVM's native-image is on the PATH, as a native image (-Pnative).
+# Each variant is started RUNS times and stopped right after the application context is refreshed
+# (-Dspring.context.exit=onRefresh), so nothing is measured after startup and no external system is needed.
+#
+# Usage: ./benchmarks/startup-comparison.sh [runs]
+# Output: benchmarks/startup-report.md
+# Tip: pin the CPU like the Fargate task (0.25 vCPU) with e.g. "taskset -c 0" or "docker run --cpus=0.25"
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK="$ROOT/benchmarks/target"
+REPORT="$ROOT/benchmarks/startup-report.md"
+SERVICES="patient-service auth-service billing-service analytics-service api-gateway"
+
+# Same local stand-ins as the CDS training run in Dockerfile.fast-startup
+training_options() {
+    case "$1" in
+        patient-service) echo "-Dspring.datasource.url=jdbc:h2:mem:cds -Dspring.sql.init.mode=never" ;;
+        auth-service) echo "-Dspring.datasource.url=jdbc:h2:mem:cds -Dspring.sql.init.mode=never -Djwt.secret=ZGV2LW9ubHktY2RzLXRyYWluaW5nLXNlY3JldC1rZXktMzItYnl0ZXM=" ;;
+        billing-service) echo "-Dgrpc.server.port=0" ;;
+        analytics-service) echo "-Dspring.kafka.bootstrap-servers=localhost:9092" ;;
+        api-gateway) echo "-Dauth.service.url=http://localhost:4005" ;;
+    esac
+}
+
+# Prints the average wall clock time (ms) of RUNS executions of the given command
+average_ms() {
+    local total=0
+    for _ in $(seq "$RUNS"); do
+        local start end
+        start=$(date +%s%N)
+        "$@" > /dev/null 2>&1 || true
+        end=$(date +%s%N)
+        total=$((total + (end - start) / 1000000))
+    done
+    echo $((total / RUNS))
+}
+
+rm -rf "$WORK" && mkdir -p "$WORK"
+
+{
+    echo "# Startup time comparison"
+    echo
+    echo "Average of $RUNS runs, JVM start until the application context is refreshed, measured on $(uname -srm) with $(java -version 2>&1 | head -1)."
+    echo
+    echo "| Service | Fat jar (ms) | AOT + CDS (ms) | Native image (ms) |"
+    echo "|---|---|---|---|"
+} > "$REPORT"
+
+for service in $SERVICES; do
+    jar="$service-0.0.1-SNAPSHOT.jar"
+    options=$(training_options "$service")
+    echo "Measuring $service..."
+
+    (cd "$ROOT/$service" && mvn -B -q clean package -DskipTests)
+    mkdir -p "$WORK/$service/jar" && cp "$ROOT/$service/target/$jar" "$WORK/$service/jar/"
+    # shellcheck disable=SC2086
+    plain=$(cd "$WORK/$service/jar" && average_ms java $options -Dspring.context.exit=onRefresh -jar "$jar")
+
+    (cd "$ROOT/$service" && mvn -B -q clean package -DskipTests -Pfast-startup)
+    java -Djarmode=tools -jar "$ROOT/$service/target/$jar" extract --destination "$WORK/$service/cds"
+    # shellcheck disable=SC2086
+    (cd "$WORK/$service/cds" && java -XX:ArchiveClassesAtExit=application.jsa -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh $options -jar "$jar" > /dev/null 2>&1)
+    # shellcheck disable=SC2086
+    cds=$(cd "$WORK/$service/cds" && average_ms java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+        $options -Dspring.context.exit=onRefresh -jar "$jar")
+
+    native="n/a"
+    if command -v native-image > /dev/null; then
+        if (cd "$ROOT/$service" && mvn -B -q clean -Pnative native:compile -DskipTests); then
+            # shellcheck disable=SC2086
+            native=$(average_ms "$ROOT/$service/target/$service" $options -Dspring.context.exit=onRefresh)
+        else
+            native="build failed"
+        fi
+    fi
+
+    echo "| $service | $plain | $cds | $native |" >> "$REPORT"
+done
+
+echo "Report written to $REPORT"
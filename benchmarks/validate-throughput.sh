@@ -0,0 +1,30 @@
+#!/bin/bash
+set -e # Stops the script if any command fails
+
+# Measures /validate token verification in auth-service, in validations per second on one core:
+# a new parser per token (the previous behaviour), a shared parser, and a shared parser with the verified token cache.
+# Runs ValidateBenchmark.java in-process against the compiled JwtUtil, without HTTP, so only the verification is measured.
+#
+# Usage: ./benchmarks/validate-throughput.sh [seconds per variant]
+# Output: benchmarks/validate-report.md
+
+SECONDS_PER_VARIANT=${1:-10}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+WORK="$ROOT/benchmarks/target"
+REPORT="$ROOT/benchmarks/validate-report.md"
+
+mkdir -p "$WORK"
+(cd "$ROOT/auth-service" && mvn -B -q compile dependency:build-classpath -Dmdep.outputFile="$WORK/auth-classpath.txt")
+CLASSPATH="$ROOT/auth-service/target/classes:$(cat "$WORK/auth-classpath.txt")"
+
+{
+    echo "# /validate throughput"
+    echo
+    echo "Validations per second on one core (taskset -c 0), $SECONDS_PER_VARIANT s per variant, measured on $(uname -srm) with $(java -version 2>&1 | head -1)."
+    echo
+    echo "| Variant | Validations/s |"
+    echo "|---|---|"
+    taskset -c 0 java -cp "$CLASSPATH" "$ROOT/benchmarks/ValidateBenchmark.java" "$SECONDS_PER_VARIANT"
+} > "$REPORT"
+
+echo "Report written to $REPORT"
@@ -0,0 +1,51 @@
+package com.pm.billingservice.account;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// One billing account per patient: CreateBillingAccount is retried by patient-service, a retry returns the existing account
+@Repository
+public class BillingAccountRepository {
+    // created is false when the account already existed
+    public record BillingAccount(UUID id, String status, boolean created) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long defaultMonthlyFeeCents;
+
+    public BillingAccountRepository(JdbcTemplate jdbcTemplate,
+                                    @Value("${billing.default-monthly-fee-cents:2500}") long defaultMonthlyFeeCents) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultMonthlyFeeCents = defaultMonthlyFeeCents;
+    }
+
+    public BillingAccount findOrCreate(String patientId, String name, String email) {
+        BillingAccount existing = findByPatientId(patientId);
+        if (existing != null) {
+            return existing;
+        }
+        BillingAccount account = new BillingAccount(UUID.randomUUID(), "ACTIVE", true);
+        try {
+            jdbcTemplate.update("INSERT INTO billing_account (id, patient_id, name, email, status, monthly_fee_cents, created_at) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    account.id(), patientId, name, email, account.status(), defaultMonthlyFeeCents, Timestamp.from(Instant.now()));
+            return account;
+        } catch (DuplicateKeyException e) {
+            // Created by a concurrent call for the same patient
+            return findByPatientId(patientId);
+        }
+    }
+
+    private BillingAccount findByPatientId(String patientId) {
+        List<BillingAccount> accounts = jdbcTemplate.query("SELECT id, status FROM billing_account WHERE patient_id = ?",
+                (rs, rowNum) -> new BillingAccount(rs.getObject("id", UUID.class), rs.getString("status"), false), patientId);
+        return accounts.isEmpty() ? null : accounts.get(0);
+    }
+}
@@ -1,30 +1,117 @@
 package com.pm.billingservice.grpc;
 
 import billing.BillingResponse;
+import billing.BillingRunRequest;
+import billing.BillingRunStatus;
 import billing.BillingServiceGrpc.BillingServiceImplBase;
+import com.pm.billingservice.account.BillingAccountRepository;
+import com.pm.billingservice.invoicing.BillingRunEngine;
+import com.pm.billingservice.invoicing.BillingRunProgress;
+import com.pm.billingservice.kafka.BillingEventProducer;
+import com.pm.billingservice.logging.LogFields;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
 
 @GrpcService
 public class BillingGrpcService extends BillingServiceImplBase {
     private static final Logger log = LoggerFactory.getLogger(BillingGrpcService.class);
+    private final BillingAccountRepository billingAccountRepository;
+    private final BillingEventProducer billingEventProducer;
+    private final BillingRunEngine billingRunEngine;
+
+    public BillingGrpcService(BillingAccountRepository billingAccountRepository,
+                              BillingEventProducer billingEventProducer,
+                              BillingRunEngine billingRunEngine) {
+        this.billingAccountRepository = billingAccountRepository;
+        this.billingEventProducer = billingEventProducer;
+        this.billingRunEngine = billingRunEngine;
+    }
+
     @Override
     public void createBillingAccount(billing.BillingRequest billingRequest,
                                      StreamObserver<billing.BillingResponse> responseObserver){
 
-        log.info("createBillingAccount request received {}", billingRequest.toString());
+        log.atInfo()
+                .setMessage("createBillingAccount request received")
+                .addKeyValue("patientId", billingRequest.getPatientId())
+                .addKeyValue("email", LogFields.email(billingRequest.getEmail()))
+                .log();
 
-        // Business logic - e.g., save to database (omitted for brevity), perform calculates, etc.
+        BillingAccountRepository.BillingAccount account = billingAccountRepository.findOrCreate(
+                billingRequest.getPatientId(), billingRequest.getName(), billingRequest.getEmail());
 
         BillingResponse response = BillingResponse.newBuilder()
-                .setAccountId("12345") // Replace with actual generated ID
-                .setStatus("ACTIVE")
+                .setAccountId(account.id().toString())
+                .setStatus(account.status())
                 .build();
+        if (account.created()) {
+            // Lets analytics-service measure the time from registration to account activation
+            billingEventProducer.accountCreated(billingRequest.getPatientId(), response.getAccountId(), response.getStatus());
+        }
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
     }
+
+    @Override
+    public void startBillingRun(BillingRunRequest request, StreamObserver<BillingRunStatus> responseObserver) {
+        try {
+            BillingRunProgress progress = billingRunEngine.start(cycle(request));
+            responseObserver.onNext(toStatus(progress));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getBillingRun(BillingRunRequest request, StreamObserver<BillingRunStatus> responseObserver) {
+        try {
+            YearMonth cycle = cycle(request);
+            billingRunEngine.progress(cycle).ifPresentOrElse(progress -> {
+                responseObserver.onNext(toStatus(progress));
+                responseObserver.onCompleted();
+            }, () -> responseObserver.onError(Status.NOT_FOUND
+                    .withDescription("No billing run for " + cycle).asRuntimeException()));
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    // "2026-09", empty means the previous month
+    private static YearMonth cycle(BillingRunRequest request) {
+        if (request.getCycle().isEmpty()) {
+            return YearMonth.now(ZoneOffset.UTC).minusMonths(1);
+        }
+        try {
+            return YearMonth.parse(request.getCycle());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cycle, expected yyyy-MM: " + request.getCycle());
+        }
+    }
+
+    private static BillingRunStatus toStatus(BillingRunProgress progress) {
+        BillingRunStatus.Builder status = BillingRunStatus.newBuilder()
+                .setCycle(progress.cycle().toString())
+                .setStatus(progress.state().name())
+                .setTotalRanges(progress.totalRanges())
+                .setCompletedRanges(progress.completedRanges())
+                .setInvoices(progress.invoices())
+                .setAmountCents(progress.amountCents())
+                .setStartedAt(progress.startedAt().toString());
+        if (progress.finishedAt() != null) {
+            status.setFinishedAt(progress.finishedAt().toString());
+        }
+        if (progress.error() != null) {
+            status.setError(progress.error());
+        }
+        return status.build();
+    }
 }
@@ -0,0 +1,154 @@
+package com.pm.billingservice.invoicing;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Month-end invoicing. A run splits the accounts into ranges of account numbers (fixed when the run is created)
+// and invoices billing.run.parallelism ranges at once on a bounded pool. Within a range accounts are read in keyset
+// pages, and each page's invoices are inserted in one JDBC batch, in the same transaction as the range checkpoint.
+// A run interrupted by a crash or a failure therefore resumes exactly after the last committed page:
+// on startup for RUNNING runs, or when StartBillingRun is called again for a FAILED one.
+@Service
+public class BillingRunEngine {
+    private static final Logger log = LoggerFactory.getLogger(BillingRunEngine.class);
+
+    private final BillingRunRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final long rangeSize;
+    private final int batchSize;
+    private final ExecutorService workers;
+    // Runs with ranges submitted in this instance
+    private final Set<YearMonth> active = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopping;
+
+    public BillingRunEngine(BillingRunRepository repository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${billing.run.range-size:50000}") long rangeSize,
+                            @Value("${billing.run.batch-size:1000}") int batchSize,
+                            @Value("${billing.run.parallelism:4}") int parallelism) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rangeSize = rangeSize;
+        this.batchSize = batchSize;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(parallelism,
+                task -> new Thread(task, "billing-run-" + threads.incrementAndGet()));
+    }
+
+    // Starting a DONE or already running cycle only returns its progress
+    public synchronized BillingRunProgress start(YearMonth cycle) {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        if (!cycle.isBefore(current)) {
+            throw new IllegalArgumentException("Only a finished month can be invoiced, not " + cycle);
+        }
+        Optional<BillingRunState> state = repository.findState(cycle);
+        if (state.isEmpty()) {
+            int ranges = transactionTemplate.execute(status -> repository.createRun(cycle, rangeSize, Instant.now()));
+            log.info("Billing run {} created with {} ranges", cycle, ranges);
+            launch(cycle);
+        } else if (state.get() != BillingRunState.DONE && !active.contains(cycle)) {
+            repository.restart(cycle);
+            log.info("Billing run {} resumed from its checkpoints", cycle);
+            launch(cycle);
+        }
+        return progress(cycle).orElseThrow();
+    }
+
+    public Optional<BillingRunProgress> progress(YearMonth cycle) {
+        return repository.findProgress(cycle);
+    }
+
+    // Runs left RUNNING by a previous process (crash, redeploy) carry on where their checkpoints are
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void resumeInterrupted() {
+        for (YearMonth cycle : repository.findRunning()) {
+            if (!active.contains(cycle)) {
+                log.info("Resuming interrupted billing run {}", cycle);
+                launch(cycle);
+            }
+        }
+    }
+
+    private void launch(YearMonth cycle) {
+        active.add(cycle);
+        List<BillingRunRange> ranges = repository.findPendingRanges(cycle);
+        long start = System.nanoTime();
+        CompletableFuture<?>[] tasks = ranges.stream()
+                .map(range -> CompletableFuture.runAsync(() -> invoiceRange(cycle, range), workers))
+                .toArray(CompletableFuture[]::new);
+        // Completes once every range has finished, a failed range doesn't stop the others (they keep their checkpoints)
+        CompletableFuture.allOf(tasks).whenComplete((ignored, e) -> {
+            try {
+                if (stopping) {
+                    // Left RUNNING on purpose, resumeInterrupted picks it up at the next start
+                    return;
+                }
+                if (e == null) {
+                    repository.finish(cycle, BillingRunState.DONE, null, Instant.now());
+                    log.info("Billing run {} finished: {} ranges in {} s", cycle, ranges.size(), (System.nanoTime() - start) / 1_000_000_000);
+                } else {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    repository.finish(cycle, BillingRunState.FAILED, truncate(String.valueOf(cause.getMessage())), Instant.now());
+                    log.error("Billing run {} failed, start it again to resume", cycle, cause);
+                }
+            } finally {
+                active.remove(cycle);
+            }
+        });
+    }
+
+    private void invoiceRange(YearMonth cycle, BillingRunRange range) {
+        Instant cycleEnd = cycle.plusMonths(1).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        long checkpoint = range.checkpoint();
+        while (true) {
+            List<InvoiceAccount> accounts = repository.findAccounts(checkpoint, range.end(), cycleEnd, batchSize);
+            if (accounts.isEmpty()) {
+                break;
+            }
+            List<Invoice> invoices = accounts.stream().map(account -> Invoice.forAccount(account, cycle)).toList();
+            long amount = invoices.stream().mapToLong(Invoice::amountCents).sum();
+            long from = checkpoint;
+            long to = accounts.get(accounts.size() - 1).accountNo();
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.insertInvoices(cycle, invoices, Instant.now());
+                repository.checkpoint(cycle, range.start(), from, to, invoices.size(), amount);
+            });
+            checkpoint = to;
+            if (accounts.size() < batchSize) {
+                break;
+            }
+        }
+        repository.completeRange(cycle, range.start());
+    }
+
+    private static String truncate(String message) {
+        return message.length() > 1024 ? message.substring(0, 1024) : message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted ranges resume from their last checkpoint at the next start
+        stopping = true;
+        workers.shutdownNow();
+    }
+}
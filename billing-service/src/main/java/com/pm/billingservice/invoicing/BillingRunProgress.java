@@ -0,0 +1,15 @@
+package com.pm.billingservice.invoicing;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+public record BillingRunProgress(YearMonth cycle,
+                                 BillingRunState state,
+                                 int totalRanges,
+                                 int completedRanges,
+                                 long invoices,
+                                 long amountCents,
+                                 Instant startedAt,
+                                 Instant finishedAt,
+                                 String error) {
+}
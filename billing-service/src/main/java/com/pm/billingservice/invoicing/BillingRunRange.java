@@ -0,0 +1,5 @@
+package com.pm.billingservice.invoicing;
+
+// Accounts [start, end] by account_no, checkpoint is the last one already invoiced
+record BillingRunRange(long start, long end, long checkpoint) {
+}
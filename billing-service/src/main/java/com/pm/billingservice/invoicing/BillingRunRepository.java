@@ -0,0 +1,129 @@
+package com.pm.billingservice.invoicing;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Plain JDBC: a billing run only reads accounts in keyset order and writes invoices in batches
+@Repository
+public class BillingRunRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public BillingRunRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Splits the accounts that exist now into ranges of rangeSize account numbers, returns how many ranges were created
+    int createRun(YearMonth cycle, long rangeSize, Instant startedAt) {
+        jdbcTemplate.update("INSERT INTO billing_run (billing_cycle, status, started_at) VALUES (?, ?, ?)",
+                cycle.toString(), BillingRunState.RUNNING.name(), Timestamp.from(startedAt));
+        Long min = jdbcTemplate.queryForObject("SELECT MIN(account_no) FROM billing_account", Long.class);
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(account_no) FROM billing_account", Long.class);
+        if (min == null || max == null) {
+            return 0;
+        }
+        List<Object[]> ranges = new ArrayList<>();
+        for (long start = min; start <= max; start += rangeSize) {
+            ranges.add(new Object[]{cycle.toString(), start, Math.min(max, start + rangeSize - 1), start - 1});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO billing_run_range (billing_cycle, range_start, range_end, checkpoint, invoices, amount_cents, done) "
+                + "VALUES (?, ?, ?, ?, 0, 0, FALSE)", ranges);
+        return ranges.size();
+    }
+
+    Optional<BillingRunState> findState(YearMonth cycle) {
+        return jdbcTemplate.query("SELECT status FROM billing_run WHERE billing_cycle = ?",
+                (rs, rowNum) -> BillingRunState.valueOf(rs.getString(1)), cycle.toString()).stream().findFirst();
+    }
+
+    List<YearMonth> findRunning() {
+        return jdbcTemplate.query("SELECT billing_cycle FROM billing_run WHERE status = ?",
+                (rs, rowNum) -> YearMonth.parse(rs.getString(1)), BillingRunState.RUNNING.name());
+    }
+
+    void restart(YearMonth cycle) {
+        jdbcTemplate.update("UPDATE billing_run SET status = ?, finished_at = NULL, error = NULL WHERE billing_cycle = ?",
+                BillingRunState.RUNNING.name(), cycle.toString());
+    }
+
+    void finish(YearMonth cycle, BillingRunState state, String error, Instant finishedAt) {
+        jdbcTemplate.update("UPDATE billing_run SET status = ?, finished_at = ?, error = ? WHERE billing_cycle = ?",
+                state.name(), Timestamp.from(finishedAt), error, cycle.toString());
+    }
+
+    List<BillingRunRange> findPendingRanges(YearMonth cycle) {
+        return jdbcTemplate.query("SELECT range_start, range_end, checkpoint FROM billing_run_range "
+                        + "WHERE billing_cycle = ? AND done = FALSE ORDER BY range_start",
+                (rs, rowNum) -> new BillingRunRange(rs.getLong(1), rs.getLong(2), rs.getLong(3)), cycle.toString());
+    }
+
+    // Next page of the range after the checkpoint: active accounts opened before the end of the cycle
+    List<InvoiceAccount> findAccounts(long afterAccountNo, long rangeEnd, Instant openedBefore, int limit) {
+        return jdbcTemplate.query("SELECT account_no, id, monthly_fee_cents, created_at FROM billing_account "
+                        + "WHERE account_no > ? AND account_no <= ? AND status = 'ACTIVE' AND created_at < ? "
+                        + "ORDER BY account_no LIMIT " + limit,
+                (rs, rowNum) -> new InvoiceAccount(rs.getLong(1), rs.getObject(2, UUID.class), rs.getLong(3),
+                        rs.getTimestamp(4).toInstant()),
+                afterAccountNo, rangeEnd, Timestamp.from(openedBefore));
+    }
+
+    void insertInvoices(YearMonth cycle, List<Invoice> invoices, Instant createdAt) {
+        Timestamp created = Timestamp.from(createdAt);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO invoice (account_id, billing_cycle, period_start, period_end, amount_cents, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                invoices,
+                invoices.size(),
+                (ps, invoice) -> {
+                    ps.setObject(1, invoice.accountId());
+                    ps.setString(2, cycle.toString());
+                    ps.setDate(3, Date.valueOf(invoice.periodStart()));
+                    ps.setDate(4, Date.valueOf(invoice.periodEnd()));
+                    ps.setLong(5, invoice.amountCents());
+                    ps.setTimestamp(6, created);
+                });
+    }
+
+    // Moves the checkpoint from "from" to "to", in the transaction of the invoices of that page.
+    // Fails if someone else moved it meanwhile (a second runner on the same cycle), which rolls the page back.
+    void checkpoint(YearMonth cycle, long rangeStart, long from, long to, int invoices, long amountCents) {
+        int updated = jdbcTemplate.update("UPDATE billing_run_range SET checkpoint = ?, invoices = invoices + ?, amount_cents = amount_cents + ? "
+                        + "WHERE billing_cycle = ? AND range_start = ? AND checkpoint = ?",
+                to, invoices, amountCents, cycle.toString(), rangeStart, from);
+        if (updated != 1) {
+            throw new OptimisticLockingFailureException("Range " + rangeStart + " of billing run " + cycle + " moved past " + from + " concurrently");
+        }
+    }
+
+    void completeRange(YearMonth cycle, long rangeStart) {
+        jdbcTemplate.update("UPDATE billing_run_range SET done = TRUE WHERE billing_cycle = ? AND range_start = ?",
+                cycle.toString(), rangeStart);
+    }
+
+    Optional<BillingRunProgress> findProgress(YearMonth cycle) {
+        return jdbcTemplate.query("SELECT r.status, r.started_at, r.finished_at, r.error, COUNT(g.range_start), "
+                        + "COALESCE(SUM(CASE WHEN g.done THEN 1 ELSE 0 END), 0), COALESCE(SUM(g.invoices), 0), COALESCE(SUM(g.amount_cents), 0) "
+                        + "FROM billing_run r LEFT JOIN billing_run_range g ON g.billing_cycle = r.billing_cycle "
+                        + "WHERE r.billing_cycle = ? GROUP BY r.status, r.started_at, r.finished_at, r.error",
+                (rs, rowNum) -> {
+                    Timestamp finishedAt = rs.getTimestamp(3);
+                    return new BillingRunProgress(cycle,
+                            BillingRunState.valueOf(rs.getString(1)),
+                            rs.getInt(5),
+                            rs.getInt(6),
+                            rs.getLong(7),
+                            rs.getLong(8),
+                            rs.getTimestamp(2).toInstant(),
+                            finishedAt != null ? finishedAt.toInstant() : null,
+                            rs.getString(4));
+                }, cycle.toString()).stream().findFirst();
+    }
+}
@@ -0,0 +1,5 @@
+package com.pm.billingservice.invoicing;
+
+public enum BillingRunState {
+    RUNNING, DONE, FAILED
+}
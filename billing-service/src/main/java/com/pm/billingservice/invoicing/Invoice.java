@@ -0,0 +1,21 @@
+package com.pm.billingservice.invoicing;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+record Invoice(UUID accountId, LocalDate periodStart, LocalDate periodEnd, long amountCents) {
+
+    // Monthly fee, prorated by day for accounts opened during the cycle (rounded half up to the cent)
+    static Invoice forAccount(InvoiceAccount account, YearMonth cycle) {
+        LocalDate cycleStart = cycle.atDay(1);
+        LocalDate opened = LocalDate.ofInstant(account.createdAt(), ZoneOffset.UTC);
+        LocalDate periodStart = opened.isAfter(cycleStart) ? opened : cycleStart;
+        long days = cycle.lengthOfMonth();
+        long billedDays = ChronoUnit.DAYS.between(periodStart, cycle.plusMonths(1).atDay(1));
+        long amount = (account.monthlyFeeCents() * billedDays + days / 2) / days;
+        return new Invoice(account.id(), periodStart, cycle.atEndOfMonth(), amount);
+    }
+}
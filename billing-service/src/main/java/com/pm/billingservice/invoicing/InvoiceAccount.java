@@ -0,0 +1,8 @@
+package com.pm.billingservice.invoicing;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// The columns of billing_account an invoice needs, accountNo is the keyset for paging through a range
+record InvoiceAccount(long accountNo, UUID id, long monthlyFeeCents, Instant createdAt) {
+}
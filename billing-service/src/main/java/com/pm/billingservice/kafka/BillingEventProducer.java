@@ -0,0 +1,40 @@
+package com.pm.billingservice.kafka;
+
+import billing.events.BillingEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+// Publishes billing account changes for analytics-service. Keyed by patient id like the "patient" topic,
+// so a patient's registration and its billing events land in the same partition number of both topics.
+@Service
+public class BillingEventProducer {
+    private static final Logger log = LoggerFactory.getLogger(BillingEventProducer.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final String topic;
+
+    public BillingEventProducer(KafkaTemplate<String, byte[]> kafkaTemplate,
+                                @Value("${billing.events.topic:billing}") String topic) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+    }
+
+    public void accountCreated(String patientId, String accountId, String status) {
+        BillingEvent event = BillingEvent.newBuilder()
+                .setPatientId(patientId)
+                .setAccountId(accountId)
+                .setStatus(status)
+                .setEventType("ACCOUNT_CREATED")
+                .setOccurredAt(System.currentTimeMillis())
+                .build();
+        // Asynchronous: the gRPC call doesn't wait for the broker, a failed send is only logged
+        kafkaTemplate.send(topic, patientId, event.toByteArray()).whenComplete((result, e) -> {
+            if (e != null) {
+                log.error("Error sending {} event for patient {}: {}", event.getEventType(), patientId, e.getMessage());
+            }
+        });
+    }
+}
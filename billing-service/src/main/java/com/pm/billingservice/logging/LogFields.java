@@ -0,0 +1,36 @@
+package com.pm.billingservice.logging;
+
+import java.util.function.Supplier;
+
+// PII-safe log arguments. The returned values only format themselves in toString(), which runs when the event
+// is actually written, so a sampled out or rate limited event never pays for it.
+public final class LogFields {
+
+    private LogFields() {
+    }
+
+    // "jane.doe@example.com" -> "j***@example.com"
+    public static Object email(String email) {
+        return lazy(() -> {
+            if (email == null || email.isEmpty()) {
+                return "";
+            }
+            int at = email.indexOf('@');
+            return at <= 0 ? "***" : email.charAt(0) + "***" + email.substring(at);
+        });
+    }
+
+    // Names are never logged, only whether one was given
+    public static Object name(String name) {
+        return lazy(() -> name == null || name.isBlank() ? "" : "***");
+    }
+
+    public static Object lazy(Supplier<String> supplier) {
+        return new Object() {
+            @Override
+            public String toString() {
+                return supplier.get();
+            }
+        };
+    }
+}
@@ -0,0 +1,47 @@
+-- account_no is only used to split the accounts into ranges for the billing runs (see BillingRunEngine)
+CREATE TABLE IF NOT EXISTS billing_account
+(
+    account_no        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id                UUID                     NOT NULL UNIQUE,
+    patient_id        VARCHAR(64)              NOT NULL UNIQUE,
+    name              VARCHAR(255)             NOT NULL,
+    email             VARCHAR(255)             NOT NULL,
+    status            VARCHAR(16)              NOT NULL,
+    monthly_fee_cents BIGINT                   NOT NULL,
+    created_at        TIMESTAMP WITH TIME ZONE NOT NULL
+    );
+
+-- One invoice per account and billing cycle, the unique constraint makes a replayed batch fail instead of double billing
+CREATE TABLE IF NOT EXISTS invoice
+(
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id    UUID                     NOT NULL,
+    billing_cycle VARCHAR(7)               NOT NULL,
+    period_start  DATE                     NOT NULL,
+    period_end    DATE                     NOT NULL,
+    amount_cents  BIGINT                   NOT NULL,
+    created_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    UNIQUE (account_id, billing_cycle)
+    );
+
+CREATE TABLE IF NOT EXISTS billing_run
+(
+    billing_cycle VARCHAR(7)               PRIMARY KEY NOT NULL,
+    status        VARCHAR(16)              NOT NULL,
+    started_at    TIMESTAMP WITH TIME ZONE NOT NULL,
+    finished_at   TIMESTAMP WITH TIME ZONE,
+    error         VARCHAR(1024)
+    );
+
+-- checkpoint is the last account_no invoiced in the range, committed in the same transaction as the invoices
+CREATE TABLE IF NOT EXISTS billing_run_range
+(
+    billing_cycle VARCHAR(7) NOT NULL,
+    range_start   BIGINT     NOT NULL,
+    range_end     BIGINT     NOT NULL,
+    checkpoint    BIGINT     NOT NULL,
+    invoices      BIGINT     NOT NULL,
+    amount_cents  BIGINT     NOT NULL,
+    done          BOOLEAN    NOT NULL,
+    PRIMARY KEY (billing_cycle, range_start)
+    );
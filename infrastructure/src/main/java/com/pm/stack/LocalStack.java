@@ -3,6 +3,8 @@ package com.pm.stack;
 
 import software.amazon.awscdk.*;
 import software.amazon.awscdk.BootstraplessSynthesizer;
+import software.amazon.awscdk.services.applicationautoscaling.EnableScalingProps;
+import software.amazon.awscdk.services.cloudwatch.Metric;
 import software.amazon.awscdk.services.ec2.*;
 import software.amazon.awscdk.services.ec2.InstanceType;
 import software.amazon.awscdk.services.ecs.*;
@@ -13,6 +15,8 @@ import software.amazon.awscdk.services.logs.RetentionDays;
 import software.amazon.awscdk.services.msk.CfnCluster;
 import software.amazon.awscdk.services.rds.*;
 import software.amazon.awscdk.services.route53.CfnHealthCheck;
+import software.amazon.awscdk.services.secretsmanager.Secret;
+import software.amazon.awscdk.services.secretsmanager.SecretStringGenerator;
 
 import java.util.HashMap;
 import java.util.List;
@@ -21,6 +25,13 @@ import java.util.stream.Collectors;
 
 
 public class LocalStack extends Stack {
+    // Defaults keep today's 0.25 vCPU / 512 MiB tasks, see ServiceSettings for the context keys that override them
+    private static final ServiceSettings DEFAULT_SETTINGS = new ServiceSettings(256, 512, 1, 4, 60);
+    // The analytics consumer can't use more tasks than the patient / billing topics have partitions
+    private static final ServiceSettings ANALYTICS_SETTINGS = new ServiceSettings(256, 512, 1, 3, 70);
+    private static final ServiceSettings API_GATEWAY_SETTINGS = new ServiceSettings(256, 512, 1, 6, 60);
+    // Heap follows the task memory instead of the JVM default of 25%
+    private static final String JVM_OPTIONS = "-XX:MaxRAMPercentage=75.0";
     private final Vpc vpc;
     private final Cluster ecsCluster;
     public LocalStack(final App scope, final String id, final StackProps props) {
@@ -34,44 +45,115 @@ public class LocalStack extends Stack {
         DatabaseInstance patientServiceDb =
                 createDatabase("PatientServiceDB", "patient-service-db");
 
+        // Second patient-service shard, tenants are spread over both (ShardRouter in patient-service)
+        DatabaseInstance patientServiceShard1Db =
+                createDatabase("PatientServiceShard1DB", "patient-service-shard1-db");
+
+        DatabaseInstance billingServiceDb =
+                createDatabase("BillingServiceDB", "billing-service-db");
+
         CfnHealthCheck authDbHealthCheck =
                 createDbHealthCheck(authServiceDb, "AuthServiceDBHealthCheck");
 
         CfnHealthCheck patientDbHealthCheck =
                 createDbHealthCheck(patientServiceDb, "PatientServiceDBHealthCheck");
 
+        CfnHealthCheck patientShard1DbHealthCheck =
+                createDbHealthCheck(patientServiceShard1Db, "PatientServiceShard1DBHealthCheck");
+
+        CfnHealthCheck billingDbHealthCheck =
+                createDbHealthCheck(billingServiceDb, "BillingServiceDBHealthCheck");
+
         CfnCluster mskCluster = createMskCluster();
 
+        // Shared by the api-gateway and patient-service: patient-service only trusts the forwarded identity headers
+        // (X-User-*) of requests carrying it, so reaching port 4000 directly doesn't let anyone pick their own role
+        String gatewayIdentityToken = Secret.Builder.create(this, "GatewayIdentityToken")
+                .secretName("gateway-identity-token")
+                .generateSecretString(SecretStringGenerator.builder()
+                        .excludePunctuation(true)
+                        .passwordLength(48)
+                        .build())
+                .build()
+                .getSecretValue().toString();
+        // Callers of patient-service's internal gRPC API (port 9002) send it as x-internal-token
+        String patientGrpcToken = Secret.Builder.create(this, "PatientGrpcInternalToken")
+                .secretName("patient-grpc-internal-token")
+                .generateSecretString(SecretStringGenerator.builder()
+                        .excludePunctuation(true)
+                        .passwordLength(48)
+                        .build())
+                .build()
+                .getSecretValue().toString();
+
         this.ecsCluster = createEcsCluster();
 
+        ServiceSettings authSettings = ServiceSettings.fromContext(this, "auth-service", DEFAULT_SETTINGS);
         FargateService authService =
                 createFargateService("AuthService", "auth-service", List.of(4005),
-                        authServiceDb, Map.of("JWT_SECRET","d4BVnv+J+aclqUcGE5HREVO0ohCcc6EmiIdJcXTzVkc="));
+                        authSettings, authServiceDb, Map.of("JWT_SECRET","d4BVnv+J+aclqUcGE5HREVO0ohCcc6EmiIdJcXTzVkc="));
+        autoScale("AuthService", authService, authSettings);
 
         authService.getNode().addDependency(authDbHealthCheck);
         authService.getNode().addDependency(authServiceDb);
 
+        ServiceSettings billingSettings = ServiceSettings.fromContext(this, "billing-service", DEFAULT_SETTINGS);
         FargateService billingService =
                 createFargateService("BillingService",
-                        "billing-service", List.of(4001,9001), null, null);
-
+                        "billing-service", List.of(4001,9001),
+                        billingSettings, billingServiceDb, null);
+        autoScale("BillingService", billingService, billingSettings);
+        billingService.getNode().addDependency(billingServiceDb);
+        billingService.getNode().addDependency(billingDbHealthCheck);
+        billingService.getNode().addDependency(mskCluster);
+
+        ServiceSettings analyticsSettings = ServiceSettings.fromContext(this, "analytics-service", ANALYTICS_SETTINGS);
         FargateService analyticsService =
                 createFargateService("AnalyticsService",
-                        "analytics-service", List.of(4002), null, null);
+                        "analytics-service", List.of(4002),
+                        analyticsSettings, null, null);
         analyticsService.getNode().addDependency(mskCluster);
+        // CPU stays low while the consumer falls behind, so analytics also scales out on consumer lag of both topics it reads
+        ScalableTaskCount analyticsServiceScaling =
+                autoScale("AnalyticsService", analyticsService, analyticsSettings);
+        int lagTarget = ServiceSettings.contextInt(this, "analytics-service:lagTarget", 1000);
+        for (String topic : List.of("patient", "billing")) {
+            analyticsServiceScaling.scaleToTrackCustomMetric("AnalyticsService" + capitalize(topic) + "LagScaling",
+                    TrackCustomMetricProps.builder()
+                            .metric(consumerLag(mskCluster, "analytics-service", topic))
+                            .targetValue(lagTarget)
+                            .scaleOutCooldown(Duration.seconds(60))
+                            .scaleInCooldown(Duration.seconds(300))
+                            .build());
+        }
 
+        ServiceSettings patientSettings = ServiceSettings.fromContext(this, "patient-service", DEFAULT_SETTINGS);
+        // Only the REST port is published. The internal gRPC API (9002) stays on the task's private address,
+        // for services inside the VPC
         FargateService patientService =
                 createFargateService("PatientService",
-                        "patient-service", List.of(4000), patientServiceDb, Map.of(
+                        "patient-service", List.of(4000),
+                        patientSettings, patientServiceDb, Map.of(
                                 "BILLING_SERVICE_ADDRESS","host.docker.internal",
-                                "BILLING_SERVICE_GRPC_PORT","9001"
+                                "BILLING_SERVICE_GRPC_PORT","9001",
+                                "GATEWAY_IDENTITY_TOKEN",gatewayIdentityToken,
+                                "PATIENT_GRPC_INTERNAL_TOKEN",patientGrpcToken,
+                                "SPRING_SQL_INIT_PLATFORM","postgresql", // Runs schema-postgresql.sql (partitioned patient table)
+                                "SHARDING_SHARDS_SHARD1_URL","jdbc:postgresql://%s:%s/patient-service".formatted(
+                                        patientServiceShard1Db.getDbInstanceEndpointAddress(),
+                                        patientServiceShard1Db.getDbInstanceEndpointPort()),
+                                "SHARDING_SHARDS_SHARD1_USERNAME","admin_user",
+                                "SHARDING_SHARDS_SHARD1_PASSWORD",patientServiceShard1Db.getSecret().secretValueFromJson("password").toString()
                         ));
         patientService.getNode().addDependency(patientServiceDb);
         patientService.getNode().addDependency(patientDbHealthCheck);
+        patientService.getNode().addDependency(patientServiceShard1Db);
+        patientService.getNode().addDependency(patientShard1DbHealthCheck);
         patientService.getNode().addDependency(billingService);
         patientService.getNode().addDependency(mskCluster);
+        autoScale("PatientService", patientService, patientSettings);
 
-        createApiGatewayService();
+        createApiGatewayService(gatewayIdentityToken);
     }
 
     private Vpc createVpc(){
@@ -133,11 +215,12 @@ public class LocalStack extends Stack {
     }
 
     // Most common type of ECS service used in e/se Level is Fargate Service
-    private FargateService createFargateService(String id, String imageName, List<Integer> ports, DatabaseInstance db, Map<String, String> additionalEnvVars){
+    private FargateService createFargateService(String id, String imageName, List<Integer> ports, ServiceSettings settings,
+                                                DatabaseInstance db, Map<String, String> additionalEnvVars){
         FargateTaskDefinition taskDefinition =
                 FargateTaskDefinition.Builder.create(this, id + "TaskDef")
-                        .memoryLimitMiB(512) // 512 MB
-                        .cpu(256) // 0.25 vCPU
+                        .memoryLimitMiB(settings.memory())
+                        .cpu(settings.cpu()) // 1024 = 1 vCPU
                         .build();
 
         ContainerDefinitionOptions.Builder containerOptions =
@@ -160,6 +243,7 @@ public class LocalStack extends Stack {
 
         Map<String, String> envVars = new HashMap<>();
         envVars.put("SPRING_KAFKA_BOOTSTRAP_SERVERS","localhost.localstack.cloud:4510, localhost.localstack.cloud:4511, localhost.localstack.cloud:4512");
+        envVars.put("JAVA_TOOL_OPTIONS", JVM_OPTIONS);
 
         if (additionalEnvVars != null) {
             envVars.putAll(additionalEnvVars);
@@ -185,6 +269,7 @@ public class LocalStack extends Stack {
         return FargateService.Builder.create(this, id)
                 .cluster(ecsCluster)
                 .taskDefinition(taskDefinition)
+                .desiredCount(settings.minCapacity())
                 .assignPublicIp(false) // For local development; in production, use private IPs and a load balancer
                 .serviceName(imageName)
                 .vpcSubnets(SubnetSelection.builder()
@@ -193,11 +278,45 @@ public class LocalStack extends Stack {
                 .build();
     }
 
-    private void createApiGatewayService(){
+    // Target tracking on average CPU between settings.minCapacity() and settings.maxCapacity(), callers may add more policies.
+    // A service has a single scalable target, every policy added to it is tracked on its own and the highest desired count wins
+    private ScalableTaskCount autoScale(String id, BaseService service, ServiceSettings settings){
+        ScalableTaskCount scaling = service.autoScaleTaskCount(EnableScalingProps.builder()
+                .minCapacity(settings.minCapacity())
+                .maxCapacity(settings.maxCapacity())
+                .build());
+        scaling.scaleOnCpuUtilization(id + "CpuScaling", CpuUtilizationScalingProps.builder()
+                .targetUtilizationPercent(settings.cpuTarget())
+                .scaleOutCooldown(Duration.seconds(60)) // Leaves time for the new task to start before scaling out again
+                .scaleInCooldown(Duration.seconds(300))
+                .build());
+        return scaling;
+    }
+
+    // Target tracking only accepts a plain metric (no math expressions), MSK publishes the lag per consumer group and topic
+    private Metric consumerLag(CfnCluster mskCluster, String consumerGroup, String topic){
+        return Metric.Builder.create()
+                .namespace("AWS/Kafka")
+                .metricName("SumOffsetLag")
+                .dimensionsMap(Map.of(
+                        "Cluster Name", mskCluster.getClusterName(),
+                        "Consumer Group", consumerGroup,
+                        "Topic", topic))
+                .statistic("Maximum")
+                .period(Duration.minutes(1))
+                .build();
+    }
+
+    private static String capitalize(String value){
+        return Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+
+    private void createApiGatewayService(String gatewayIdentityToken){
+        ServiceSettings settings = ServiceSettings.fromContext(this, "api-gateway", API_GATEWAY_SETTINGS);
         FargateTaskDefinition taskDefinition =
                 FargateTaskDefinition.Builder.create(this, "APIGatewayTaskDefinition")
-                        .memoryLimitMiB(512) // 512 MB
-                        .cpu(256) // 0.25 vCPU
+                        .memoryLimitMiB(settings.memory())
+                        .cpu(settings.cpu()) // 1024 = 1 vCPU
                         .build();
 
         ContainerDefinitionOptions containerOptions =
@@ -205,7 +324,9 @@ public class LocalStack extends Stack {
                         .image(ContainerImage.fromRegistry("api-gateway")) // Using public Docker image from Docker Hub
                         .environment(Map.of(
                                 "SPRING_PROFILES_ACTIVE","prod",
-                                "AUTH_SERVICE_URL","http://host.docker.internal:4005"
+                                "AUTH_SERVICE_URL","http://host.docker.internal:4005",
+                                "GATEWAY_IDENTITY_TOKEN",gatewayIdentityToken,
+                                "JAVA_TOOL_OPTIONS", JVM_OPTIONS
                         ))
                         .portMappings(List.of(4004).stream()
                                 .map(port -> PortMapping.builder()
@@ -231,9 +352,18 @@ public class LocalStack extends Stack {
                 .cluster(ecsCluster)
                 .serviceName("api-gateway")
                 .taskDefinition(taskDefinition)
-                .desiredCount(1)
+                .desiredCount(settings.minCapacity())
                 .healthCheckGracePeriod(Duration.seconds(60))
                 .build();
+
+        // Requests per task is the better signal for the gateway, it's mostly waiting on downstream services rather than burning CPU
+        ScalableTaskCount scaling = autoScale("APIGateway", apiGateway.getService(), settings);
+        scaling.scaleOnRequestCount("APIGatewayRequestScaling", RequestCountScalingProps.builder()
+                .requestsPerTarget(ServiceSettings.contextInt(this, "api-gateway:requestsPerTarget", 500))
+                .targetGroup(apiGateway.getTargetGroup())
+                .scaleOutCooldown(Duration.seconds(60))
+                .scaleInCooldown(Duration.seconds(300))
+                .build());
     }
 
     public static void main(final String[] args) {
@@ -0,0 +1,64 @@
+package com.pm.stack;
+
+import software.constructs.Construct;
+
+import java.util.List;
+
+// Task size and autoscaling bounds of one ECS service. The defaults below can be overridden with CDK context,
+// keys are "<service>:<setting>", e.g. cdk synth -c patient-service:cpu=512 -c patient-service:memory=1024 -c patient-service:maxCapacity=6
+// (or CDK_CONTEXT_JSON='{"patient-service:cpu":"512"}' when running LocalStack.main directly).
+// cpuTarget is the average CPU utilization (%) target tracking keeps the service at.
+public record ServiceSettings(int cpu, int memory, int minCapacity, int maxCapacity, int cpuTarget) {
+    private static final List<Integer> FARGATE_CPU = List.of(256, 512, 1024, 2048, 4096, 8192, 16384);
+
+    public ServiceSettings {
+        if (!FARGATE_CPU.contains(cpu)) {
+            throw new IllegalArgumentException("Fargate cpu must be one of " + FARGATE_CPU + ", not " + cpu);
+        }
+        if (!validFargateMemory(cpu, memory)) {
+            throw new IllegalArgumentException("Fargate doesn't support " + memory + " MiB with " + cpu + " cpu units");
+        }
+        if (minCapacity < 1 || maxCapacity < minCapacity) {
+            throw new IllegalArgumentException("Capacity must satisfy 1 <= min <= max, got " + minCapacity + ".." + maxCapacity);
+        }
+        if (cpuTarget < 10 || cpuTarget > 90) {
+            throw new IllegalArgumentException("cpuTarget must be between 10 and 90%, not " + cpuTarget);
+        }
+    }
+
+    static ServiceSettings fromContext(Construct scope, String service, ServiceSettings defaults) {
+        return new ServiceSettings(
+                contextInt(scope, service + ":cpu", defaults.cpu()),
+                contextInt(scope, service + ":memory", defaults.memory()),
+                contextInt(scope, service + ":minCapacity", defaults.minCapacity()),
+                contextInt(scope, service + ":maxCapacity", defaults.maxCapacity()),
+                contextInt(scope, service + ":cpuTarget", defaults.cpuTarget()));
+    }
+
+    // Values given with -c arrive as strings, values from cdk.json / CDK_CONTEXT_JSON may be numbers
+    static int contextInt(Construct scope, String key, int defaultValue) {
+        Object value = scope.getNode().tryGetContext(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Context " + key + " must be a number, not " + value);
+        }
+    }
+
+    // The cpu / memory combinations Fargate accepts
+    private static boolean validFargateMemory(int cpu, int memory) {
+        return switch (cpu) {
+            case 256 -> memory == 512 || memory == 1024 || memory == 2048;
+            case 512 -> memory >= 1024 && memory <= 4096 && memory % 1024 == 0;
+            case 1024 -> memory >= 2048 && memory <= 8192 && memory % 1024 == 0;
+            case 2048 -> memory >= 4096 && memory <= 16384 && memory % 1024 == 0;
+            case 4096 -> memory >= 8192 && memory <= 30720 && memory % 1024 == 0;
+            case 8192 -> memory >= 16384 && memory <= 61440 && memory % 4096 == 0;
+            case 16384 -> memory >= 32768 && memory <= 122880 && memory % 8192 == 0;
+            default -> false;
+        };
+    }
+}
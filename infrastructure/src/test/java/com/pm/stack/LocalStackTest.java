@@ -0,0 +1,80 @@
+package com.pm.stack;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awscdk.App;
+import software.amazon.awscdk.AppProps;
+import software.amazon.awscdk.BootstraplessSynthesizer;
+import software.amazon.awscdk.StackProps;
+import software.amazon.awscdk.assertions.Match;
+import software.amazon.awscdk.assertions.Template;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LocalStackTest {
+
+    private static Template synth(Map<String, Object> context) {
+        App app = new App(AppProps.builder().context(context).build());
+        LocalStack stack = new LocalStack(app, "LocalStack", StackProps.builder()
+                .synthesizer(new BootstraplessSynthesizer())
+                .build());
+        return Template.fromStack(stack);
+    }
+
+    @Test
+    void everyServiceHasAScalableTarget() {
+        Template template = synth(Map.of());
+
+        template.resourceCountIs("AWS::ApplicationAutoScaling::ScalableTarget", 5);
+        template.hasResourceProperties("AWS::ApplicationAutoScaling::ScalableTarget", Map.of(
+                "MinCapacity", 1,
+                "MaxCapacity", 6,
+                "ScalableDimension", "ecs:service:DesiredCount"));
+        template.hasResourceProperties("AWS::ApplicationAutoScaling::ScalingPolicy", Map.of(
+                "PolicyType", "TargetTrackingScaling",
+                "TargetTrackingScalingPolicyConfiguration", Match.objectLike(Map.of(
+                        "PredefinedMetricSpecification", Map.of("PredefinedMetricType", "ECSServiceAverageCPUUtilization"),
+                        "TargetValue", 60))));
+    }
+
+    @Test
+    void apiGatewayScalesOnRequestCount() {
+        synth(Map.of("api-gateway:requestsPerTarget", "250"))
+                .hasResourceProperties("AWS::ApplicationAutoScaling::ScalingPolicy", Map.of(
+                        "TargetTrackingScalingPolicyConfiguration", Match.objectLike(Map.of(
+                                "PredefinedMetricSpecification", Match.objectLike(Map.of(
+                                        "PredefinedMetricType", "ALBRequestCountPerTarget")),
+                                "TargetValue", 250))));
+    }
+
+    @Test
+    void analyticsServiceScalesOnConsumerLag() {
+        synth(Map.of())
+                .hasResourceProperties("AWS::ApplicationAutoScaling::ScalingPolicy", Map.of(
+                        "TargetTrackingScalingPolicyConfiguration", Match.objectLike(Map.of(
+                                "CustomizedMetricSpecification", Match.objectLike(Map.of(
+                                        "Namespace", "AWS/Kafka",
+                                        "MetricName", "SumOffsetLag",
+                                        "Dimensions", Match.arrayWith(List.of(
+                                                Map.of("Name", "Consumer Group", "Value", "analytics-service"))))),
+                                "TargetValue", 1000))));
+    }
+
+    @Test
+    void taskSizeComesFromContext() {
+        synth(Map.of("patient-service:cpu", "1024", "patient-service:memory", "2048"))
+                .hasResourceProperties("AWS::ECS::TaskDefinition", Map.of(
+                        "Cpu", "1024",
+                        "Memory", "2048",
+                        "ContainerDefinitions", Match.arrayWith(List.of(
+                                Match.objectLike(Map.of("Name", "patient-serviceContainer"))))));
+    }
+
+    @Test
+    void rejectsTaskSizesFargateDoesNotSupport() {
+        assertThrows(IllegalArgumentException.class,
+                () -> synth(Map.of("billing-service:cpu", "256", "billing-service:memory", "4096")));
+    }
+}
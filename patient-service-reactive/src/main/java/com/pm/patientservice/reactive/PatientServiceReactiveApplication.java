@@ -0,0 +1,17 @@
+package com.pm.patientservice.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Opt-in reactive build of patient-service's /patients API (WebFlux + R2DBC): requests wait on the database, billing
+// and Kafka without holding a thread or a connection. The servlet build in patient-service stays the default one.
+@SpringBootApplication
+@EnableScheduling
+public class PatientServiceReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(PatientServiceReactiveApplication.class, args);
+    }
+
+}
@@ -0,0 +1,7 @@
+package com.pm.patientservice.reactive.audit;
+
+public enum AuditAction {
+    CREATED,
+    UPDATED,
+    DELETED
+}
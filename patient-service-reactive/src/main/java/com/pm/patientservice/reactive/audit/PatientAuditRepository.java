@@ -0,0 +1,93 @@
+package com.pm.patientservice.reactive.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.reactive.dto.PatientAuditResponseDTO;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+
+// Audit trail of the reactive build. The servlet build buffers records for a background JDBC writer (PatientAuditLog)
+// to keep inserts off its request threads, here the insert is non-blocking already and joins the change's transaction.
+@Repository
+public class PatientAuditRepository {
+    private static final TypeReference<Map<String, Map<String, String>>> CHANGES_TYPE = new TypeReference<>() { };
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+
+    public PatientAuditRepository(DatabaseClient databaseClient, ObjectMapper objectMapper) {
+        this.databaseClient = databaseClient;
+        this.objectMapper = objectMapper;
+    }
+
+    public Mono<Void> record(AuditAction action, String tenant, UUID patientId, Map<String, String> before, Map<String, String> after) {
+        return currentActor()
+                .map(actor -> new PatientAuditRecord(tenant, patientId, action, actor, Instant.now(), before, after))
+                .flatMap(record -> databaseClient.sql(
+                                "INSERT INTO patient_audit (tenant_id, patient_id, action, actor, changed_at, changes)"
+                                        + " VALUES (:tenant, :patientId, :action, :actor, :changedAt, :changes)")
+                        .bind("tenant", record.tenantId())
+                        .bind("patientId", record.patientId())
+                        .bind("action", record.action().name())
+                        .bind("actor", record.actor())
+                        .bind("changedAt", record.changedAt().atOffset(ZoneOffset.UTC))
+                        .bind("changes", toJson(record.changes()))
+                        .then());
+    }
+
+    // Scoped to the tenant like the patient queries, another tenant's patient id finds nothing
+    public Flux<PatientAuditResponseDTO> findByPatientId(String tenant, UUID patientId) {
+        return databaseClient.sql(
+                        "SELECT action, actor, changed_at, changes FROM patient_audit"
+                                + " WHERE tenant_id = :tenant AND patient_id = :patientId ORDER BY changed_at, id")
+                .bind("tenant", tenant)
+                .bind("patientId", patientId)
+                .map(row -> {
+                    PatientAuditResponseDTO auditDTO = new PatientAuditResponseDTO();
+                    auditDTO.setAction(row.get("action", String.class));
+                    auditDTO.setActor(row.get("actor", String.class));
+                    auditDTO.setChangedAt(row.get("changed_at", OffsetDateTime.class).toInstant().toString());
+                    auditDTO.setChanges(fromJson(row.get("changes", String.class)));
+                    return auditDTO;
+                })
+                .all();
+    }
+
+    // Identity forwarded by the api-gateway (see TrustedIdentityWebFilter), "anonymous" without one
+    private static Mono<String> currentActor() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(authentication -> !(authentication instanceof AnonymousAuthenticationToken))
+                .map(Authentication::getName)
+                .defaultIfEmpty("anonymous");
+    }
+
+    private String toJson(Map<String, Map<String, String>> changes) {
+        try {
+            return objectMapper.writeValueAsString(changes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize audit changes", e);
+        }
+    }
+
+    private Map<String, Map<String, String>> fromJson(String changes) {
+        try {
+            return objectMapper.readValue(changes, CHANGES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read audit changes", e);
+        }
+    }
+}
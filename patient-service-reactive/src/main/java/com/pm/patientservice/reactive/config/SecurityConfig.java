@@ -0,0 +1,51 @@
+package com.pm.patientservice.reactive.config;
+
+import com.pm.patientservice.reactive.security.TrustedIdentityWebFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+
+// Same access rules as the servlet build: any authenticated user can read patients, only ADMIN can change them,
+// export them or read their audit trail
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfig {
+    public static final String ADMIN = "ADMIN";
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http,
+                                                         @Value("${identity.gateway-token:}") String gatewayToken) {
+        http.authorizeExchange(authorize -> authorize
+                        .pathMatchers("/actuator/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/webjars/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/patients/export", "/patients/*/audit").hasRole(ADMIN)
+                        .pathMatchers(HttpMethod.GET, "/patients", "/patients/**").authenticated()
+                        .pathMatchers("/patients", "/patients/**").hasRole(ADMIN)
+                        .anyExchange().authenticated())
+                .addFilterAt(new TrustedIdentityWebFilter(gatewayToken), SecurityWebFiltersOrder.AUTHENTICATION)
+                // Stateless: the identity comes with every request, nothing is kept in a session
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .requestCache(ServerHttpSecurity.RequestCacheSpec::disable)
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)));
+        return http.build();
+    }
+
+    // No local users: keeps Spring Boot from generating a default user and logging its password
+    @Bean
+    public ReactiveUserDetailsService userDetailsService() {
+        return username -> Mono.empty();
+    }
+}
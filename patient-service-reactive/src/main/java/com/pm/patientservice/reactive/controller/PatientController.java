@@ -0,0 +1,122 @@
+package com.pm.patientservice.reactive.controller;
+
+import com.pm.patientservice.reactive.dto.PatientAuditResponseDTO;
+import com.pm.patientservice.reactive.dto.PatientRequestDTO;
+import com.pm.patientservice.reactive.dto.PatientResponseDTO;
+import com.pm.patientservice.reactive.mapper.PatientProtoMapper;
+import com.pm.patientservice.reactive.service.PatientExportService;
+import com.pm.patientservice.reactive.service.PatientService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.groups.Default;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import patient.api.PatientListResponse;
+import patient.api.PatientRequest;
+import patient.api.PatientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.UUID;
+
+// Same endpoints, status codes and bodies as the servlet build's PatientController, with Mono/Flux return types
+@RestController
+@RequestMapping("/patients")
+@Tag(name = "Patient", description = "an API for patient management")
+public class PatientController {
+    public static final String APPLICATION_PROTOBUF = "application/x-protobuf";
+
+    private final PatientService patientService;
+    private final PatientExportService patientExportService;
+    private final Validator validator;
+
+    public PatientController(PatientService patientService, PatientExportService patientExportService, Validator validator) {
+        this.patientService = patientService;
+        this.patientExportService = patientExportService;
+        this.validator = validator;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get patients", description = "Retrieves a list of all patients, fields=id,name returns only those fields")
+    public Flux<PatientResponseDTO> getPatients(@RequestParam(required = false) Set<String> fields) {
+        // Encoded as a JSON array element by element while the rows arrive
+        return patientService.getPatients(fields);
+    }
+
+    @PostMapping
+    @Operation(summary = "Create patient", description = "Creates a new patient")
+    public Mono<PatientResponseDTO> createPatient(@Valid @RequestBody PatientRequestDTO patientRequestDTO) {
+        return patientService.createPatient(patientRequestDTO);
+    }
+
+    @PutMapping("/{id}")
+    @Operation(summary = "Update patient", description = "Updates an existing patient by ID")
+    public Mono<PatientResponseDTO> updatePatient(@PathVariable UUID id,
+                                                  @Validated({Default.class}) @RequestBody PatientRequestDTO patientRequestDTO) {
+        return patientService.updatePatient(id, patientRequestDTO);
+    }
+
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete patient", description = "Deletes a patient by ID")
+    public Mono<ResponseEntity<Void>> deletePatient(@PathVariable UUID id) {
+        return patientService.deletePatient(id).thenReturn(ResponseEntity.noContent().build());
+    }
+
+    @GetMapping("/{id}/audit")
+    @Operation(summary = "Get patient history", description = "Retrieves the audited changes of a patient, oldest first")
+    public Flux<PatientAuditResponseDTO> getPatientAudit(@PathVariable UUID id) {
+        return patientService.getPatientAudit(id);
+    }
+
+    // No gzip parameter: server.compression compresses text/csv for clients sending Accept-Encoding: gzip
+    @GetMapping("/export")
+    @Operation(summary = "Export patients", description = "Streams all patients as CSV ordered by id, resume an interrupted export with afterId")
+    public ResponseEntity<Flux<String>> exportPatients(@RequestParam(required = false) UUID afterId,
+                                                       @RequestParam(required = false) UUID untilId) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"patients.csv\"")
+                .contentType(MediaType.parseMediaType("text/csv"))
+                .body(patientExportService.exportCsv(afterId, untilId));
+    }
+
+    // Protobuf variants, selected like in the servlet build by "Accept: application/x-protobuf" or a protobuf body.
+    // A PatientListResponse is one message, so the list is collected before it is encoded.
+    @GetMapping(produces = APPLICATION_PROTOBUF)
+    @Operation(summary = "Get patients (protobuf)", description = "Retrieves a list of all patients as a PatientListResponse message")
+    public Mono<PatientListResponse> getPatientsProto(@RequestParam(required = false) Set<String> fields) {
+        return patientService.getPatients(fields).collectList().map(PatientProtoMapper::toProto);
+    }
+
+    @PostMapping(consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    @Operation(summary = "Create patient (protobuf)", description = "Creates a new patient from a PatientRequest message")
+    public Mono<PatientResponse> createPatientProto(@RequestBody PatientRequest patientRequest) {
+        return Mono.fromCallable(() -> validate(PatientProtoMapper.toDTO(patientRequest)))
+                .flatMap(patientService::createPatient)
+                .map(PatientProtoMapper::toProto);
+    }
+
+    @PutMapping(value = "/{id}", consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    @Operation(summary = "Update patient (protobuf)", description = "Updates an existing patient by ID from a PatientRequest message")
+    public Mono<PatientResponse> updatePatientProto(@PathVariable UUID id, @RequestBody PatientRequest patientRequest) {
+        return Mono.fromCallable(() -> validate(PatientProtoMapper.toDTO(patientRequest)))
+                .flatMap(patientRequestDTO -> patientService.updatePatient(id, patientRequestDTO))
+                .map(PatientProtoMapper::toProto);
+    }
+
+    // @Valid only works on the bound argument, protobuf bodies are mapped first so the DTO constraints are checked here
+    private PatientRequestDTO validate(PatientRequestDTO patientRequestDTO) {
+        Set<ConstraintViolation<PatientRequestDTO>> violations = validator.validate(patientRequestDTO, Default.class);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return patientRequestDTO;
+    }
+}
@@ -0,0 +1,67 @@
+package com.pm.patientservice.reactive.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// This class represents the data transfer object for patient responses.
+// Every field is mandatory on a patient, so a null field is one left out by a sparse fieldset (fields=) and is not serialized.
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PatientResponseDTO {
+    private String id;
+    private String name;
+    private String email;
+    private String address;
+    private String dateOfBirth;
+
+    public PatientResponseDTO() {
+    }
+
+    // Used by PatientRepository for rows with every field
+    public PatientResponseDTO(String id, String name, String email, String address, String dateOfBirth) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.address = address;
+        this.dateOfBirth = dateOfBirth;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    public void setDateOfBirth(String dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+
+}
@@ -0,0 +1,5 @@
+package com.pm.patientservice.reactive.exception;
+
+public class EmailAlreadyExistsException extends RuntimeException{
+    public EmailAlreadyExistsException(String message) {super(message);}
+}
@@ -0,0 +1,63 @@
+package com.pm.patientservice.reactive.exception;
+
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Same error bodies as the servlet build's GlobalExceptionHandler
+@ControllerAdvice
+public class GlobalExceptionHandler {
+    private static final Logger log = org.slf4j.LoggerFactory.getLogger(GlobalExceptionHandler.class);
+
+    // WebFlux raises WebExchangeBindException where Spring MVC raises MethodArgumentNotValidException
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, String>> handleValidationExceptions(WebExchangeBindException ex) {
+        Map<String, String> errors = new HashMap<>();
+
+        ex.getFieldErrors().forEach(
+                error -> errors.put(error.getField(), error.getDefaultMessage())
+        );
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Map<String, String>> handleConstraintViolationException(ConstraintViolationException ex) {
+        Map<String, String> errors = new HashMap<>();
+
+        ex.getConstraintViolations().forEach(
+                violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage())
+        );
+        // Same shape as the @Valid errors above, raised for request bodies that are validated manually (protobuf)
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    @ExceptionHandler(EmailAlreadyExistsException.class)
+    public ResponseEntity<Map<String, String>> handleEmailAlreadyExistsException(EmailAlreadyExistsException ex) {
+        // The exception message carries the email address, which doesn't belong in the logs
+        log.warn("Email already exists");
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Email address already exists: ");
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(PatientNotFoundException.class)
+    public ResponseEntity<Map<String, String>> handlePatientNotFoundException(PatientNotFoundException ex) {
+        log.warn("Patient not found: {}", ex.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Patient not found: ");
+        return ResponseEntity.status(404).body(error);
+    }
+
+    @ExceptionHandler(UnknownFieldException.class)
+    public ResponseEntity<Map<String, String>> handleUnknownFieldException(UnknownFieldException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", ex.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+}
@@ -0,0 +1,7 @@
+package com.pm.patientservice.reactive.exception;
+
+public class PatientNotFoundException extends RuntimeException {
+    public PatientNotFoundException(String message) {
+        super(message);
+    }
+}
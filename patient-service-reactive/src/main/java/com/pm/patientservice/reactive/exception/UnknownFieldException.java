@@ -0,0 +1,7 @@
+package com.pm.patientservice.reactive.exception;
+
+public class UnknownFieldException extends RuntimeException {
+    public UnknownFieldException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,120 @@
+package com.pm.patientservice.reactive.grpc;
+
+import billing.BillingRequest;
+import billing.BillingResponse;
+import billing.BillingServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Billing client of the reactive build: same channel as the servlet build's client (dns:/// round robin, retries on
+// UNAVAILABLE, keepalive), but calls go through the async stub and complete a Mono, no thread waits for billing.
+// Cancelling the Mono (client gone, timeout upstream) cancels the gRPC call.
+@Service
+public class BillingServiceGrpcClient {
+    private static final Logger log = LoggerFactory.getLogger(BillingServiceGrpcClient.class);
+    private static final String SERVICE_NAME = BillingServiceGrpc.SERVICE_NAME;
+    private static final Duration KEEP_ALIVE_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ManagedChannel channel;
+    private final BillingServiceGrpc.BillingServiceStub asyncStub;
+    private final Duration deadline;
+
+    public BillingServiceGrpcClient(
+            @Value("${billing.service.address:localhost}") String serverAddress,
+            @Value("${billing.service.grpc.port:9090}") int serverPort,
+            @Value("${billing.service.grpc.deadline:3s}") Duration deadline,
+            @Value("${billing.service.grpc.keep-alive-time:30s}") Duration keepAliveTime,
+            @Value("${billing.service.grpc.max-attempts:3}") int maxAttempts
+    ) {
+        log.info("Connecting to Billing Service at {}:{}", serverAddress, serverPort);
+
+        channel = ManagedChannelBuilder.forTarget("dns:///" + serverAddress + ":" + serverPort)
+                .defaultLoadBalancingPolicy("round_robin")
+                .defaultServiceConfig(serviceConfig(maxAttempts))
+                .enableRetry()
+                .keepAliveTime(keepAliveTime.toMillis(), TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(KEEP_ALIVE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                .usePlaintext() // Disable TLS for simplicity; enable in production
+                .build();
+        asyncStub = BillingServiceGrpc.newStub(channel);
+        this.deadline = deadline;
+    }
+
+    public Mono<BillingResponse> createBillingAccount(String patientId, String name, String email) {
+        BillingRequest request = BillingRequest.newBuilder()
+                .setPatientId(patientId)
+                .setName(name)
+                .setEmail(email)
+                .build();
+
+        // Deferred: the call is only started on subscription, and again on every resubscription
+        return Mono.<BillingResponse>create(sink -> asyncStub
+                        // Deadline is set per call, it covers every retry attempt of that call
+                        .withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                        .createBillingAccount(request, new ClientResponseObserver<BillingRequest, BillingResponse>() {
+                            @Override
+                            public void beforeStart(ClientCallStreamObserver<BillingRequest> call) {
+                                sink.onCancel(() -> call.cancel("Caller cancelled", null));
+                            }
+
+                            @Override
+                            public void onNext(BillingResponse response) {
+                                sink.success(response);
+                            }
+
+                            @Override
+                            public void onError(Throwable t) {
+                                sink.error(t);
+                            }
+
+                            @Override
+                            public void onCompleted() {
+                                // Unary call: onNext has completed the sink already, this is a no-op then
+                                sink.success();
+                            }
+                        }))
+                .doOnNext(response -> log.atInfo()
+                        .setMessage("Received response from billing service via GRPC")
+                        .addKeyValue("patientId", patientId)
+                        .addKeyValue("accountId", response.getAccountId())
+                        .addKeyValue("status", response.getStatus())
+                        .log());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        log.info("Shutting down Billing Service channel");
+        channel.shutdown();
+        if (!channel.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            channel.shutdownNow();
+        }
+    }
+
+    // Only retried on UNAVAILABLE (the call never reached a billing instance), CreateBillingAccount is not idempotent
+    private static Map<String, Object> serviceConfig(int maxAttempts) {
+        return Map.of(
+                "methodConfig", List.of(Map.of(
+                        "name", List.of(Map.of("service", SERVICE_NAME)),
+                        "retryPolicy", Map.of(
+                                "maxAttempts", (double) maxAttempts,
+                                "initialBackoff", "0.1s",
+                                "maxBackoff", "1s",
+                                "backoffMultiplier", 2.0,
+                                "retryableStatusCodes", List.of("UNAVAILABLE")))),
+                "retryThrottling", Map.of("maxTokens", 10.0, "tokenRatio", 0.1));
+    }
+}
@@ -0,0 +1,74 @@
+package com.pm.patientservice.reactive.kafka;
+
+import com.pm.patientservice.reactive.model.Patient;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import patient.events.PatientEvent;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+// PatientEvent producer of the reactive build, same topic, key and payload as the servlet build's KafkaProducer.
+// The returned Mono completes once the broker acknowledged the event, and at most kafka.producer.max-in-flight
+// events are outstanding: past that, sends wait for acknowledgements instead of piling up in the producer buffer
+// (and blocking in KafkaProducer.send when buffer.memory runs out).
+@Service
+public class KafkaProducer {
+
+    private static final Logger log = getLogger(KafkaProducer.class);
+    private final KafkaSender<String, byte[]> sender;
+
+    public KafkaProducer(@Value("${spring.kafka.bootstrap-servers:localhost:9092}") String bootstrapServers,
+                         @Value("${kafka.producer.max-in-flight:256}") int maxInFlight) {
+        Map<String, Object> properties = Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        this.sender = KafkaSender.create(SenderOptions.<String, byte[]>create(properties)
+                .maxInFlight(maxInFlight)
+                // One failed event doesn't stop the sender for the events behind it
+                .stopOnError(false));
+    }
+
+    // Errors are logged and swallowed like in the servlet build: the patient is saved whether or not the event went out
+    // occurredAt: when the patient was saved, the event itself goes out after the billing call
+    public Mono<Void> sendEvent(Patient patient, Instant occurredAt) {
+        PatientEvent event = PatientEvent.newBuilder()
+                .setPatientId(patient.id().toString())
+                .setName(patient.name())
+                .setEmail(patient.email())
+                .setEventType("PATIENT_CREATED")
+                .setOccurredAt(occurredAt.toEpochMilli())
+                .build();
+        // Keyed by patient id like the "billing" topic, analytics-service joins both per partition
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>("patient", event.getPatientId(), event.toByteArray());
+        return sender.send(Mono.just(SenderRecord.create(record, event.getPatientId())))
+                .doOnNext(result -> {
+                    if (result.exception() != null) {
+                        log.error("Error sending PatientCreated event for patient {}", result.correlationMetadata(), result.exception());
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("Error sending PatientCreated event for patient {}", event.getPatientId(), e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.close();
+    }
+}
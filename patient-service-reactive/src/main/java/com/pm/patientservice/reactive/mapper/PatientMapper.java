@@ -0,0 +1,44 @@
+package com.pm.patientservice.reactive.mapper;
+
+import com.pm.patientservice.reactive.dto.PatientRequestDTO;
+import com.pm.patientservice.reactive.dto.PatientResponseDTO;
+import com.pm.patientservice.reactive.model.Patient;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class PatientMapper {
+    public static PatientResponseDTO toDTO(Patient patient){
+        PatientResponseDTO patientDTO = new PatientResponseDTO();
+        patientDTO.setId(patient.id().toString());
+        patientDTO.setName(patient.name());
+        patientDTO.setAddress(patient.address());
+        patientDTO.setEmail(patient.email());
+        patientDTO.setDateOfBirth(patient.dateOfBirth().toString());
+        return patientDTO;
+    }
+
+    // The id is generated here rather than by the database, the insert then needs no RETURNING clause
+    public static Patient toModel(String tenantId, PatientRequestDTO patientRequestDTO) {
+        return new Patient(
+                UUID.randomUUID(),
+                tenantId,
+                patientRequestDTO.getName(),
+                patientRequestDTO.getEmail(),
+                patientRequestDTO.getAddress(),
+                LocalDate.parse(patientRequestDTO.getDateOfBirth()),
+                LocalDate.parse(patientRequestDTO.getRegisteredDate()));
+    }
+
+    // The registered date and the id stay unchanged after creation
+    public static Patient updated(Patient patient, PatientRequestDTO patientRequestDTO) {
+        return new Patient(
+                patient.id(),
+                patient.tenantId(),
+                patientRequestDTO.getName(),
+                patientRequestDTO.getEmail(),
+                patientRequestDTO.getAddress(),
+                LocalDate.parse(patientRequestDTO.getDateOfBirth()),
+                patient.registeredDate());
+    }
+}
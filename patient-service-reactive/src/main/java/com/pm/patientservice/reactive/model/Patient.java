@@ -0,0 +1,14 @@
+package com.pm.patientservice.reactive.model;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Row of the patient table (created by patient-service's schema scripts), only live patients are ever loaded
+public record Patient(UUID id,
+                      String tenantId,
+                      String name,
+                      String email,
+                      String address,
+                      LocalDate dateOfBirth,
+                      LocalDate registeredDate) {
+}
@@ -0,0 +1,181 @@
+package com.pm.patientservice.reactive.repository;
+
+import com.pm.patientservice.reactive.dto.PatientResponseDTO;
+import com.pm.patientservice.reactive.exception.UnknownFieldException;
+import com.pm.patientservice.reactive.model.Patient;
+import io.r2dbc.spi.Readable;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+// Same table and rules as the servlet build's Patient entity, in SQL over R2DBC: every query is scoped to the tenant
+// passed in, deleted patients (deleted_at set) are never returned, and writes stamp updated_at themselves.
+@Repository
+public class PatientRepository {
+    private static final String COLUMNS = "id, tenant_id, name, email, address, date_of_birth, registered_date";
+    private static final String LIVE = " FROM patient WHERE tenant_id = :tenant AND deleted_at IS NULL";
+
+    // Response field -> column, in PatientResponseDTO constructor order
+    private static final Map<String, String> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("id", "id");
+        FIELDS.put("name", "name");
+        FIELDS.put("email", "email");
+        FIELDS.put("address", "address");
+        FIELDS.put("dateOfBirth", "date_of_birth");
+    }
+
+    private final DatabaseClient databaseClient;
+
+    public PatientRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // fields null or empty = every field, otherwise only those columns are selected and the others stay null.
+    // Rows are emitted as they are decoded, the controller writes them without collecting the list first.
+    public Flux<PatientResponseDTO> findAll(String tenant, Set<String> fields) {
+        List<String> selected;
+        if (fields == null || fields.isEmpty() || fields.containsAll(FIELDS.keySet())) {
+            selected = List.copyOf(FIELDS.keySet());
+        } else {
+            selected = new ArrayList<>();
+            for (String field : FIELDS.keySet()) {
+                if (fields.contains(field)) {
+                    selected.add(field);
+                }
+            }
+            if (selected.size() != fields.size()) {
+                Set<String> unknown = new HashSet<>(fields);
+                unknown.removeAll(FIELDS.keySet());
+                return Flux.error(new UnknownFieldException("Unknown fields " + unknown + ", expected any of " + FIELDS.keySet()));
+            }
+        }
+
+        String select = String.join(", ", selected.stream().map(FIELDS::get).toList());
+        return databaseClient.sql("SELECT " + select + LIVE)
+                .bind("tenant", tenant)
+                .map(row -> {
+                    PatientResponseDTO patient = new PatientResponseDTO();
+                    for (String field : selected) {
+                        set(patient, field, Objects.toString(row.get(FIELDS.get(field)), null));
+                    }
+                    return patient;
+                })
+                .all();
+    }
+
+    public Mono<Patient> findById(String tenant, UUID id) {
+        return databaseClient.sql("SELECT " + COLUMNS + LIVE + " AND id = :id")
+                .bind("tenant", tenant)
+                .bind("id", id)
+                .map(PatientRepository::toPatient)
+                .one();
+    }
+
+    // excludedId null = any patient, otherwise the patient being updated doesn't count
+    public Mono<Boolean> existsByEmail(String tenant, String email, UUID excludedId) {
+        // R2DBC drivers can't bind an untyped null, so the id condition is only added when there is an id
+        DatabaseClient.GenericExecuteSpec spec = databaseClient
+                .sql("SELECT 1" + LIVE + " AND email = :email" + (excludedId != null ? " AND id <> :id" : "") + " LIMIT 1")
+                .bind("tenant", tenant)
+                .bind("email", email);
+        if (excludedId != null) {
+            spec = spec.bind("id", excludedId);
+        }
+        return spec.map(row -> Boolean.TRUE).first().defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Patient> insert(Patient patient) {
+        return databaseClient.sql("INSERT INTO patient (" + COLUMNS + ", updated_at)"
+                        + " VALUES (:id, :tenant, :name, :email, :address, :dateOfBirth, :registeredDate, CURRENT_TIMESTAMP)")
+                .bind("id", patient.id())
+                .bind("tenant", patient.tenantId())
+                .bind("name", patient.name())
+                .bind("email", patient.email())
+                .bind("address", patient.address())
+                .bind("dateOfBirth", patient.dateOfBirth())
+                .bind("registeredDate", patient.registeredDate())
+                .then()
+                .thenReturn(patient);
+    }
+
+    // Empty when the patient was deleted in the meantime
+    public Mono<Patient> update(Patient patient) {
+        return databaseClient.sql("UPDATE patient SET name = :name, email = :email, address = :address,"
+                        + " date_of_birth = :dateOfBirth, updated_at = CURRENT_TIMESTAMP"
+                        + " WHERE tenant_id = :tenant AND id = :id AND deleted_at IS NULL")
+                .bind("name", patient.name())
+                .bind("email", patient.email())
+                .bind("address", patient.address())
+                .bind("dateOfBirth", patient.dateOfBirth())
+                .bind("tenant", patient.tenantId())
+                .bind("id", patient.id())
+                .fetch()
+                .rowsUpdated()
+                .filter(rows -> rows > 0)
+                .thenReturn(patient);
+    }
+
+    // Soft delete, like @SQLDelete on the servlet build's entity
+    public Mono<Boolean> softDelete(String tenant, UUID id) {
+        return databaseClient.sql("UPDATE patient SET deleted_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP"
+                        + " WHERE tenant_id = :tenant AND id = :id AND deleted_at IS NULL")
+                .bind("tenant", tenant)
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+
+    // Live patients in id order after afterId and up to untilId (both optional). Rows are requested from the driver
+    // as the subscriber asks for them, so a slow client slows down the cursor instead of filling the heap.
+    public Flux<Patient> export(String tenant, UUID afterId, UUID untilId, int fetchSize) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("SELECT " + COLUMNS + LIVE
+                        + (afterId != null ? " AND id > :afterId" : "")
+                        + (untilId != null ? " AND id <= :untilId" : "")
+                        + " ORDER BY id")
+                .bind("tenant", tenant)
+                .filter(statement -> statement.fetchSize(fetchSize));
+        if (afterId != null) {
+            spec = spec.bind("afterId", afterId);
+        }
+        if (untilId != null) {
+            spec = spec.bind("untilId", untilId);
+        }
+        return spec.map(PatientRepository::toPatient).all();
+    }
+
+    private static Patient toPatient(Readable row) {
+        return new Patient(
+                row.get("id", UUID.class),
+                row.get("tenant_id", String.class),
+                row.get("name", String.class),
+                row.get("email", String.class),
+                row.get("address", String.class),
+                row.get("date_of_birth", LocalDate.class),
+                row.get("registered_date", LocalDate.class));
+    }
+
+    private static void set(PatientResponseDTO patient, String field, String value) {
+        switch (field) {
+            case "id" -> patient.setId(value);
+            case "name" -> patient.setName(value);
+            case "email" -> patient.setEmail(value);
+            case "address" -> patient.setAddress(value);
+            case "dateOfBirth" -> patient.setDateOfBirth(value);
+            default -> throw new IllegalStateException("Unmapped field " + field);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.pm.patientservice.reactive.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+// Principal built by TrustedIdentityWebFilter, same as the servlet build's. tenant is the clinic of the user's token,
+// null for the default tenant: TenantWebFilter only lets the user act for that tenant.
+public record GatewayIdentity(String email, String tenant) implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -0,0 +1,66 @@
+package com.pm.patientservice.reactive.security;
+
+import com.pm.patientservice.reactive.config.SecurityConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+// Same rules as patient-service's TrustedIdentityFilter: the identity comes from the X-User-Email / X-User-Role / X-User-Tenant headers
+// set by the api-gateway, only together with identity.gateway-token as X-Gateway-Token. Requests without a usable
+// identity stay anonymous, every request does when no gateway token is configured.
+// The authentication is put in the Reactor context instead of a ThreadLocal.
+public class TrustedIdentityWebFilter implements WebFilter {
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
+    public static final String USER_TENANT_HEADER = "X-User-Tenant";
+    public static final String GATEWAY_TOKEN_HEADER = "X-Gateway-Token";
+
+    private static final Logger log = LoggerFactory.getLogger(TrustedIdentityWebFilter.class);
+    // The roles auth-service hands out, built once. Any other role value authenticates without authorities.
+    private static final Map<String, List<GrantedAuthority>> AUTHORITIES_BY_ROLE = Map.of(
+            SecurityConfig.ADMIN, List.of(new SimpleGrantedAuthority("ROLE_" + SecurityConfig.ADMIN)),
+            "USER", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    private final byte[] gatewayToken;
+
+    public TrustedIdentityWebFilter(String gatewayToken) {
+        this.gatewayToken = gatewayToken.getBytes(StandardCharsets.UTF_8);
+        if (this.gatewayToken.length == 0) {
+            log.warn("identity.gateway-token is not set, identity headers are ignored and every request is anonymous");
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var headers = exchange.getRequest().getHeaders();
+        String email = headers.getFirst(USER_EMAIL_HEADER);
+        String role = headers.getFirst(USER_ROLE_HEADER);
+        if (email == null || role == null || !fromGateway(headers.getFirst(GATEWAY_TOKEN_HEADER))) {
+            return chain.filter(exchange);
+        }
+        List<GrantedAuthority> authorities = AUTHORITIES_BY_ROLE.getOrDefault(role, List.of());
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                        new PreAuthenticatedAuthenticationToken(
+                                new GatewayIdentity(email, headers.getFirst(USER_TENANT_HEADER)), null, authorities)));
+    }
+
+    private boolean fromGateway(String token) {
+        if (gatewayToken.length == 0) {
+            return false;
+        }
+        return token != null && MessageDigest.isEqual(gatewayToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,70 @@
+package com.pm.patientservice.reactive.service;
+
+import com.pm.patientservice.reactive.model.Patient;
+import com.pm.patientservice.reactive.repository.PatientRepository;
+import com.pm.patientservice.reactive.tenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+// Streams live patients as CSV in id order, same format and resume rules as the servlet build's PatientExportService.
+// Rows are grouped in chunks of export.flush-every, each chunk is written to the client as soon as it is complete,
+// and the next rows are only fetched once the connection took the previous chunk.
+@Service
+public class PatientExportService {
+    private static final Logger log = LoggerFactory.getLogger(PatientExportService.class);
+    private static final String HEADER = "id,name,email,address,date_of_birth,registered_date\n";
+
+    private final PatientRepository patientRepository;
+    private final int fetchSize;
+    private final int flushEvery;
+
+    public PatientExportService(PatientRepository patientRepository,
+                                @Value("${export.fetch-size:1000}") int fetchSize,
+                                @Value("${export.flush-every:1000}") int flushEvery) {
+        this.patientRepository = patientRepository;
+        this.fetchSize = fetchSize;
+        this.flushEvery = flushEvery;
+    }
+
+    public Flux<String> exportCsv(UUID afterId, UUID untilId) {
+        return TenantContext.current().flatMapMany(tenant -> {
+            long[] rows = {0};
+            Flux<String> chunks = patientRepository.export(tenant, afterId, untilId, fetchSize)
+                    .doOnNext(patient -> rows[0]++)
+                    .buffer(flushEvery)
+                    .map(PatientExportService::toCsv);
+            return Flux.concat(Flux.just(HEADER), chunks)
+                    .doOnComplete(() -> log.info("Exported {} patients of tenant {} (afterId={}, untilId={})", rows[0], tenant, afterId, untilId));
+        });
+    }
+
+    private static String toCsv(Iterable<Patient> patients) {
+        StringBuilder csv = new StringBuilder(256 * 64);
+        for (Patient patient : patients) {
+            csv.append(patient.id()).append(',');
+            appendField(csv, patient.name());
+            csv.append(',');
+            appendField(csv, patient.email());
+            csv.append(',');
+            appendField(csv, patient.address());
+            csv.append(',').append(patient.dateOfBirth())
+                    .append(',').append(patient.registeredDate())
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break, and double embedded quotes
+    private static void appendField(StringBuilder csv, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            csv.append(value);
+            return;
+        }
+        csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
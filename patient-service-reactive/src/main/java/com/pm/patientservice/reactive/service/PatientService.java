@@ -0,0 +1,107 @@
+package com.pm.patientservice.reactive.service;
+
+import com.pm.patientservice.reactive.audit.AuditAction;
+import com.pm.patientservice.reactive.audit.PatientAuditRecord;
+import com.pm.patientservice.reactive.audit.PatientAuditRepository;
+import com.pm.patientservice.reactive.dto.PatientAuditResponseDTO;
+import com.pm.patientservice.reactive.dto.PatientRequestDTO;
+import com.pm.patientservice.reactive.dto.PatientResponseDTO;
+import com.pm.patientservice.reactive.exception.EmailAlreadyExistsException;
+import com.pm.patientservice.reactive.exception.PatientNotFoundException;
+import com.pm.patientservice.reactive.grpc.BillingServiceGrpcClient;
+import com.pm.patientservice.reactive.kafka.KafkaProducer;
+import com.pm.patientservice.reactive.mapper.PatientMapper;
+import com.pm.patientservice.reactive.model.Patient;
+import com.pm.patientservice.reactive.repository.PatientRepository;
+import com.pm.patientservice.reactive.tenant.TenantContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+// Same steps as the servlet build's PatientService, as one non-blocking chain per request. The patient row and its
+// audit record are written in one transaction, billing and the Kafka event follow once it has committed.
+@Service
+public class PatientService {
+    private final PatientRepository patientRepository;
+    private final PatientAuditRepository patientAuditRepository;
+    private final BillingServiceGrpcClient billingServiceGrpcClient;
+    private final KafkaProducer kafkaProducer;
+    private final TransactionalOperator transactionalOperator;
+
+    public PatientService(PatientRepository patientRepository, PatientAuditRepository patientAuditRepository,
+                          BillingServiceGrpcClient billingServiceGrpcClient, KafkaProducer kafkaProducer,
+                          TransactionalOperator transactionalOperator) {
+        this.patientRepository = patientRepository;
+        this.patientAuditRepository = patientAuditRepository;
+        this.billingServiceGrpcClient = billingServiceGrpcClient;
+        this.kafkaProducer = kafkaProducer;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    public Flux<PatientResponseDTO> getPatients(Set<String> fields) {
+        return TenantContext.current().flatMapMany(tenant -> patientRepository.findAll(tenant, fields));
+    }
+
+    public Mono<PatientResponseDTO> createPatient(PatientRequestDTO patientRequestDTO) {
+        return TenantContext.current()
+                .flatMap(tenant -> patientRepository.existsByEmail(tenant, patientRequestDTO.getEmail(), null)
+                        .flatMap(exists -> {
+                            if (exists) {
+                                return Mono.error(new EmailAlreadyExistsException("A Patient with this email already exists" + patientRequestDTO.getEmail()));
+                            }
+                            return patientRepository.insert(PatientMapper.toModel(tenant, patientRequestDTO));
+                        })
+                        .flatMap(newPatient -> patientAuditRepository
+                                .record(AuditAction.CREATED, tenant, newPatient.id(), Collections.emptyMap(), PatientAuditRecord.snapshot(newPatient))
+                                .thenReturn(newPatient))
+                        .as(transactionalOperator::transactional))
+                .flatMap(newPatient -> {
+                    Instant registeredAt = Instant.now();
+                    return billingServiceGrpcClient
+                            .createBillingAccount(newPatient.id().toString(), newPatient.name(), newPatient.email())
+                            .then(kafkaProducer.sendEvent(newPatient, registeredAt))
+                            .thenReturn(PatientMapper.toDTO(newPatient));
+                });
+    }
+
+    public Mono<PatientResponseDTO> updatePatient(UUID id, PatientRequestDTO patientRequestDTO) {
+        return TenantContext.current()
+                .flatMap(tenant -> findPatient(tenant, id)
+                        .flatMap(patient -> patientRepository.existsByEmail(tenant, patientRequestDTO.getEmail(), id)
+                                .flatMap(exists -> {
+                                    if (exists) {
+                                        return Mono.error(new EmailAlreadyExistsException("A Patient with this email already exists" + patientRequestDTO.getEmail()));
+                                    }
+                                    return patientRepository.update(PatientMapper.updated(patient, patientRequestDTO))
+                                            .switchIfEmpty(Mono.error(() -> new PatientNotFoundException("Patient not found with id: " + id)))
+                                            .flatMap(updatedPatient -> patientAuditRepository
+                                                    .record(AuditAction.UPDATED, tenant, id, PatientAuditRecord.snapshot(patient), PatientAuditRecord.snapshot(updatedPatient))
+                                                    .thenReturn(updatedPatient));
+                                }))
+                        .as(transactionalOperator::transactional))
+                .map(PatientMapper::toDTO);
+    }
+
+    public Mono<Void> deletePatient(UUID id) {
+        return TenantContext.current()
+                .flatMap(tenant -> findPatient(tenant, id)
+                        .flatMap(patient -> patientRepository.softDelete(tenant, id)
+                                .then(patientAuditRepository.record(AuditAction.DELETED, tenant, id, PatientAuditRecord.snapshot(patient), Collections.emptyMap())))
+                        .as(transactionalOperator::transactional));
+    }
+
+    public Flux<PatientAuditResponseDTO> getPatientAudit(UUID id) {
+        return TenantContext.current().flatMapMany(tenant -> patientAuditRepository.findByPatientId(tenant, id));
+    }
+
+    private Mono<Patient> findPatient(String tenant, UUID id) {
+        return patientRepository.findById(tenant, id)
+                .switchIfEmpty(Mono.error(() -> new PatientNotFoundException("Patient not found with id: " + id)));
+    }
+}
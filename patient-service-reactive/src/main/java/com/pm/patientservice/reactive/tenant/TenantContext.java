@@ -0,0 +1,20 @@
+package com.pm.patientservice.reactive.tenant;
+
+import reactor.core.publisher.Mono;
+
+// Tenant (clinic) of the current request, put in the Reactor context by TenantWebFilter. The reactive counterpart
+// of patient-service's ThreadLocal TenantContext: a request hops between threads, its context goes with it.
+public final class TenantContext {
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    static final String KEY = TenantContext.class.getName();
+
+    private TenantContext() {
+    }
+
+    public static Mono<String> current() {
+        return Mono.deferContextual(context -> context.<String>getOrEmpty(KEY)
+                .map(Mono::just)
+                .orElseGet(() -> Mono.error(new IllegalStateException("No tenant outside of a request"))));
+    }
+}
@@ -0,0 +1,54 @@
+package com.pm.patientservice.reactive.tenant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+
+// Cached copy of tenant_placement, which the servlet build (ShardRouter) keeps on its directory shard. This build only
+// talks to that one database (sharding.directory-shard), TenantWebFilter uses the placements to turn away tenants
+// living on another shard instead of reading them empty and writing them to the wrong database.
+// Reloaded every sharding.placement-refresh-interval like the servlet build, so a freeze is seen before a move switches.
+@Component
+public class TenantPlacements {
+    private static final Logger log = LoggerFactory.getLogger(TenantPlacements.class);
+    private static final Duration QUERY_TIMEOUT = Duration.ofSeconds(5);
+
+    public record Placement(String shard, String state) {
+    }
+
+    private final DatabaseClient databaseClient;
+    private volatile Map<String, Placement> placements = Map.of();
+
+    public TenantPlacements(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // null: the tenant has no placement yet (or they couldn't be loaded so far)
+    public Placement placementOf(String tenant) {
+        return placements.get(tenant);
+    }
+
+    // Blocks a scheduler thread, never an event loop thread
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${sharding.placement-refresh-interval:2s}")
+    public void refresh() {
+        try {
+            Map<String, Placement> loaded = databaseClient.sql("SELECT tenant_id, shard, state FROM tenant_placement")
+                    .map((row, metadata) -> Map.entry(row.get("tenant_id", String.class),
+                            new Placement(row.get("shard", String.class), row.get("state", String.class))))
+                    .all()
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                    .block(QUERY_TIMEOUT);
+            placements = loaded != null ? Map.copyOf(loaded) : Map.of();
+        } catch (RuntimeException e) {
+            log.warn("Could not load tenant placements, keeping {} cached: {}", placements.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.pm.patientservice.reactive.tenant;
+
+import com.pm.patientservice.reactive.security.GatewayIdentity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+// Sets the tenant (clinic) of the request to the tenant of the user's token, like the servlet build's TenantFilter:
+// users without one and anonymous requests belong to sharding.default-tenant, and X-Tenant-Id, when sent, must name
+// that same tenant. Runs after the security filter chain (order -100), so the identity is known.
+// This build only serves tenants living on its own database (TenantPlacements): the default tenant, which always
+// lives on the directory shard, and tenants placed on sharding.directory-shard. Others get a 503, new tenants are
+// placed by their first write through the servlet build. Writes of a tenant frozen for a move get 503 with Retry-After.
+@Component
+@Order(-90)
+public class TenantWebFilter implements WebFilter {
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String FROZEN = "FROZEN";
+
+    private final String defaultTenant;
+    private final String directoryShard;
+    private final TenantPlacements tenantPlacements;
+
+    public TenantWebFilter(@Value("${sharding.default-tenant:default}") String defaultTenant,
+                           @Value("${sharding.directory-shard:shard0}") String directoryShard,
+                           TenantPlacements tenantPlacements) {
+        this.defaultTenant = defaultTenant;
+        this.directoryShard = directoryShard;
+        this.tenantPlacements = tenantPlacements;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String requested = exchange.getRequest().getHeaders().getFirst(TenantContext.TENANT_HEADER);
+        if (requested != null && !TENANT_ID.matcher(requested).matches()) {
+            return reject(exchange, HttpStatus.BAD_REQUEST, "Invalid " + TenantContext.TENANT_HEADER, false);
+        }
+        return ReactiveSecurityContextHolder.getContext()
+                .mapNotNull(SecurityContext::getAuthentication)
+                .mapNotNull(authentication -> authentication.getPrincipal() instanceof GatewayIdentity identity
+                        ? identity.tenant() : null)
+                .defaultIfEmpty(defaultTenant)
+                .flatMap(tenant -> {
+                    if (!TENANT_ID.matcher(tenant).matches()) {
+                        return reject(exchange, HttpStatus.FORBIDDEN, "Invalid tenant of the user", false);
+                    }
+                    if (requested != null && !requested.equals(tenant)) {
+                        return reject(exchange, HttpStatus.FORBIDDEN,
+                                TenantContext.TENANT_HEADER + " does not match the tenant of the user", false);
+                    }
+                    TenantPlacements.Placement placement = tenantPlacements.placementOf(tenant);
+                    if (placement == null ? !tenant.equals(defaultTenant) : !placement.shard().equals(directoryShard)) {
+                        return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE,
+                                "Tenant " + tenant + " is not served by this instance", false);
+                    }
+                    if (placement != null && FROZEN.equals(placement.state()) && isWrite(exchange)) {
+                        return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE,
+                                "Tenant " + tenant + " is being moved to another shard, retry shortly", true);
+                    }
+                    return chain.filter(exchange).contextWrite(Context.of(TenantContext.KEY, tenant));
+                });
+    }
+
+    private static boolean isWrite(ServerWebExchange exchange) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        return !HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method) && !HttpMethod.OPTIONS.equals(method);
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status, String message, boolean retry) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        if (retry) {
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "5");
+        }
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        String body = "{\"message\":\"" + message + "\"}";
+        DataBuffer buffer = response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8));
+        return response.writeWith(Mono.just(buffer));
+    }
+}
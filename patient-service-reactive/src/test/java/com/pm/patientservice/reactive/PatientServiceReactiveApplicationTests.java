@@ -0,0 +1,13 @@
+package com.pm.patientservice.reactive;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class PatientServiceReactiveApplicationTests {
+
+    @Test
+    void contextLoads() {
+    }
+
+}
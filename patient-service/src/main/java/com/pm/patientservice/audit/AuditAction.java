@@ -0,0 +1,7 @@
+package com.pm.patientservice.audit;
+
+public enum AuditAction {
+    CREATED,
+    UPDATED,
+    DELETED
+}
@@ -0,0 +1,8 @@
+package com.pm.patientservice.audit;
+
+// What PatientAuditLog does when its buffer is full
+public enum OverflowPolicy {
+    DROP_NEWEST, // discard the record being added, the request never waits
+    DROP_OLDEST, // discard the oldest buffered record to make room
+    BLOCK        // backpressure: wait up to audit.block-timeout for room, then discard the record
+}
@@ -0,0 +1,154 @@
+package com.pm.patientservice.audit;
+
+import com.pm.patientservice.model.Patient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Asynchronous audit trail: requests only put a record into a bounded buffer, a single background writer
+// drains it and inserts the records in JDBC batches. What happens when the buffer is full is set by audit.overflow-policy.
+@Service
+public class PatientAuditLog {
+    private static final Logger log = LoggerFactory.getLogger(PatientAuditLog.class);
+    private final PatientAuditRepository patientAuditRepository;
+    private final BlockingQueue<PatientAuditRecord> buffer;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public PatientAuditLog(PatientAuditRepository patientAuditRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${audit.buffer-capacity:8192}") int bufferCapacity,
+                           @Value("${audit.batch-size:500}") int batchSize,
+                           @Value("${audit.flush-interval:200ms}") Duration flushInterval,
+                           @Value("${audit.overflow-policy:DROP_NEWEST}") OverflowPolicy overflowPolicy,
+                           @Value("${audit.block-timeout:50ms}") Duration blockTimeout) {
+        this.patientAuditRepository = patientAuditRepository;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+
+        this.enqueued = meterRegistry.counter("audit.records", "result", "enqueued");
+        this.dropped = meterRegistry.counter("audit.records", "result", "dropped");
+        this.written = meterRegistry.counter("audit.records", "result", "written");
+        this.failed = meterRegistry.counter("audit.records", "result", "failed");
+        Gauge.builder("audit.buffer.size", buffer, BlockingQueue::size).register(meterRegistry);
+
+        this.writer = new Thread(this::drain, "patient-audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public void record(AuditAction action, String tenant, UUID patientId, Patient before, Patient after) {
+        record(action, tenant, patientId, PatientAuditRecord.snapshot(before), PatientAuditRecord.snapshot(after));
+    }
+
+    public void record(AuditAction action, String tenant, UUID patientId, Map<String, String> before, Map<String, String> after) {
+        PatientAuditRecord record = new PatientAuditRecord(tenant, patientId, action, currentActor(), Instant.now(), before, after);
+        if (offer(record)) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+            log.warn("Audit buffer full, dropped {} record for patient {}", action, patientId);
+        }
+    }
+
+    private boolean offer(PatientAuditRecord record) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                while (!buffer.offer(record)) {
+                    if (buffer.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                return true;
+            }
+            case BLOCK -> {
+                try {
+                    return buffer.offer(record, blockTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            default -> {
+                return buffer.offer(record);
+            }
+        }
+    }
+
+    private void drain() {
+        List<PatientAuditRecord> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                PatientAuditRecord first = buffer.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Under load the buffer refills while the previous batch is written, so batches grow on their own
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PatientAuditRecord> batch) {
+        try {
+            patientAuditRepository.insertBatch(batch);
+            written.increment(batch.size());
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            log.error("Failed to write {} audit records", batch.size(), e);
+        }
+    }
+
+    // Identity forwarded by the api-gateway (see TrustedIdentityFilter), "system" for changes made outside of a request
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return authentication.getName();
+        }
+        return RequestContextHolder.getRequestAttributes() != null ? "anonymous" : "system";
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // The writer notices within one flush interval and drains what's left before exiting
+        running = false;
+        writer.join(flushInterval.multipliedBy(10).toMillis());
+    }
+}
@@ -0,0 +1,51 @@
+package com.pm.patientservice.audit;
+
+import com.pm.patientservice.model.Patient;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+// One change of one patient. Snapshots are taken on the request thread, the diff is computed by the writer
+public record PatientAuditRecord(String tenantId,
+                                 UUID patientId,
+                                 AuditAction action,
+                                 String actor,
+                                 Instant changedAt,
+                                 Map<String, String> before,
+                                 Map<String, String> after) {
+
+    public static Map<String, String> snapshot(Patient patient) {
+        if (patient == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> snapshot = new LinkedHashMap<>();
+        snapshot.put("name", patient.getName());
+        snapshot.put("email", patient.getEmail());
+        snapshot.put("address", patient.getAddress());
+        snapshot.put("dateOfBirth", String.valueOf(patient.getdateOfBirth()));
+        snapshot.put("registeredDate", String.valueOf(patient.getRegisteredDate()));
+        return snapshot;
+    }
+
+    // field -> {before, after}, only for fields whose value changed
+    public Map<String, Map<String, String>> changes() {
+        Map<String, Map<String, String>> changes = new LinkedHashMap<>();
+        Map<String, String> fields = new LinkedHashMap<>(before);
+        fields.putAll(after);
+        for (String field : fields.keySet()) {
+            String oldValue = before.get(field);
+            String newValue = after.get(field);
+            if (!Objects.equals(oldValue, newValue)) {
+                Map<String, String> change = new LinkedHashMap<>();
+                change.put("before", oldValue);
+                change.put("after", newValue);
+                changes.put(field, change);
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,75 @@
+package com.pm.patientservice.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.dto.PatientAuditResponseDTO;
+import com.pm.patientservice.sharding.ShardDataSources;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Plain JDBC instead of JPA: audit rows are append-only and written in batches, nothing needs to be managed
+// The audit trail isn't sharded, it always lives on the directory shard whatever the tenant: every read is scoped to the tenant
+@Repository
+public class PatientAuditRepository {
+    private static final TypeReference<Map<String, Map<String, String>>> CHANGES_TYPE = new TypeReference<>() { };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public PatientAuditRepository(ShardDataSources shardDataSources, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(shardDataSources.directory());
+        this.objectMapper = objectMapper;
+    }
+
+    public void insertBatch(List<PatientAuditRecord> records) {
+        // One round trip per batch (add reWriteBatchedInserts=true to the PostgreSQL JDBC url to get a single multi-row INSERT)
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO patient_audit (tenant_id, patient_id, action, actor, changed_at, changes) VALUES (?, ?, ?, ?, ?, ?)",
+                records,
+                records.size(),
+                (ps, record) -> {
+                    ps.setString(1, record.tenantId());
+                    ps.setObject(2, record.patientId());
+                    ps.setString(3, record.action().name());
+                    ps.setString(4, record.actor());
+                    ps.setTimestamp(5, Timestamp.from(record.changedAt()));
+                    ps.setString(6, toJson(record.changes()));
+                });
+    }
+
+    public List<PatientAuditResponseDTO> findByPatientId(String tenant, UUID patientId) {
+        return jdbcTemplate.query(
+                "SELECT action, actor, changed_at, changes FROM patient_audit WHERE tenant_id = ? AND patient_id = ? ORDER BY changed_at, id",
+                (rs, rowNum) -> {
+                    PatientAuditResponseDTO auditDTO = new PatientAuditResponseDTO();
+                    auditDTO.setAction(rs.getString("action"));
+                    auditDTO.setActor(rs.getString("actor"));
+                    auditDTO.setChangedAt(rs.getTimestamp("changed_at").toInstant().toString());
+                    auditDTO.setChanges(fromJson(rs.getString("changes")));
+                    return auditDTO;
+                },
+                tenant, patientId);
+    }
+
+    private String toJson(Map<String, Map<String, String>> changes) {
+        try {
+            return objectMapper.writeValueAsString(changes);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize audit changes", e);
+        }
+    }
+
+    private Map<String, Map<String, String>> fromJson(String changes) {
+        try {
+            return objectMapper.readValue(changes, CHANGES_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not read audit changes", e);
+        }
+    }
+}
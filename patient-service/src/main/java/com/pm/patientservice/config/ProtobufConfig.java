@@ -0,0 +1,16 @@
+package com.pm.patientservice.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.protobuf.ProtobufHttpMessageConverter;
+
+@Configuration
+public class ProtobufConfig {
+
+    // Spring Boot adds HttpMessageConverter beans to MVC, this one only handles protobuf Message types
+    // so the JSON DTOs keep going through Jackson
+    @Bean
+    public ProtobufHttpMessageConverter protobufHttpMessageConverter() {
+        return new ProtobufHttpMessageConverter();
+    }
+}
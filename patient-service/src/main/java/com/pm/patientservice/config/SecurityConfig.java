@@ -0,0 +1,54 @@
+package com.pm.patientservice.config;
+
+import com.pm.patientservice.security.TrustedIdentityFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+
+// Role based access to /patients from the identity forwarded by the api-gateway (TrustedIdentityFilter).
+// Any authenticated user can read patients, only ADMIN can change them, export them, read their audit trail or review duplicates,
+// all within their own tenant. The shards span every tenant: only a platform OPERATOR, a user without a tenant, can manage them.
+@Configuration
+public class SecurityConfig {
+    public static final String ADMIN = "ADMIN";
+    public static final String OPERATOR = "OPERATOR";
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   @Value("${identity.gateway-token:}") String gatewayToken) throws Exception {
+        http.authorizeHttpRequests(authorize -> authorize
+                        .requestMatchers("/actuator/**", "/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html", "/error").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/patients/export", "/patients/*/audit").hasRole(ADMIN)
+                        .requestMatchers("/patients/shards", "/patients/shards/**").hasRole(OPERATOR)
+                        .requestMatchers("/patients/duplicates", "/patients/duplicates/**").hasRole(ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/patients", "/patients/**").authenticated()
+                        .requestMatchers("/patients", "/patients/**").hasRole(ADMIN)
+                        .anyRequest().authenticated())
+                .addFilterBefore(new TrustedIdentityFilter(gatewayToken), AnonymousAuthenticationFilter.class)
+                // Stateless: the identity comes with every request, nothing is kept in a session
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .requestCache(AbstractHttpConfigurer::disable)
+                .csrf(AbstractHttpConfigurer::disable)
+                .formLogin(AbstractHttpConfigurer::disable)
+                .httpBasic(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        return http.build();
+    }
+
+    // No local users: keeps Spring Boot from generating a default user and logging its password
+    @Bean
+    public UserDetailsService userDetailsService() {
+        return new InMemoryUserDetailsManager();
+    }
+}
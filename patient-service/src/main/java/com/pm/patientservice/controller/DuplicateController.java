@@ -0,0 +1,74 @@
+package com.pm.patientservice.controller;
+
+import com.pm.patientservice.dto.DuplicateCandidateDTO;
+import com.pm.patientservice.duplicate.DuplicateDetector;
+import com.pm.patientservice.duplicate.DuplicateStatus;
+import com.pm.patientservice.duplicate.DuplicateSweep;
+import com.pm.patientservice.sharding.ShardRouter;
+import com.pm.patientservice.sharding.TenantContext;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Review of the suspected duplicate patients of the current tenant (DuplicateDetector)
+@RestController
+@RequestMapping("/patients/duplicates")
+@Tag(name = "Duplicates", description = "an API to review patients that look registered more than once")
+public class DuplicateController {
+    private static final int MAX_LIMIT = 1000;
+
+    private final DuplicateDetector duplicateDetector;
+    private final ShardRouter shardRouter;
+
+    public DuplicateController(DuplicateDetector duplicateDetector, ShardRouter shardRouter) {
+        this.duplicateDetector = duplicateDetector;
+        this.shardRouter = shardRouter;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get suspected duplicates", description = "Lists the suspected duplicate pairs with a review status, highest score first")
+    public ResponseEntity<List<DuplicateCandidateDTO>> getDuplicates(
+            @RequestParam(defaultValue = "OPEN") DuplicateStatus status,
+            @RequestParam(defaultValue = "100") int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return ResponseEntity.ok().body(duplicateDetector.candidates(tenant(), status, boundedLimit));
+    }
+
+    @PutMapping("/{patientId}/{otherPatientId}")
+    @Operation(summary = "Review suspected duplicate", description = "Marks a pair as CONFIRMED or DISMISSED, a dismissed pair isn't reopened by later sweeps")
+    public ResponseEntity<Void> reviewDuplicate(@PathVariable UUID patientId,
+                                                @PathVariable UUID otherPatientId,
+                                                @RequestParam DuplicateStatus status) {
+        boolean updated = duplicateDetector.review(tenant(), patientId, otherPatientId, status);
+        return updated ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/sweep")
+    @Operation(summary = "Sweep tenant", description = "Rebuilds the blocking keys of every patient and rescores every block, follow it with GET /patients/duplicates/sweeps")
+    public ResponseEntity<DuplicateSweep> sweep() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(duplicateDetector.sweep(tenant()));
+    }
+
+    @GetMapping("/sweeps")
+    @Operation(summary = "Get sweeps", description = "Retrieves the last duplicate sweep of the tenant started since this instance started")
+    public ResponseEntity<Collection<DuplicateSweep>> getSweeps() {
+        return ResponseEntity.ok().body(duplicateDetector.sweeps(tenant()));
+    }
+
+    // Sweep of the tenant already running
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleRunningSweep(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", ex.getMessage()));
+    }
+
+    private String tenant() {
+        return shardRouter.tenantOrDefault(TenantContext.current());
+    }
+}
@@ -1,34 +1,56 @@
 package com.pm.patientservice.controller;
 
+import com.pm.patientservice.dto.PatientAuditResponseDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.export.PatientExportService;
+import com.pm.patientservice.mapper.PatientProtoMapper;
 import com.pm.patientservice.service.PatientService;
+import com.pm.patientservice.sharding.TenantContext;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.groups.Default;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import patient.api.PatientListResponse;
+import patient.api.PatientRequest;
+import patient.api.PatientResponse;
 
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/patients")
 @Tag(name = "Patient", description = "an API for patient management")
 public class PatientController {
+    public static final String APPLICATION_PROTOBUF = "application/x-protobuf";
+
     //Dependency injection
     private final PatientService patientService;
+    private final PatientExportService patientExportService;
+    private final Validator validator;
 
-    public PatientController(PatientService patientService){
+    public PatientController(PatientService patientService, PatientExportService patientExportService, Validator validator){
         this.patientService = patientService;
+        this.patientExportService = patientExportService;
+        this.validator = validator;
     }
 
     @GetMapping // Maps HTTP GET requests to this method
-    @Operation(summary = "Get patients", description = "Retrieves a list of all patients")
-    public ResponseEntity<List<PatientResponseDTO>> getPatients() { // ResponseEntity a spring entity that creates a HTTP response
-        List<PatientResponseDTO> patients = patientService.getPatients();
+    @Operation(summary = "Get patients", description = "Retrieves a list of all patients, fields=id,name returns only those fields")
+    public ResponseEntity<List<PatientResponseDTO>> getPatients( // ResponseEntity a spring entity that creates a HTTP response
+            @RequestParam(required = false) Set<String> fields) {
+        List<PatientResponseDTO> patients = patientService.getPatients(fields);
         return ResponseEntity.ok().body(patients);
     }
 
@@ -56,4 +78,57 @@ public class PatientController {
         patientService.deletePatient(id); // Calls the service to delete the patient
         return ResponseEntity.noContent().build(); // Returns a 204 No Content response indicating successful deletion
     }
+
+    @GetMapping("/{id}/audit") // Maps HTTP GET requests for the change history of one patient
+    @Operation(summary = "Get patient history", description = "Retrieves the audited changes of a patient, oldest first")
+    public ResponseEntity<List<PatientAuditResponseDTO>> getPatientAudit(@PathVariable UUID id) {
+        return ResponseEntity.ok().body(patientService.getPatientAudit(id));
+    }
+
+    @GetMapping("/export") // Streams every patient as CSV, rows are sent while they are read from the database
+    @Operation(summary = "Export patients", description = "Streams all patients as CSV ordered by id, resume an interrupted export with afterId")
+    public ResponseEntity<StreamingResponseBody> exportPatients(
+            @RequestParam(required = false) UUID afterId,
+            @RequestParam(required = false) UUID untilId,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        String tenant = TenantContext.current();
+        StreamingResponseBody body = outputStream -> patientExportService.exportCsv(outputStream, tenant, afterId, untilId, gzip);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"patients.csv" + (gzip ? ".gz" : "") + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv"))
+                .body(body);
+    }
+
+    // Protobuf variants: selected when the client sends "Accept: application/x-protobuf" or a protobuf request body,
+    // any other request (including Accept: */*) keeps getting JSON from the handlers above
+    @GetMapping(produces = APPLICATION_PROTOBUF)
+    @Operation(summary = "Get patients (protobuf)", description = "Retrieves a list of all patients as a PatientListResponse message")
+    public ResponseEntity<PatientListResponse> getPatientsProto(@RequestParam(required = false) Set<String> fields) {
+        return ResponseEntity.ok().body(PatientProtoMapper.toProto(patientService.getPatients(fields)));
+    }
+
+    @PostMapping(consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    @Operation(summary = "Create patient (protobuf)", description = "Creates a new patient from a PatientRequest message")
+    public ResponseEntity<PatientResponse> createPatientProto(@RequestBody PatientRequest patientRequest) {
+        PatientRequestDTO patientRequestDTO = validate(PatientProtoMapper.toDTO(patientRequest));
+        PatientResponseDTO patientResponseDTO = patientService.createPatient(patientRequestDTO);
+        return ResponseEntity.ok().body(PatientProtoMapper.toProto(patientResponseDTO));
+    }
+
+    @PutMapping(value = "/{id}", consumes = APPLICATION_PROTOBUF, produces = APPLICATION_PROTOBUF)
+    @Operation(summary = "Update patient (protobuf)", description = "Updates an existing patient by ID from a PatientRequest message")
+    public ResponseEntity<PatientResponse> updatePatientProto(@PathVariable UUID id, @RequestBody PatientRequest patientRequest) {
+        PatientRequestDTO patientRequestDTO = validate(PatientProtoMapper.toDTO(patientRequest));
+        PatientResponseDTO patientResponseDTO = patientService.updatePatient(id, patientRequestDTO);
+        return ResponseEntity.ok().body(PatientProtoMapper.toProto(patientResponseDTO));
+    }
+
+    // @Valid only works on the bound argument, protobuf bodies are mapped first so the DTO constraints are checked here
+    private PatientRequestDTO validate(PatientRequestDTO patientRequestDTO) {
+        Set<ConstraintViolation<PatientRequestDTO>> violations = validator.validate(patientRequestDTO, Default.class);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return patientRequestDTO;
+    }
 }
@@ -0,0 +1,112 @@
+package com.pm.patientservice.controller;
+
+import com.pm.patientservice.dto.ShardPatientDTO;
+import com.pm.patientservice.dto.ShardSummaryDTO;
+import com.pm.patientservice.sharding.ShardQueryExecutor;
+import com.pm.patientservice.sharding.ShardRouter;
+import com.pm.patientservice.sharding.TenantMove;
+import com.pm.patientservice.sharding.TenantRebalancer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Operations on the shards themselves, every query here goes to all shards at once (ShardQueryExecutor)
+@RestController
+@RequestMapping("/patients/shards")
+@Tag(name = "Shards", description = "an API to inspect and rebalance the patient shards")
+public class ShardAdminController {
+    private final ShardQueryExecutor shardQueryExecutor;
+    private final ShardRouter shardRouter;
+    private final TenantRebalancer tenantRebalancer;
+
+    public ShardAdminController(ShardQueryExecutor shardQueryExecutor, ShardRouter shardRouter, TenantRebalancer tenantRebalancer) {
+        this.shardQueryExecutor = shardQueryExecutor;
+        this.shardRouter = shardRouter;
+        this.tenantRebalancer = tenantRebalancer;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get shards", description = "Counts the live patients of every tenant on every shard")
+    public ResponseEntity<List<ShardSummaryDTO>> getShards() {
+        List<ShardSummaryDTO> summaries = shardQueryExecutor.<Map.Entry<String, Long>>scatterGather(jdbc -> jdbc.query(
+                        "SELECT tenant_id, COUNT(*) FROM patient WHERE deleted_at IS NULL GROUP BY tenant_id ORDER BY tenant_id",
+                        (rs, rowNum) -> Map.entry(rs.getString(1), rs.getLong(2))))
+                .stream()
+                .map(result -> {
+                    Map<String, Long> tenants = new LinkedHashMap<>();
+                    result.rows().forEach(row -> tenants.put(row.getKey(), row.getValue()));
+                    ShardSummaryDTO summary = new ShardSummaryDTO();
+                    summary.setShard(result.shard());
+                    summary.setTenants(tenants);
+                    summary.setPatients(tenants.values().stream().mapToLong(Long::longValue).sum());
+                    return summary;
+                })
+                .toList();
+        return ResponseEntity.ok().body(summaries);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Search all shards", description = "Finds the live patients with an email address across every tenant and shard")
+    public ResponseEntity<List<ShardPatientDTO>> search(@RequestParam String email) {
+        List<ShardPatientDTO> patients = new ArrayList<>();
+        shardQueryExecutor.scatterGather(jdbc -> jdbc.query(
+                        "SELECT id, tenant_id, name, email FROM patient WHERE email = ? AND deleted_at IS NULL",
+                        (rs, rowNum) -> {
+                            ShardPatientDTO patient = new ShardPatientDTO();
+                            patient.setId(rs.getString("id"));
+                            patient.setTenantId(rs.getString("tenant_id"));
+                            patient.setName(rs.getString("name"));
+                            patient.setEmail(rs.getString("email"));
+                            return patient;
+                        }, email))
+                .forEach(result -> result.rows().forEach(patient -> {
+                    patient.setShard(result.shard());
+                    patients.add(patient);
+                }));
+        return ResponseEntity.ok().body(patients);
+    }
+
+    @GetMapping("/plan")
+    @Operation(summary = "Get rebalance plan", description = "Lists the tenants that are not on the shard the hash ring would pick for them today, e.g. after adding a shard")
+    public ResponseEntity<Map<String, Map<String, String>>> getPlan() {
+        Map<String, Map<String, String>> plan = new LinkedHashMap<>();
+        shardRouter.placements().forEach((tenant, placement) -> {
+            String target = shardRouter.ringShard(tenant);
+            if (!target.equals(placement.shard())) {
+                plan.put(tenant, Map.of("current", placement.shard(), "target", target));
+            }
+        });
+        return ResponseEntity.ok().body(plan);
+    }
+
+    @PostMapping("/tenants/{tenantId}/move")
+    @Operation(summary = "Move tenant", description = "Starts moving a tenant to another shard, follow it with GET /patients/shards/moves")
+    public ResponseEntity<TenantMove> moveTenant(@PathVariable String tenantId, @RequestParam String target) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(tenantRebalancer.move(tenantId, target));
+    }
+
+    @GetMapping("/moves")
+    @Operation(summary = "Get tenant moves", description = "Retrieves the tenant moves started since this instance started")
+    public ResponseEntity<Collection<TenantMove>> getMoves() {
+        return ResponseEntity.ok().body(tenantRebalancer.moves());
+    }
+
+    // Unknown target shard or tenant already there (400), move of that tenant already running (409)
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidMove(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest().body(Map.of("message", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, String>> handleConflictingMove(IllegalStateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", ex.getMessage()));
+    }
+}
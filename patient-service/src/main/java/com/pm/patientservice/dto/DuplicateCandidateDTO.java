@@ -0,0 +1,77 @@
+package com.pm.patientservice.dto;
+
+// A suspected duplicate pair for review, the names are those of the live patients at the time of the request
+public class DuplicateCandidateDTO {
+    private String patientId;
+    private String patientName;
+    private String otherPatientId;
+    private String otherPatientName;
+    private double score;
+    private String reasons;
+    private String status;
+    private String detectedAt;
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
+    public String getPatientName() {
+        return patientName;
+    }
+
+    public void setPatientName(String patientName) {
+        this.patientName = patientName;
+    }
+
+    public String getOtherPatientId() {
+        return otherPatientId;
+    }
+
+    public void setOtherPatientId(String otherPatientId) {
+        this.otherPatientId = otherPatientId;
+    }
+
+    public String getOtherPatientName() {
+        return otherPatientName;
+    }
+
+    public void setOtherPatientName(String otherPatientName) {
+        this.otherPatientName = otherPatientName;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    public String getReasons() {
+        return reasons;
+    }
+
+    public void setReasons(String reasons) {
+        this.reasons = reasons;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getDetectedAt() {
+        return detectedAt;
+    }
+
+    public void setDetectedAt(String detectedAt) {
+        this.detectedAt = detectedAt;
+    }
+}
@@ -0,0 +1,43 @@
+package com.pm.patientservice.dto;
+
+import java.util.Map;
+
+// One entry of a patient's change history, changes maps each modified field to its "before" and "after" value
+public class PatientAuditResponseDTO {
+    private String action;
+    private String actor;
+    private String changedAt;
+    private Map<String, Map<String, String>> changes;
+
+    public String getAction() {
+        return action;
+    }
+
+    public void setAction(String action) {
+        this.action = action;
+    }
+
+    public String getActor() {
+        return actor;
+    }
+
+    public void setActor(String actor) {
+        this.actor = actor;
+    }
+
+    public String getChangedAt() {
+        return changedAt;
+    }
+
+    public void setChangedAt(String changedAt) {
+        this.changedAt = changedAt;
+    }
+
+    public Map<String, Map<String, String>> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Map<String, Map<String, String>> changes) {
+        this.changes = changes;
+    }
+}
@@ -1,7 +1,10 @@
 package com.pm.patientservice.dto;
 
-// This class represents the data transfer object for patient responses.
+import com.fasterxml.jackson.annotation.JsonInclude;
 
+// This class represents the data transfer object for patient responses.
+// Every field is mandatory on a patient, so a null field is one left out by a sparse fieldset (fields=) and is not serialized.
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PatientResponseDTO {
     private String id;
     private String name;
@@ -9,6 +12,17 @@ public class PatientResponseDTO {
     private String address;
     private String dateOfBirth;
 
+    public PatientResponseDTO() {
+    }
+
+    // Used by the JPQL constructor projection in PatientReadRepository
+    public PatientResponseDTO(String id, String name, String email, String address, String dateOfBirth) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.address = address;
+        this.dateOfBirth = dateOfBirth;
+    }
 
     public String getId() {
         return id;
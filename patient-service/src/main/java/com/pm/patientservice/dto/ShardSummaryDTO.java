@@ -0,0 +1,34 @@
+package com.pm.patientservice.dto;
+
+import java.util.Map;
+
+// Live patients per tenant on one shard
+public class ShardSummaryDTO {
+    private String shard;
+    private long patients;
+    private Map<String, Long> tenants;
+
+    public String getShard() {
+        return shard;
+    }
+
+    public void setShard(String shard) {
+        this.shard = shard;
+    }
+
+    public long getPatients() {
+        return patients;
+    }
+
+    public void setPatients(long patients) {
+        this.patients = patients;
+    }
+
+    public Map<String, Long> getTenants() {
+        return tenants;
+    }
+
+    public void setTenants(Map<String, Long> tenants) {
+        this.tenants = tenants;
+    }
+}
@@ -0,0 +1,115 @@
+package com.pm.patientservice.duplicate;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+// Blocking keys: two patients are only compared when they share at least one key, instead of every patient against every other.
+// n:<soundex of a name token>:<date of birth>  same birthday and a name part that sounds alike ("Jon Smith" / "John Smyth", "Doe Jane")
+// f:<soundex of first and last name token>     the whole name sounds alike, catches a mistyped date of birth
+// a:<house number>:<street token>              same address, whatever the name (maiden name, nickname)
+public final class BlockingKeys {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    // Same street written differently should give the same tokens
+    private static final Map<String, String> ADDRESS_ABBREVIATIONS = Map.ofEntries(
+            Map.entry("street", "st"), Map.entry("avenue", "ave"), Map.entry("av", "ave"), Map.entry("road", "rd"),
+            Map.entry("boulevard", "blvd"), Map.entry("drive", "dr"), Map.entry("lane", "ln"), Map.entry("court", "ct"),
+            Map.entry("place", "pl"), Map.entry("square", "sq"), Map.entry("apartment", "apt"), Map.entry("north", "n"),
+            Map.entry("south", "s"), Map.entry("east", "e"), Map.entry("west", "w"));
+    private static final Set<String> ADDRESS_STOP_WORDS = Set.of("st", "ave", "rd", "blvd", "dr", "ln", "ct", "pl", "sq", "apt",
+            "n", "s", "e", "w", "the", "of", "unit", "suite", "floor");
+
+    private BlockingKeys() {
+    }
+
+    public static Set<String> of(MatchRecord patient) {
+        Set<String> keys = new LinkedHashSet<>();
+        List<String> nameTokens = nameTokens(patient.name());
+        if (patient.dateOfBirth() != null) {
+            for (String token : nameTokens) {
+                keys.add("n:" + soundex(token) + ":" + patient.dateOfBirth());
+            }
+        }
+        if (nameTokens.size() >= 2) {
+            keys.add("f:" + soundex(nameTokens.get(0)) + soundex(nameTokens.get(nameTokens.size() - 1)));
+        }
+        List<String> addressTokens = addressTokens(patient.address());
+        String number = addressTokens.stream().filter(BlockingKeys::isNumber).findFirst().orElse(null);
+        String street = addressTokens.stream().filter(token -> !isNumber(token) && !ADDRESS_STOP_WORDS.contains(token))
+                .findFirst().orElse(null);
+        if (number != null && street != null) {
+            keys.add("a:" + number + ":" + street);
+        }
+        return keys;
+    }
+
+    // Lower case, no accents, words separated by single spaces
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return NON_ALPHANUMERIC.matcher(decomposed.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    static List<String> nameTokens(String name) {
+        String normalized = normalize(name);
+        return normalized.isEmpty() ? List.of() : Arrays.stream(normalized.split(" "))
+                .filter(token -> token.length() >= 2 && !isNumber(token))
+                .toList();
+    }
+
+    static List<String> addressTokens(String address) {
+        String normalized = normalize(address);
+        return normalized.isEmpty() ? List.of() : Arrays.stream(normalized.split(" "))
+                .map(token -> ADDRESS_ABBREVIATIONS.getOrDefault(token, token))
+                .toList();
+    }
+
+    // American Soundex: first letter plus three digits for the following consonant groups, "Robert" and "Rupert" -> R163
+    static String soundex(String token) {
+        StringBuilder code = new StringBuilder(4);
+        char last = 0;
+        for (int i = 0; i < token.length() && code.length() < 4; i++) {
+            char c = token.charAt(i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char digit = soundexDigit(c);
+            if (code.isEmpty()) {
+                code.append(Character.toUpperCase(c));
+            } else if (digit != '0' && digit != last) {
+                code.append(digit);
+            }
+            // h and w don't separate two consonants with the same code, vowels do
+            if (c != 'h' && c != 'w') {
+                last = digit;
+            }
+        }
+        while (code.length() < 4) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+
+    private static char soundexDigit(char c) {
+        return switch (c) {
+            case 'b', 'f', 'p', 'v' -> '1';
+            case 'c', 'g', 'j', 'k', 'q', 's', 'x', 'z' -> '2';
+            case 'd', 't' -> '3';
+            case 'l' -> '4';
+            case 'm', 'n' -> '5';
+            case 'r' -> '6';
+            default -> '0';
+        };
+    }
+
+    private static boolean isNumber(String token) {
+        return !token.isEmpty() && token.chars().allMatch(Character::isDigit);
+    }
+}
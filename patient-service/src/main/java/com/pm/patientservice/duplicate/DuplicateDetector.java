@@ -0,0 +1,302 @@
+package com.pm.patientservice.duplicate;
+
+import com.pm.patientservice.dto.DuplicateCandidateDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Finds patients registered more than once (another email, a typo in the name or date of birth) without comparing
+// everyone with everyone: only patients sharing a blocking key (BlockingKeys) are scored (SimilarityScorer).
+// - incremental: creates and updates put the patient on a bounded queue, a background thread refreshes its keys
+//   and scores it against its blocks, so requests don't wait for matching
+// - sweep: rebuilds the keys of a whole tenant, then scores every block on duplicates.sweep.parallelism threads
+// Pairs scoring at least duplicates.min-score are stored for review (GET /patients/duplicates).
+@Service
+public class DuplicateDetector {
+    private static final Logger log = LoggerFactory.getLogger(DuplicateDetector.class);
+
+    // patient is null when the patient was deleted
+    private record Change(String tenant, UUID patientId, MatchRecord patient) {
+    }
+
+    private final DuplicateRepository duplicateRepository;
+    private final double minScore;
+    private final int maxBlockSize;
+    private final int batchSize;
+    private final int fetchSize;
+    private final int parallelism;
+    private final BlockingQueue<Change> queue;
+    private final Counter checked;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Thread worker;
+    private final Map<String, DuplicateSweep> sweeps = new ConcurrentHashMap<>();
+    private final ExecutorService sweepRunner = Executors.newSingleThreadExecutor(task -> new Thread(task, "duplicate-sweep"));
+    private final ExecutorService matchers;
+    private volatile boolean running = true;
+
+    public DuplicateDetector(DuplicateRepository duplicateRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${duplicates.min-score:0.8}") double minScore,
+                             @Value("${duplicates.max-block-size:500}") int maxBlockSize,
+                             @Value("${duplicates.queue-capacity:8192}") int queueCapacity,
+                             @Value("${duplicates.sweep.batch-size:1000}") int batchSize,
+                             @Value("${duplicates.sweep.fetch-size:1000}") int fetchSize,
+                             @Value("${duplicates.sweep.parallelism:4}") int parallelism) {
+        this.duplicateRepository = duplicateRepository;
+        this.minScore = minScore;
+        this.maxBlockSize = maxBlockSize;
+        this.batchSize = batchSize;
+        this.fetchSize = fetchSize;
+        this.parallelism = parallelism;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.checked = meterRegistry.counter("duplicates.checks", "result", "checked");
+        this.dropped = meterRegistry.counter("duplicates.checks", "result", "dropped");
+        this.failed = meterRegistry.counter("duplicates.checks", "result", "failed");
+        Gauge.builder("duplicates.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.matchers = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "duplicate-matcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.worker = new Thread(this::drain, "duplicate-detector");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public void patientChanged(String tenant, MatchRecord patient) {
+        enqueue(new Change(tenant, patient.id(), patient));
+    }
+
+    public void patientRemoved(String tenant, UUID patientId) {
+        enqueue(new Change(tenant, patientId, null));
+    }
+
+    private void enqueue(Change change) {
+        if (!queue.offer(change)) {
+            dropped.increment();
+            log.warn("Duplicate check queue full, patient {} is only matched again by the next sweep", change.patientId());
+        }
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Change change = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (change == null) {
+                    continue;
+                }
+                if (change.patient() == null) {
+                    duplicateRepository.removePatient(change.patientId());
+                } else {
+                    check(change.tenant(), change.patient());
+                }
+                checked.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Duplicate check failed", e);
+            }
+        }
+    }
+
+    // Refreshes the keys of one patient and scores it against everyone sharing a (not oversized) block with it
+    void check(String tenant, MatchRecord patient) {
+        Set<String> keys = BlockingKeys.of(patient);
+        duplicateRepository.replaceKeys(tenant, Map.of(patient.id(), keys));
+        Map<String, Integer> blockSizes = duplicateRepository.blockSizes(tenant, keys);
+        List<String> usableKeys = keys.stream().filter(key -> blockSizes.getOrDefault(key, 0) <= maxBlockSize).toList();
+        Set<UUID> candidates = duplicateRepository.patientsSharing(tenant, usableKeys, patient.id());
+
+        // The patient may have changed since its pairs were found, unreviewed ones are recomputed
+        duplicateRepository.deleteOpenCandidates(patient.id());
+        for (MatchRecord other : duplicateRepository.loadPatients(tenant, candidates).values()) {
+            MatchScore score = SimilarityScorer.score(patient, other);
+            if (score.score() >= minScore) {
+                duplicateRepository.saveCandidate(tenant, patient.id(), other.id(), score);
+            }
+        }
+    }
+
+    // Highest scores first, with the names of both patients for the reviewer
+    public List<DuplicateCandidateDTO> candidates(String tenant, DuplicateStatus status, int limit) {
+        List<DuplicateCandidateDTO> candidates = duplicateRepository.findCandidates(tenant, status, limit);
+        Set<UUID> ids = new HashSet<>();
+        candidates.forEach(candidate -> {
+            ids.add(UUID.fromString(candidate.getPatientId()));
+            ids.add(UUID.fromString(candidate.getOtherPatientId()));
+        });
+        Map<UUID, MatchRecord> patients = duplicateRepository.loadPatients(tenant, ids);
+        candidates.forEach(candidate -> {
+            candidate.setPatientName(name(patients, candidate.getPatientId()));
+            candidate.setOtherPatientName(name(patients, candidate.getOtherPatientId()));
+        });
+        return candidates;
+    }
+
+    private static String name(Map<UUID, MatchRecord> patients, String id) {
+        MatchRecord patient = patients.get(UUID.fromString(id));
+        return patient != null ? patient.name() : null;
+    }
+
+    public boolean review(String tenant, UUID patientId, UUID otherPatientId, DuplicateStatus status) {
+        return duplicateRepository.updateStatus(tenant, patientId, otherPatientId, status);
+    }
+
+    public synchronized DuplicateSweep sweep(String tenant) {
+        DuplicateSweep current = sweeps.get(tenant);
+        if (current != null && !current.isFinished()) {
+            throw new IllegalStateException("A duplicate sweep of tenant " + tenant + " is already running");
+        }
+        DuplicateSweep sweep = new DuplicateSweep(tenant);
+        sweeps.put(tenant, sweep);
+        sweepRunner.submit(() -> runSweep(sweep));
+        return sweep;
+    }
+
+    public Collection<DuplicateSweep> sweeps(String tenant) {
+        DuplicateSweep sweep = sweeps.get(tenant);
+        return sweep != null ? List.of(sweep) : List.of();
+    }
+
+    private void runSweep(DuplicateSweep sweep) {
+        String tenant = sweep.getTenantId();
+        long start = System.nanoTime();
+        try {
+            // 1. keys of every live patient, written in batches while the cursor moves on
+            sweep.setState(DuplicateSweep.State.INDEXING);
+            ParallelTasks indexing = new ParallelTasks();
+            Map<UUID, Set<String>> batch = new LinkedHashMap<>();
+            duplicateRepository.forEachPatient(tenant, fetchSize, patient -> {
+                batch.put(patient.id(), BlockingKeys.of(patient));
+                if (batch.size() >= batchSize) {
+                    Map<UUID, Set<String>> keys = Map.copyOf(batch);
+                    batch.clear();
+                    indexing.submit(() -> index(sweep, keys));
+                }
+            });
+            if (!batch.isEmpty()) {
+                Map<UUID, Set<String>> keys = Map.copyOf(batch);
+                indexing.submit(() -> index(sweep, keys));
+            }
+            indexing.await();
+
+            // 2. every block is scored on its own, a pair found in several blocks is saved once
+            sweep.setState(DuplicateSweep.State.MATCHING);
+            ParallelTasks matching = new ParallelTasks();
+            sweep.setSkippedBlocks(duplicateRepository.forEachBlock(tenant, maxBlockSize, fetchSize,
+                    block -> matching.submit(() -> matchBlock(sweep, block))));
+            matching.await();
+
+            sweep.setState(DuplicateSweep.State.DONE);
+            log.info("Duplicate sweep of tenant {} finished in {}: {} patients, {} pairs compared, {} suspected",
+                    tenant, Duration.ofNanos(System.nanoTime() - start), sweep.getIndexedPatients(),
+                    sweep.getComparedPairs(), sweep.getSuspectedPairs());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Duplicate sweep of tenant {} failed", tenant, e);
+            sweep.fail(e.getMessage());
+        }
+    }
+
+    private void index(DuplicateSweep sweep, Map<UUID, Set<String>> keys) {
+        duplicateRepository.replaceKeys(sweep.getTenantId(), keys);
+        sweep.addIndexedPatients(keys.size());
+    }
+
+    private void matchBlock(DuplicateSweep sweep, List<UUID> block) {
+        String tenant = sweep.getTenantId();
+        Map<UUID, MatchRecord> patients = duplicateRepository.loadPatients(tenant, block);
+        // Keys of patients deleted since they were indexed
+        block.stream().filter(id -> !patients.containsKey(id)).forEach(duplicateRepository::removePatient);
+
+        List<MatchRecord> live = List.copyOf(patients.values());
+        long pairs = 0;
+        long suspected = 0;
+        for (int i = 0; i < live.size(); i++) {
+            for (int j = i + 1; j < live.size(); j++) {
+                pairs++;
+                MatchScore score = SimilarityScorer.score(live.get(i), live.get(j));
+                if (score.score() >= minScore) {
+                    duplicateRepository.saveCandidate(tenant, live.get(i).id(), live.get(j).id(), score);
+                    suspected++;
+                }
+            }
+        }
+        sweep.addComparedBlock(pairs, suspected);
+    }
+
+    // Runs tasks on the matcher pool with at most twice its size queued, so the cursor feeding it can't run ahead,
+    // and rethrows the first failure from await()
+    private class ParallelTasks {
+        private final Semaphore permits = new Semaphore(parallelism * 2);
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        void submit(Runnable task) {
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            permits.acquireUninterruptibly();
+            try {
+                matchers.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        void await() throws InterruptedException {
+            permits.acquire(parallelism * 2);
+            permits.release(parallelism * 2);
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        worker.join(2000);
+        sweepRunner.shutdownNow();
+        matchers.shutdownNow();
+    }
+}
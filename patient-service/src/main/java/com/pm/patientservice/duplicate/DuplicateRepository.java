@@ -0,0 +1,226 @@
+package com.pm.patientservice.duplicate;
+
+import com.pm.patientservice.dto.DuplicateCandidateDTO;
+import com.pm.patientservice.sharding.ShardDataSources;
+import com.pm.patientservice.sharding.ShardRouter;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Blocking keys and suspected pairs live on the directory shard like the audit trail, so a tenant move doesn't touch them.
+// The patients themselves are read from the tenant's shard with plain JDBC, matching runs outside of any request.
+@Repository
+public class DuplicateRepository {
+    private static final String CANDIDATE_COLUMNS = "patient_id, other_patient_id, score, reasons, status, detected_at";
+
+    private final ShardDataSources shards;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate directory;
+    private final NamedParameterJdbcTemplate namedDirectory;
+    private final TransactionTemplate directoryTransaction;
+
+    public DuplicateRepository(ShardDataSources shards, ShardRouter shardRouter) {
+        this.shards = shards;
+        this.shardRouter = shardRouter;
+        this.directory = new JdbcTemplate(shards.directory());
+        this.namedDirectory = new NamedParameterJdbcTemplate(directory);
+        this.directoryTransaction = new TransactionTemplate(new DataSourceTransactionManager(shards.directory()));
+    }
+
+    // Keys of several patients in one transaction, one batch for the deletes and one for the inserts
+    public void replaceKeys(String tenant, Map<UUID, Set<String>> keysByPatient) {
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        keysByPatient.forEach((patientId, keys) -> {
+            deletes.add(new Object[]{patientId});
+            keys.forEach(key -> inserts.add(new Object[]{tenant, key, patientId}));
+        });
+        directoryTransaction.executeWithoutResult(status -> {
+            directory.batchUpdate("DELETE FROM patient_blocking_key WHERE patient_id = ?", deletes);
+            directory.batchUpdate("INSERT INTO patient_blocking_key (tenant_id, blocking_key, patient_id) VALUES (?, ?, ?)", inserts);
+        });
+    }
+
+    // A removed patient leaves every block, its pairs that nobody reviewed yet go with it
+    public void removePatient(UUID patientId) {
+        directoryTransaction.executeWithoutResult(status -> {
+            directory.update("DELETE FROM patient_blocking_key WHERE patient_id = ?", patientId);
+            deleteOpenCandidates(patientId);
+        });
+    }
+
+    public void deleteOpenCandidates(UUID patientId) {
+        directory.update("DELETE FROM patient_duplicate_candidate WHERE status = ? AND (patient_id = ? OR other_patient_id = ?)",
+                DuplicateStatus.OPEN.name(), patientId, patientId);
+    }
+
+    public Map<String, Integer> blockSizes(String tenant, Collection<String> keys) {
+        Map<String, Integer> sizes = new HashMap<>();
+        if (keys.isEmpty()) {
+            return sizes;
+        }
+        namedDirectory.query(
+                "SELECT blocking_key, COUNT(*) FROM patient_blocking_key WHERE tenant_id = :tenant AND blocking_key IN (:keys) GROUP BY blocking_key",
+                new MapSqlParameterSource("tenant", tenant).addValue("keys", keys),
+                rs -> {
+                    sizes.put(rs.getString(1), rs.getInt(2));
+                });
+        return sizes;
+    }
+
+    public Set<UUID> patientsSharing(String tenant, Collection<String> keys, UUID excluded) {
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedDirectory.query(
+                "SELECT DISTINCT patient_id FROM patient_blocking_key WHERE tenant_id = :tenant AND blocking_key IN (:keys) AND patient_id <> :excluded",
+                new MapSqlParameterSource("tenant", tenant).addValue("keys", keys).addValue("excluded", excluded),
+                (rs, rowNum) -> rs.getObject(1, UUID.class)));
+    }
+
+    // Walks every block of the tenant in key order from a cursor, blocks larger than maxBlockSize are skipped
+    // (a key shared by that many patients doesn't tell them apart). Returns the number of skipped blocks.
+    public long forEachBlock(String tenant, int maxBlockSize, int fetchSize, Consumer<List<UUID>> action) {
+        long[] skipped = {0};
+        directoryTransaction.executeWithoutResult(status -> {
+            String[] currentKey = {null};
+            List<UUID> block = new ArrayList<>();
+            directory.query(connection -> {
+                var statement = connection.prepareStatement(
+                        "SELECT blocking_key, patient_id FROM patient_blocking_key WHERE tenant_id = ? ORDER BY blocking_key, patient_id");
+                statement.setFetchSize(fetchSize);
+                statement.setString(1, tenant);
+                return statement;
+            }, rs -> {
+                String key = rs.getString(1);
+                if (!key.equals(currentKey[0])) {
+                    skipped[0] += emitBlock(block, maxBlockSize, action);
+                    block.clear();
+                    currentKey[0] = key;
+                }
+                if (block.size() <= maxBlockSize) {
+                    block.add(rs.getObject(2, UUID.class));
+                }
+            });
+            skipped[0] += emitBlock(block, maxBlockSize, action);
+        });
+        return skipped[0];
+    }
+
+    private static int emitBlock(List<UUID> block, int maxBlockSize, Consumer<List<UUID>> action) {
+        if (block.size() > maxBlockSize) {
+            return 1;
+        }
+        if (block.size() >= 2) {
+            action.accept(List.copyOf(block));
+        }
+        return 0;
+    }
+
+    // Pairs are stored once, lowest id first. Finding a pair again refreshes its score but keeps the review decision.
+    public void saveCandidate(String tenant, UUID a, UUID b, MatchScore score) {
+        UUID first = a.compareTo(b) < 0 ? a : b;
+        UUID second = first == a ? b : a;
+        if (updateCandidate(tenant, first, second, score) > 0) {
+            return;
+        }
+        try {
+            directory.update("INSERT INTO patient_duplicate_candidate (tenant_id, " + CANDIDATE_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    tenant, first, second, score.score(), score.reasons(), DuplicateStatus.OPEN.name(), Timestamp.from(Instant.now()));
+        } catch (DuplicateKeyException e) {
+            // Found by the incremental check and the sweep at the same time
+            updateCandidate(tenant, first, second, score);
+        }
+    }
+
+    private int updateCandidate(String tenant, UUID first, UUID second, MatchScore score) {
+        return directory.update(
+                "UPDATE patient_duplicate_candidate SET score = ?, reasons = ? WHERE tenant_id = ? AND patient_id = ? AND other_patient_id = ?",
+                score.score(), score.reasons(), tenant, first, second);
+    }
+
+    public List<DuplicateCandidateDTO> findCandidates(String tenant, DuplicateStatus status, int limit) {
+        return directory.query(
+                "SELECT " + CANDIDATE_COLUMNS + " FROM patient_duplicate_candidate WHERE tenant_id = ? AND status = ? ORDER BY score DESC, detected_at LIMIT ?",
+                (rs, rowNum) -> {
+                    DuplicateCandidateDTO candidate = new DuplicateCandidateDTO();
+                    candidate.setPatientId(rs.getString("patient_id"));
+                    candidate.setOtherPatientId(rs.getString("other_patient_id"));
+                    candidate.setScore(rs.getDouble("score"));
+                    candidate.setReasons(rs.getString("reasons"));
+                    candidate.setStatus(rs.getString("status"));
+                    candidate.setDetectedAt(rs.getTimestamp("detected_at").toInstant().toString());
+                    return candidate;
+                },
+                tenant, status.name(), limit);
+    }
+
+    public boolean updateStatus(String tenant, UUID a, UUID b, DuplicateStatus status) {
+        UUID first = a.compareTo(b) < 0 ? a : b;
+        UUID second = first == a ? b : a;
+        return directory.update(
+                "UPDATE patient_duplicate_candidate SET status = ? WHERE tenant_id = ? AND patient_id = ? AND other_patient_id = ?",
+                status.name(), tenant, first, second) > 0;
+    }
+
+    // Live patients among ids, read from the tenant's shard
+    public Map<UUID, MatchRecord> loadPatients(String tenant, Collection<UUID> ids) {
+        Map<UUID, MatchRecord> patients = new HashMap<>();
+        if (ids.isEmpty()) {
+            return patients;
+        }
+        new NamedParameterJdbcTemplate(tenantShard(tenant)).query(
+                "SELECT id, name, email, address, date_of_birth FROM patient WHERE tenant_id = :tenant AND id IN (:ids) AND deleted_at IS NULL",
+                new MapSqlParameterSource("tenant", tenant).addValue("ids", ids),
+                rs -> {
+                    MatchRecord patient = toMatchRecord(rs);
+                    patients.put(patient.id(), patient);
+                });
+        return patients;
+    }
+
+    // Every live patient of the tenant from a cursor on its shard, memory use depends on the fetch size only
+    public void forEachPatient(String tenant, int fetchSize, Consumer<MatchRecord> action) {
+        DataSource shard = tenantShard(tenant);
+        new TransactionTemplate(new DataSourceTransactionManager(shard)).executeWithoutResult(status ->
+                new JdbcTemplate(shard).query(connection -> {
+                    var statement = connection.prepareStatement(
+                            "SELECT id, name, email, address, date_of_birth FROM patient WHERE tenant_id = ? AND deleted_at IS NULL ORDER BY id");
+                    statement.setFetchSize(fetchSize);
+                    statement.setString(1, tenant);
+                    return statement;
+                }, rs -> {
+                    action.accept(toMatchRecord(rs));
+                }));
+    }
+
+    private DataSource tenantShard(String tenant) {
+        return shards.get(shardRouter.shardFor(tenant));
+    }
+
+    private static MatchRecord toMatchRecord(ResultSet rs) throws SQLException {
+        Date dateOfBirth = rs.getDate("date_of_birth");
+        return new MatchRecord(rs.getObject("id", UUID.class), rs.getString("name"), rs.getString("email"),
+                rs.getString("address"), dateOfBirth != null ? dateOfBirth.toLocalDate() : null);
+    }
+}
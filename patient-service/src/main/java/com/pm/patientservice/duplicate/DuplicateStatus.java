@@ -0,0 +1,6 @@
+package com.pm.patientservice.duplicate;
+
+// Review state of a suspected pair, a dismissed pair stays dismissed when the sweep finds it again
+public enum DuplicateStatus {
+    OPEN, CONFIRMED, DISMISSED
+}
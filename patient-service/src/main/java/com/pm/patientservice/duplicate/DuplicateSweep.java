@@ -0,0 +1,95 @@
+package com.pm.patientservice.duplicate;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Progress of a full-table sweep of one tenant, returned by the duplicate review endpoints
+public class DuplicateSweep {
+    public enum State { QUEUED, INDEXING, MATCHING, DONE, FAILED }
+
+    private final String tenantId;
+    private final Instant requestedAt = Instant.now();
+    private final AtomicLong indexedPatients = new AtomicLong();
+    private final AtomicLong comparedBlocks = new AtomicLong();
+    private final AtomicLong comparedPairs = new AtomicLong();
+    private final AtomicLong suspectedPairs = new AtomicLong();
+    private volatile long skippedBlocks;
+    private volatile State state = State.QUEUED;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    DuplicateSweep(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    void setState(State state) {
+        this.state = state;
+        if (state == State.DONE || state == State.FAILED) {
+            this.finishedAt = Instant.now();
+        }
+    }
+
+    void addIndexedPatients(long patients) {
+        indexedPatients.addAndGet(patients);
+    }
+
+    void addComparedBlock(long pairs, long suspected) {
+        comparedBlocks.incrementAndGet();
+        comparedPairs.addAndGet(pairs);
+        suspectedPairs.addAndGet(suspected);
+    }
+
+    void setSkippedBlocks(long skippedBlocks) {
+        this.skippedBlocks = skippedBlocks;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        setState(State.FAILED);
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getIndexedPatients() {
+        return indexedPatients.get();
+    }
+
+    public long getComparedBlocks() {
+        return comparedBlocks.get();
+    }
+
+    public long getComparedPairs() {
+        return comparedPairs.get();
+    }
+
+    // A pair sharing several keys is counted once per block
+    public long getSuspectedPairs() {
+        return suspectedPairs.get();
+    }
+
+    public long getSkippedBlocks() {
+        return skippedBlocks;
+    }
+
+    public Instant getRequestedAt() {
+        return requestedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
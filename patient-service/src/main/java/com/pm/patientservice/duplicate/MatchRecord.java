@@ -0,0 +1,14 @@
+package com.pm.patientservice.duplicate;
+
+import com.pm.patientservice.model.Patient;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// The fields of a patient the matching engine looks at
+public record MatchRecord(UUID id, String name, String email, String address, LocalDate dateOfBirth) {
+
+    public static MatchRecord of(Patient patient) {
+        return new MatchRecord(patient.getId(), patient.getName(), patient.getEmail(), patient.getAddress(), patient.getdateOfBirth());
+    }
+}
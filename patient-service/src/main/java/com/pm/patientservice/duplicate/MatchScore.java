@@ -0,0 +1,9 @@
+package com.pm.patientservice.duplicate;
+
+// Weighted similarity of two patients between 0 and 1, with the score of every field for the reviewer
+public record MatchScore(double score, double name, double dateOfBirth, double address, double email) {
+
+    public String reasons() {
+        return "name=%.2f, dateOfBirth=%.2f, address=%.2f, email=%.2f".formatted(name, dateOfBirth, address, email);
+    }
+}
@@ -0,0 +1,140 @@
+package com.pm.patientservice.duplicate;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Scores a candidate pair found through a shared blocking key. Names weigh most, emails least:
+// a second registration under another email address is exactly the case being looked for.
+public final class SimilarityScorer {
+    private static final double NAME_WEIGHT = 0.4;
+    private static final double DATE_OF_BIRTH_WEIGHT = 0.3;
+    private static final double ADDRESS_WEIGHT = 0.2;
+    private static final double EMAIL_WEIGHT = 0.1;
+
+    private SimilarityScorer() {
+    }
+
+    public static MatchScore score(MatchRecord a, MatchRecord b) {
+        double name = nameSimilarity(a.name(), b.name());
+        double dateOfBirth = dateOfBirthSimilarity(a.dateOfBirth(), b.dateOfBirth());
+        double address = addressSimilarity(a.address(), b.address());
+        double email = jaroWinkler(localPart(a.email()), localPart(b.email()));
+        double score = NAME_WEIGHT * name + DATE_OF_BIRTH_WEIGHT * dateOfBirth + ADDRESS_WEIGHT * address + EMAIL_WEIGHT * email;
+        return new MatchScore(score, name, dateOfBirth, address, email);
+    }
+
+    // Best of the names as written and with sorted tokens, so "Doe Jane" matches "Jane Doe"
+    static double nameSimilarity(String a, String b) {
+        List<String> tokensA = BlockingKeys.nameTokens(a);
+        List<String> tokensB = BlockingKeys.nameTokens(b);
+        double asWritten = jaroWinkler(String.join(" ", tokensA), String.join(" ", tokensB));
+        double sorted = jaroWinkler(String.join(" ", tokensA.stream().sorted().toList()),
+                String.join(" ", tokensB.stream().sorted().toList()));
+        return Math.max(asWritten, sorted);
+    }
+
+    // Typos in a date of birth are usually day and month swapped or a single digit
+    static double dateOfBirthSimilarity(LocalDate a, LocalDate b) {
+        if (a == null || b == null) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        if (a.getYear() == b.getYear() && a.getMonthValue() == b.getDayOfMonth() && a.getDayOfMonth() == b.getMonthValue()) {
+            return 0.8;
+        }
+        return levenshtein(a.toString(), b.toString()) == 1 ? 0.6 : 0;
+    }
+
+    // Token overlap (Jaccard) averaged with Jaro-Winkler of the normalized address
+    static double addressSimilarity(String a, String b) {
+        List<String> tokensA = BlockingKeys.addressTokens(a);
+        List<String> tokensB = BlockingKeys.addressTokens(b);
+        if (tokensA.isEmpty() || tokensB.isEmpty()) {
+            return 0;
+        }
+        Set<String> union = new HashSet<>(tokensA);
+        union.addAll(tokensB);
+        Set<String> intersection = new HashSet<>(tokensA);
+        intersection.retainAll(new HashSet<>(tokensB));
+        double jaccard = (double) intersection.size() / union.size();
+        return (jaccard + jaroWinkler(String.join(" ", tokensA), String.join(" ", tokensB))) / 2;
+    }
+
+    static String localPart(String email) {
+        if (email == null) {
+            return "";
+        }
+        int at = email.indexOf('@');
+        return BlockingKeys.normalize(at >= 0 ? email.substring(0, at) : email).replace(" ", "");
+    }
+
+    static double jaroWinkler(String a, String b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0;
+        }
+        if (a.equals(b)) {
+            return 1;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] matchedA = new boolean[a.length()];
+        boolean[] matchedB = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length(), i + window + 1);
+            for (int j = from; j < to; j++) {
+                if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+                    matchedA[i] = true;
+                    matchedB[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (matchedA[i]) {
+                while (!matchedB[j]) {
+                    j++;
+                }
+                if (a.charAt(i) != b.charAt(j)) {
+                    transpositions++;
+                }
+                j++;
+            }
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3;
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(a.length(), b.length())) && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+
+    static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -1,6 +1,8 @@
 package com.pm.patientservice.exception;
 
+import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -24,9 +26,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<Map<String, String>> handleConstraintViolationException(ConstraintViolationException ex) {
+        Map<String, String> errors = new HashMap<>();
+
+        ex.getConstraintViolations().forEach(
+                violation -> errors.put(violation.getPropertyPath().toString(), violation.getMessage())
+        );
+        // Same shape as the @Valid errors above, raised for request bodies that are validated manually (protobuf)
+        return ResponseEntity.badRequest().body(errors);
+    }
+
     @ExceptionHandler(EmailAlreadyExistsException.class)
     public ResponseEntity<Map<String, String>> handleEmailAlreadyExistsException(EmailAlreadyExistsException ex) {
-        log.warn("Email already exists: {}", ex.getMessage());
+        // The exception message carries the email address, which doesn't belong in the logs
+        log.warn("Email already exists");
         Map<String, String> error = new HashMap<>();
         error.put("message", "Email address already exists: ");
         // Returns a 400 Bad Request response with the error message
@@ -41,5 +55,21 @@ public class GlobalExceptionHandler {
         // Returns a 404 Not Found response with the error message
         return ResponseEntity.status(404).body(error);
     }
-}
 
+    @ExceptionHandler(UnknownFieldException.class)
+    public ResponseEntity<Map<String, String>> handleUnknownFieldException(UnknownFieldException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("message", ex.getMessage());
+        // Returns a 400 Bad Request response for a fields= parameter naming a field that doesn't exist
+        return ResponseEntity.badRequest().body(error);
+    }
+
+    @ExceptionHandler(TenantMovingException.class)
+    public ResponseEntity<Map<String, String>> handleTenantMovingException(TenantMovingException ex) {
+        log.warn("Write refused: {}", ex.getMessage());
+        Map<String, String> error = new HashMap<>();
+        error.put("message", ex.getMessage());
+        // Returns a 503 Service Unavailable response, the switch to the new shard only takes a few seconds
+        return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "5").body(error);
+    }
+}
@@ -0,0 +1,7 @@
+package com.pm.patientservice.exception;
+
+public class TenantMovingException extends RuntimeException {
+    public TenantMovingException(String message) {
+        super(message);
+    }
+}
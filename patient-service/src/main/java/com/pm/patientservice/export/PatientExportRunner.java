@@ -0,0 +1,57 @@
+package com.pm.patientservice.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+// CLI mode for nightly jobs, writes the export to a file and exits:
+// java -jar patient-service.jar --spring.main.web-application-type=none --export.file=/data/patients.csv.gz [--export.tenant=<tenant>] [--export.after-id=<uuid>] [--export.until-id=<uuid>]
+// A file name ending in .gz is gzip compressed. Without --export.tenant the default tenant is exported.
+@Component
+public class PatientExportRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(PatientExportRunner.class);
+
+    private final PatientExportService patientExportService;
+    private final ApplicationContext applicationContext;
+
+    public PatientExportRunner(PatientExportService patientExportService, ApplicationContext applicationContext) {
+        this.patientExportService = patientExportService;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!args.containsOption("export.file")) {
+            return;
+        }
+        Path file = Path.of(args.getOptionValues("export.file").get(0));
+        List<String> tenant = args.getOptionValues("export.tenant");
+        UUID afterId = uuidOption(args, "export.after-id");
+        UUID untilId = uuidOption(args, "export.until-id");
+
+        long rows;
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+            rows = patientExportService.exportCsv(outputStream,
+                    tenant == null || tenant.isEmpty() ? null : tenant.get(0), afterId, untilId, file.toString().endsWith(".gz"));
+        }
+        log.info("Export of {} patients written to {}", rows, file);
+        System.exit(SpringApplication.exit(applicationContext, () -> 0));
+    }
+
+    private static UUID uuidOption(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : UUID.fromString(values.get(0));
+    }
+}
@@ -0,0 +1,129 @@
+package com.pm.patientservice.export;
+
+import com.pm.patientservice.sharding.ShardRouter;
+import com.pm.patientservice.sharding.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+// Streams live patients as CSV straight from a database cursor: rows are written as they are fetched,
+// so memory use depends on the fetch size, not on the number of patients.
+// Rows come out in id order, an interrupted export is resumed with afterId = last id received.
+// An export covers one tenant and reads from that tenant's shard.
+@Service
+public class PatientExportService {
+    private static final Logger log = LoggerFactory.getLogger(PatientExportService.class);
+    private static final String HEADER = "id,name,email,address,date_of_birth,registered_date";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final int fetchSize;
+    private final int flushEvery;
+
+    public PatientExportService(JdbcTemplate jdbcTemplate,
+                                ShardRouter shardRouter,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${export.fetch-size:1000}") int fetchSize,
+                                @Value("${export.flush-every:1000}") int flushEvery) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        // PostgreSQL only uses a server-side cursor (honouring the fetch size) inside a transaction
+        template.setReadOnly(true);
+        this.transactionTemplate = template;
+        this.fetchSize = fetchSize;
+        this.flushEvery = flushEvery;
+    }
+
+    // Returns the number of rows written, the caller owns (and closes) the output stream.
+    // The tenant is passed explicitly: streaming responses are written on another thread than the request's.
+    public long exportCsv(OutputStream outputStream, String tenant, UUID afterId, UUID untilId, boolean gzip) throws IOException {
+        String tenantId = shardRouter.tenantOrDefault(tenant);
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipStream : outputStream, StandardCharsets.UTF_8), 64 * 1024);
+
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, name, email, address, date_of_birth, registered_date FROM patient WHERE deleted_at IS NULL AND tenant_id = ?");
+        List<Object> params = new ArrayList<>(List.of(tenantId));
+        if (afterId != null) {
+            sql.append(" AND id > ?");
+            params.add(afterId);
+        }
+        if (untilId != null) {
+            sql.append(" AND id <= ?");
+            params.add(untilId);
+        }
+        sql.append(" ORDER BY id");
+
+        writer.write(HEADER);
+        writer.write('\n');
+        Long rows = TenantContext.callAs(tenantId, () -> transactionTemplate.execute(status -> {
+            long[] written = {0};
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(sql.toString());
+                statement.setFetchSize(fetchSize);
+                for (int i = 0; i < params.size(); i++) {
+                    statement.setObject(i + 1, params.get(i));
+                }
+                return statement;
+            }, rs -> {
+                try {
+                    writer.write(rs.getString("id"));
+                    writer.write(',');
+                    writeField(writer, rs.getString("name"));
+                    writer.write(',');
+                    writeField(writer, rs.getString("email"));
+                    writer.write(',');
+                    writeField(writer, rs.getString("address"));
+                    writer.write(',');
+                    writer.write(rs.getString("date_of_birth"));
+                    writer.write(',');
+                    writer.write(rs.getString("registered_date"));
+                    writer.write('\n');
+                    // Pushes a chunk to the client regularly so neither side buffers the whole export
+                    if (++written[0] % flushEvery == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return written[0];
+        }));
+
+        writer.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        log.info("Exported {} patients of tenant {} (afterId={}, untilId={}, gzip={})", rows, tenantId, afterId, untilId, gzip);
+        return rows != null ? rows : 0;
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break, and double embedded quotes
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
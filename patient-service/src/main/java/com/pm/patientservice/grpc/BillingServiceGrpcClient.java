@@ -3,30 +3,65 @@ package com.pm.patientservice.grpc;
 import billing.BillingRequest;
 import billing.BillingResponse;
 import billing.BillingServiceGrpc;
+import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
 import io.grpc.ManagedChannelBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class BillingServiceGrpcClient {
     private static final Logger log = LoggerFactory.getLogger(BillingServiceGrpcClient.class);
+    private static final String SERVICE_NAME = BillingServiceGrpc.SERVICE_NAME;
+    private static final Duration KEEP_ALIVE_TIMEOUT = Duration.ofSeconds(10);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ManagedChannel channel;
     private final BillingServiceGrpc.BillingServiceBlockingStub blockingStub;
+    private final Duration deadline;
 
     // localhost:9001/BillingService/CreatePatientAccount
     // aws.grpc:123123/BillingService/CreatePatientAccount
     public BillingServiceGrpcClient(
             @Value("${billing.service.address:localhost}") String serverAddress,
-            @Value("${billing.service.grpc.port:9090}") int serverPort
+            @Value("${billing.service.grpc.port:9090}") int serverPort,
+            @Value("${billing.service.grpc.deadline:3s}") Duration deadline,
+            @Value("${billing.service.grpc.keep-alive-time:30s}") Duration keepAliveTime,
+            @Value("${billing.service.grpc.max-attempts:3}") int maxAttempts,
+            @Value("${billing.service.grpc.hedged-methods:}") List<String> hedgedMethods,
+            MeterRegistry meterRegistry
     ) {
         log.info("Connecting to Billing Service at {}:{}", serverAddress, serverPort);
 
-        ManagedChannel channel = ManagedChannelBuilder.forAddress(serverAddress, serverPort)
+        // dns:/// resolves every A record behind the address so calls are spread over all billing replicas
+        channel = ManagedChannelBuilder.forTarget("dns:///" + serverAddress + ":" + serverPort)
+                .defaultLoadBalancingPolicy("round_robin")
+                .defaultServiceConfig(serviceConfig(maxAttempts, hedgedMethods))
+                .enableRetry()
+                .keepAliveTime(keepAliveTime.toMillis(), TimeUnit.MILLISECONDS)
+                .keepAliveTimeout(KEEP_ALIVE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                .intercept(new GrpcClientMetricsInterceptor(meterRegistry))
                 .usePlaintext() // Disable TLS for simplicity; enable in production
                 .build();
         blockingStub = BillingServiceGrpc.newBlockingStub(channel);
+        this.deadline = deadline;
+
+        Gauge.builder("grpc.client.channel.state", channel, c -> c.getState(false).ordinal())
+                .description("Connectivity state of the billing channel (0=IDLE, 1=CONNECTING, 2=READY, 3=TRANSIENT_FAILURE, 4=SHUTDOWN)")
+                .tag("service", SERVICE_NAME)
+                .register(meterRegistry);
+        watchState(channel.getState(false));
     }
 
     public BillingResponse createBillingAccount(String patientId, String name, String email){
@@ -36,8 +71,63 @@ public class BillingServiceGrpcClient {
                 .setEmail(email)
                 .build();
 
-        BillingResponse response = blockingStub.createBillingAccount(request);
-        log.info("Received response from billing service via GRPC: {}", response);
+        // Deadline is set per call, it covers every retry attempt of that call
+        BillingResponse response = blockingStub
+                .withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS)
+                .createBillingAccount(request);
+        // Fluent API: key values land as fields in the JSON line, nothing is built when the event is sampled out
+        log.atInfo()
+                .setMessage("Received response from billing service via GRPC")
+                .addKeyValue("patientId", patientId)
+                .addKeyValue("accountId", response.getAccountId())
+                .addKeyValue("status", response.getStatus())
+                .log();
         return response;
     }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        log.info("Shutting down Billing Service channel");
+        channel.shutdown();
+        if (!channel.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            channel.shutdownNow();
+        }
+    }
+
+    private void watchState(ConnectivityState current) {
+        channel.notifyWhenStateChanged(current, () -> {
+            ConnectivityState next = channel.getState(false);
+            log.info("Billing Service channel state changed {} -> {}", current, next);
+            if (next != ConnectivityState.SHUTDOWN) {
+                watchState(next);
+            }
+        });
+    }
+
+    // Methods listed in billing.service.grpc.hedged-methods are idempotent and get hedged after a short delay,
+    // every other method is only retried on UNAVAILABLE (the call never reached a billing instance)
+    private static Map<String, Object> serviceConfig(int maxAttempts, List<String> hedgedMethods) {
+        List<Map<String, Object>> methodConfigs = new ArrayList<>();
+        for (String method : hedgedMethods) {
+            methodConfigs.add(Map.of(
+                    "name", List.of(Map.of("service", SERVICE_NAME, "method", method)),
+                    "hedgingPolicy", Map.of(
+                            "maxAttempts", (double) maxAttempts,
+                            "hedgingDelay", "0.1s",
+                            "nonFatalStatusCodes", List.of("UNAVAILABLE"))));
+        }
+        methodConfigs.add(Map.of(
+                "name", List.of(Map.of("service", SERVICE_NAME)),
+                "retryPolicy", Map.of(
+                        "maxAttempts", (double) maxAttempts,
+                        "initialBackoff", "0.1s",
+                        "maxBackoff", "1s",
+                        "backoffMultiplier", 2.0,
+                        "retryableStatusCodes", List.of("UNAVAILABLE"))));
+
+        return Map.of(
+                "methodConfig", methodConfigs,
+                // Stops retrying when most calls to billing are failing so retries don't amplify an outage
+                "retryThrottling", Map.of("maxTokens", 10.0, "tokenRatio", 0.1));
+    }
 }
@@ -0,0 +1,44 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Records the latency of every outgoing call as grpc.client.requests{service, method, status}
+public class GrpcClientMetricsInterceptor implements ClientInterceptor {
+    private final MeterRegistry meterRegistry;
+
+    public GrpcClientMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                               CallOptions callOptions, Channel next) {
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                    @Override
+                    public void onClose(Status status, Metadata trailers) {
+                        sample.stop(Timer.builder("grpc.client.requests")
+                                .tag("service", String.valueOf(method.getServiceName()))
+                                .tag("method", String.valueOf(method.getBareMethodName()))
+                                .tag("status", status.getCode().name())
+                                .register(meterRegistry));
+                        super.onClose(status, trailers);
+                    }
+                }, headers);
+            }
+        };
+    }
+}
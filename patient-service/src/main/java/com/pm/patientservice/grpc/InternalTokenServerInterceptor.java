@@ -0,0 +1,47 @@
+package com.pm.patientservice.grpc;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+// The internal gRPC API (PatientGrpcService) returns any tenant's patients to whoever calls it, so every call must
+// carry patient.grpc.internal-token as x-internal-token (constant-time comparison), like X-Gateway-Token on the REST side.
+// Without a configured token every call is refused.
+@GrpcGlobalServerInterceptor
+public class InternalTokenServerInterceptor implements ServerInterceptor {
+    public static final Metadata.Key<String> INTERNAL_TOKEN_KEY =
+            Metadata.Key.of("x-internal-token", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final Logger log = LoggerFactory.getLogger(InternalTokenServerInterceptor.class);
+
+    private final byte[] internalToken;
+
+    public InternalTokenServerInterceptor(@Value("${patient.grpc.internal-token:}") String internalToken) {
+        this.internalToken = internalToken.getBytes(StandardCharsets.UTF_8);
+        if (this.internalToken.length == 0) {
+            log.warn("patient.grpc.internal-token is not set, every call to the internal gRPC API is refused");
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String token = headers.get(INTERNAL_TOKEN_KEY);
+        if (internalToken.length == 0 || token == null
+                || !MessageDigest.isEqual(internalToken, token.getBytes(StandardCharsets.UTF_8))) {
+            call.close(Status.UNAUTHENTICATED.withDescription("Missing or invalid x-internal-token"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+        return next.startCall(call, headers);
+    }
+}
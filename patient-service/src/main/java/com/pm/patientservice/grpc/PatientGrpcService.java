@@ -0,0 +1,200 @@
+package com.pm.patientservice.grpc;
+
+import com.pm.patientservice.repository.PatientLookupRepository;
+import com.pm.patientservice.sharding.ShardRouter;
+import com.pm.patientservice.sharding.TenantContext;
+import com.pm.patientservice.sharding.TenantFilter;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import net.devh.boot.grpc.server.service.GrpcService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import patient.GetPatientRequest;
+import patient.GetPatientsRequest;
+import patient.GetPatientsResponse;
+import patient.ListPatientsSinceRequest;
+import patient.PatientRecord;
+import patient.PatientServiceGrpc.PatientServiceImplBase;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Internal patient API for other services, next to the REST API (PatientController) but without the gateway hop,
+// the JWT validation and JSON: callers on the private network talk to grpc.server.port directly, with the shared
+// internal token checked by InternalTokenServerInterceptor.
+@GrpcService
+public class PatientGrpcService extends PatientServiceImplBase {
+    private static final Logger log = LoggerFactory.getLogger(PatientGrpcService.class);
+    private static final UUID NO_ID = new UUID(0, 0);
+
+    private final PatientLookupRepository patientLookupRepository;
+    private final ShardRouter shardRouter;
+    private final int maxBatchSize;
+    private final int pageSize;
+    private final Duration changeSettleTime;
+
+    public PatientGrpcService(PatientLookupRepository patientLookupRepository,
+                              ShardRouter shardRouter,
+                              @Value("${patient.grpc.max-batch-size:1000}") int maxBatchSize,
+                              @Value("${patient.grpc.page-size:500}") int pageSize,
+                              @Value("${patient.grpc.change-settle-time:5s}") Duration changeSettleTime) {
+        this.patientLookupRepository = patientLookupRepository;
+        this.shardRouter = shardRouter;
+        this.maxBatchSize = maxBatchSize;
+        this.pageSize = pageSize;
+        this.changeSettleTime = changeSettleTime;
+    }
+
+    @Override
+    public void getPatient(GetPatientRequest request, StreamObserver<PatientRecord> responseObserver) {
+        try {
+            String tenant = tenant(request.getTenantId());
+            UUID id = uuid(request.getId());
+            List<PatientRecord> found = TenantContext.callAs(tenant,
+                    () -> patientLookupRepository.findByIds(tenant, List.of(id)));
+            if (found.isEmpty()) {
+                responseObserver.onError(Status.NOT_FOUND
+                        .withDescription("Patient not found with ID: " + id).asRuntimeException());
+                return;
+            }
+            responseObserver.onNext(found.get(0));
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void getPatients(GetPatientsRequest request, StreamObserver<GetPatientsResponse> responseObserver) {
+        try {
+            String tenant = tenant(request.getTenantId());
+            if (request.getIdsCount() > maxBatchSize) {
+                throw new IllegalArgumentException("At most " + maxBatchSize + " ids per call, got " + request.getIdsCount());
+            }
+            Set<UUID> ids = new LinkedHashSet<>();
+            request.getIdsList().forEach(id -> ids.add(uuid(id)));
+
+            List<PatientRecord> found = TenantContext.callAs(tenant, () -> patientLookupRepository.findByIds(tenant, ids));
+            GetPatientsResponse.Builder response = GetPatientsResponse.newBuilder().addAllPatients(found);
+            found.forEach(patient -> ids.remove(UUID.fromString(patient.getId())));
+            ids.forEach(id -> response.addMissingIds(id.toString()));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+        }
+    }
+
+    @Override
+    public void listPatientsSince(ListPatientsSinceRequest request, StreamObserver<PatientRecord> responseObserver) {
+        ChangeStream stream;
+        try {
+            stream = new ChangeStream((ServerCallStreamObserver<PatientRecord>) responseObserver,
+                    tenant(request.getTenantId()),
+                    request.getSince().isEmpty() ? Instant.EPOCH : instant(request.getSince()),
+                    request.getAfterId().isEmpty() ? NO_ID : uuid(request.getAfterId()),
+                    request.getIncludeDeleted());
+        } catch (IllegalArgumentException e) {
+            responseObserver.onError(Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException());
+            return;
+        }
+        stream.start();
+    }
+
+    // Streams the changes page by page with keyset queries, fetching the next page only when the client can take
+    // more (onReady), so a slow client holds neither a database cursor nor an unbounded send buffer.
+    // Changes from the last change-settle-time are left out: a transaction stamping updated_at may commit after
+    // a later stamp was read, the caller picks them up on its next call.
+    private class ChangeStream {
+        private final ServerCallStreamObserver<PatientRecord> observer;
+        private final String tenant;
+        private final boolean includeDeleted;
+        private final Instant until = Instant.now().minus(changeSettleTime);
+        private Instant since;
+        private UUID afterId;
+        private Iterator<PatientRecord> page = List.<PatientRecord>of().iterator();
+        private boolean lastPage;
+        private volatile boolean done;
+        private long sent;
+
+        ChangeStream(ServerCallStreamObserver<PatientRecord> observer, String tenant, Instant since, UUID afterId,
+                     boolean includeDeleted) {
+            this.observer = observer;
+            this.tenant = tenant;
+            this.since = since;
+            this.afterId = afterId;
+            this.includeDeleted = includeDeleted;
+        }
+
+        void start() {
+            observer.setOnCancelHandler(() -> {
+                done = true;
+                log.debug("ListPatientsSince of tenant {} cancelled after {} records", tenant, sent);
+            });
+            // Called once the call is ready and again whenever the send buffer drained, never concurrently
+            observer.setOnReadyHandler(this::drain);
+        }
+
+        private void drain() {
+            try {
+                while (!done && observer.isReady()) {
+                    if (!page.hasNext()) {
+                        if (lastPage) {
+                            done = true;
+                            observer.onCompleted();
+                            return;
+                        }
+                        List<PatientRecord> records = TenantContext.callAs(tenant, () -> patientLookupRepository
+                                .findChangedSince(tenant, since, afterId, until, includeDeleted, pageSize));
+                        lastPage = records.size() < pageSize;
+                        page = records.iterator();
+                        continue;
+                    }
+                    PatientRecord record = page.next();
+                    since = Instant.parse(record.getUpdatedAt());
+                    afterId = UUID.fromString(record.getId());
+                    observer.onNext(record);
+                    sent++;
+                }
+            } catch (RuntimeException e) {
+                done = true;
+                log.error("ListPatientsSince of tenant {} failed after {} records", tenant, sent, e);
+                observer.onError(Status.INTERNAL.withDescription("Listing patients failed").asRuntimeException());
+            }
+        }
+    }
+
+    private String tenant(String tenantId) {
+        if (tenantId.isEmpty()) {
+            return shardRouter.tenantOrDefault(null);
+        }
+        if (!TenantFilter.isValidTenantId(tenantId)) {
+            throw new IllegalArgumentException("Invalid tenantId: " + tenantId);
+        }
+        return tenantId;
+    }
+
+    private static UUID uuid(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid patient id: " + id);
+        }
+    }
+
+    private static Instant instant(String value) {
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid since, expected an ISO-8601 instant: " + value);
+        }
+    }
+}
@@ -6,6 +6,8 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import patient.events.PatientEvent;
 
+import java.time.Instant;
+
 import static org.slf4j.LoggerFactory.getLogger;
 
 @Service
@@ -18,17 +20,21 @@ public class KafkaProducer {
         this.kafkaTemplate = kafkaTemplate;
     }
 
-    public void sendEvent(Patient patient) {
+    // occurredAt: when the patient was saved. The event goes out after the billing call, so the record timestamp
+    // is later than the account creation it triggered (analytics-service measures time to activation from this)
+    public void sendEvent(Patient patient, Instant occurredAt) {
         PatientEvent event = PatientEvent.newBuilder()
                 .setPatientId(patient.getId().toString())
                 .setName(patient.getName())
                 .setEmail(patient.getEmail())
                 .setEventType("PATIENT_CREATED")
+                .setOccurredAt(occurredAt.toEpochMilli())
                 .build();
         try{
-            kafkaTemplate.send("patient", event.toByteArray());
+            // Keyed by patient id like the "billing" topic, analytics-service joins both per partition
+            kafkaTemplate.send("patient", event.getPatientId(), event.toByteArray());
         } catch (Exception e) {
-            log.error("Error sending PatientCreated event: {}", event);
+            log.error("Error sending PatientCreated event for patient {}", event.getPatientId(), e);
         }
     }
 }
@@ -0,0 +1,103 @@
+package com.pm.patientservice.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Load shedding for /patients: reads and writes each get an adaptive concurrency limit (GradientLimit) that follows
+// the latency of the requests let through. Past the limit a request gets 503 with Retry-After straight away, before
+// security, a Tomcat thread wait or a Hikari connection wait, so a slow database or billing service costs the
+// requests over the limit a fast rejection instead of making every request time out.
+// Runs first so that rejected requests cost next to nothing. Exports are long-running streams and are not limited.
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@ConditionalOnProperty(prefix = "concurrency-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final byte[] REJECTED_BODY =
+            "{\"message\":\"Too many concurrent requests, retry later\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final GradientLimit reads;
+    private final GradientLimit writes;
+    private final Counter readsRejected;
+    private final Counter writesRejected;
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        long windowNanos = properties.window().toNanos();
+        this.reads = new GradientLimit(properties.read(), properties.tolerance(), properties.smoothing(), windowNanos);
+        this.writes = new GradientLimit(properties.write(), properties.tolerance(), properties.smoothing(), windowNanos);
+        this.retryAfterSeconds = String.valueOf(Math.max(1, properties.retryAfter().toSeconds()));
+
+        this.readsRejected = meterRegistry.counter("http.server.concurrency.rejected", "class", "read");
+        this.writesRejected = meterRegistry.counter("http.server.concurrency.rejected", "class", "write");
+        register(meterRegistry, "read", reads);
+        register(meterRegistry, "write", writes);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !(path.equals("/patients") || path.startsWith("/patients/")) || path.equals("/patients/export");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = isRead(request.getMethod());
+        GradientLimit limit = read ? reads : writes;
+        int inflight = limit.acquire();
+        if (inflight < 0) {
+            (read ? readsRejected : writesRejected).increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(REJECTED_BODY.length);
+            response.getOutputStream().write(REJECTED_BODY);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(start, inflight, isLatencySample(response.getStatus()));
+        }
+    }
+
+    // 4xx answers (401/403 from security, 404 for unknown ids, 400 validation, the JIT warm-up's 404s) return before the
+    // work the limit protects: as samples they would pull the baseline down and make normal requests look like queueing.
+    // 5xx stay, a timeout against a saturated database is exactly the latency to react to.
+    private static boolean isLatencySample(int status) {
+        return status < 400 || status >= 500;
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    private static void register(MeterRegistry meterRegistry, String requestClass, GradientLimit limit) {
+        Gauge.builder("http.server.concurrency.limit", limit, GradientLimit::limit)
+                .description("Adaptive concurrency limit of /patients requests")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.inflight", limit, GradientLimit::inflight)
+                .description("/patients requests in flight")
+                .tag("class", requestClass)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,23 @@
+package com.pm.patientservice.limit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+// concurrency-limit.read.* applies to GET /patients/**, concurrency-limit.write.* to POST, PUT and DELETE.
+// max-limit of both together should stay below server.tomcat.threads.max, so actuator probes always find a thread.
+@ConfigurationProperties(prefix = "concurrency-limit")
+public record ConcurrencyLimitProperties(@DefaultValue("true") boolean enabled,
+                                         @DefaultValue Limit read,
+                                         @DefaultValue Limit write,
+                                         @DefaultValue("1.5") double tolerance,
+                                         @DefaultValue("0.2") double smoothing,
+                                         @DefaultValue("100ms") Duration window,
+                                         @DefaultValue("1s") Duration retryAfter) {
+
+    public record Limit(@DefaultValue("20") int initialLimit,
+                        @DefaultValue("5") int minLimit,
+                        @DefaultValue("100") int maxLimit) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.pm.patientservice.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Concurrency limit of one class of requests, adjusted from measured latency with the gradient algorithm of Netflix's
+// concurrency-limits (Gradient2). Every window, the average latency of the window is compared with its long-term
+// average: while it stays within tolerance the limit grows by sqrt(limit), once requests start queueing downstream
+// (Hikari pool, billing, Postgres) the latency rises and the limit shrinks in proportion, by at most half per window.
+final class GradientLimit {
+    // The long-term latency averages about 600 windows (a minute with 100ms windows)
+    private static final double LONG_RTT_WEIGHT = 2.0 / 601;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile double limit;
+
+    // Guarded by this
+    private long windowStart = System.nanoTime();
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInflight;
+    private double longRtt;
+
+    GradientLimit(ConcurrencyLimitProperties.Limit settings, double tolerance, double smoothing, long windowNanos) {
+        this.minLimit = settings.minLimit();
+        this.maxLimit = settings.maxLimit();
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, settings.initialLimit()));
+    }
+
+    // Requests in flight including this one, or -1 when the limit is reached
+    int acquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                return -1;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    // sample is false for requests whose latency says nothing about the protected resources, they only free their slot
+    void release(long startNanos, int inflightAtStart, boolean sample) {
+        inflight.decrementAndGet();
+        if (sample) {
+            long now = System.nanoTime();
+            record(now, now - startNanos, inflightAtStart);
+        }
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inflight() {
+        return inflight.get();
+    }
+
+    private synchronized void record(long now, long rttNanos, int inflightAtStart) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflightAtStart);
+        if (now - windowStart < windowNanos || windowSamples < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+        double shortRtt = (double) windowRttSum / windowSamples;
+        int maxInflight = windowMaxInflight;
+        windowStart = now;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInflight = 0;
+        update(shortRtt, maxInflight);
+    }
+
+    private void update(double shortRtt, int maxInflight) {
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+            return;
+        }
+        // The baseline only learns from windows without queueing, otherwise it would follow the latency it is meant to
+        // hold down and let the limit creep up under sustained overload. At min-limit the latency is not our queueing
+        // (the database itself got slower), then it becomes the new baseline.
+        if (shortRtt <= tolerance * longRtt || limit <= minLimit) {
+            longRtt += (shortRtt - longRtt) * LONG_RTT_WEIGHT;
+        }
+        // Latency fell well below the baseline (a slow period ended), let the baseline catch up faster
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // The limit wasn't what bounded concurrency in this window, the window says nothing about it
+        if (maxInflight < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,74 @@
+package com.pm.patientservice.mapper;
+
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import patient.api.PatientListResponse;
+import patient.api.PatientRequest;
+import patient.api.PatientResponse;
+
+import java.util.List;
+
+// Converts between the JSON DTOs and the protobuf messages defined in patient_api.proto
+public class PatientProtoMapper {
+    public static PatientResponse toProto(PatientResponseDTO patientDTO) {
+        // Fields left out by a sparse fieldset are null and stay unset (proto3 doesn't send default values)
+        PatientResponse.Builder builder = PatientResponse.newBuilder();
+        if (patientDTO.getId() != null) {
+            builder.setId(patientDTO.getId());
+        }
+        if (patientDTO.getName() != null) {
+            builder.setName(patientDTO.getName());
+        }
+        if (patientDTO.getEmail() != null) {
+            builder.setEmail(patientDTO.getEmail());
+        }
+        if (patientDTO.getAddress() != null) {
+            builder.setAddress(patientDTO.getAddress());
+        }
+        if (patientDTO.getDateOfBirth() != null) {
+            builder.setDateOfBirth(patientDTO.getDateOfBirth());
+        }
+        return builder.build();
+    }
+
+    public static PatientListResponse toProto(List<PatientResponseDTO> patientDTOs) {
+        PatientListResponse.Builder builder = PatientListResponse.newBuilder();
+        patientDTOs.forEach(patientDTO -> builder.addPatients(toProto(patientDTO)));
+        return builder.build();
+    }
+
+    public static PatientRequest toProto(PatientRequestDTO patientRequestDTO) {
+        PatientRequest.Builder builder = PatientRequest.newBuilder();
+        if (patientRequestDTO.getName() != null) {
+            builder.setName(patientRequestDTO.getName());
+        }
+        if (patientRequestDTO.getEmail() != null) {
+            builder.setEmail(patientRequestDTO.getEmail());
+        }
+        if (patientRequestDTO.getAddress() != null) {
+            builder.setAddress(patientRequestDTO.getAddress());
+        }
+        if (patientRequestDTO.getDateOfBirth() != null) {
+            builder.setDateOfBirth(patientRequestDTO.getDateOfBirth());
+        }
+        if (patientRequestDTO.getRegisteredDate() != null) {
+            builder.setRegisteredDate(patientRequestDTO.getRegisteredDate());
+        }
+        return builder.build();
+    }
+
+    public static PatientRequestDTO toDTO(PatientRequest patientRequest) {
+        // proto3 strings default to "" so missing fields are mapped to null to keep @NotBlank/@NotNull validation meaningful
+        PatientRequestDTO patientRequestDTO = new PatientRequestDTO();
+        patientRequestDTO.setName(emptyToNull(patientRequest.getName()));
+        patientRequestDTO.setEmail(emptyToNull(patientRequest.getEmail()));
+        patientRequestDTO.setAddress(emptyToNull(patientRequest.getAddress()));
+        patientRequestDTO.setDateOfBirth(emptyToNull(patientRequest.getDateOfBirth()));
+        patientRequestDTO.setRegisteredDate(emptyToNull(patientRequest.getRegisteredDate()));
+        return patientRequestDTO;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
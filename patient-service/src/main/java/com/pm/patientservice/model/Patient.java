@@ -3,17 +3,29 @@ package com.pm.patientservice.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.TenantId;
+import org.hibernate.annotations.UpdateTimestamp;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.UUID;
 
 @Entity
+// Soft delete: deleteById only stamps deleted_at, and every query (findAll, findById, existsByEmail...) skips deleted rows
+@SQLDelete(sql = "UPDATE patient SET deleted_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP WHERE id = ?")
+@SQLRestriction("deleted_at IS NULL")
 public class Patient {
     @Id @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
+    // Set by Hibernate from TenantContext on insert and added to every query, see TenantIdentifierResolver
+    @TenantId @Column(updatable = false)
+    private String tenantId;
     @NotNull
     private String name;
-    @NotNull @Email @Column(unique = true)
+    // No unique constraint: the table is partitioned by registered_date (see schema-postgresql.sql), so PatientService checks it
+    @NotNull @Email
     private String email;
     @NotNull
     private String address;
@@ -21,6 +33,10 @@ public class Patient {
     private LocalDate dateOfBirth;
     @NotNull
     private LocalDate registeredDate;
+    private Instant deletedAt;
+    // Lets TenantRebalancer copy only the rows changed since its previous pass
+    @UpdateTimestamp
+    private Instant updatedAt;
 
     public UUID getId() {
         return id;
@@ -30,6 +46,10 @@ public class Patient {
         this.id = id;
     }
 
+    public String getTenantId() {
+        return tenantId;
+    }
+
     public String getName() {
         return name;
     }
@@ -66,4 +86,16 @@ public class Patient {
         this.registeredDate = registeredDate;
     }
 
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
 }
@@ -0,0 +1,167 @@
+package com.pm.patientservice.partition;
+
+import com.pm.patientservice.sharding.ShardContext;
+import com.pm.patientservice.sharding.ShardDataSources;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+
+// Keeps the monthly partitions of the patient table (schema-postgresql.sql) in shape:
+// creates the partitions for the recent past and the coming months and, when patient.partition.archive-enabled is set,
+// moves the soft deleted patients registered more than archive-after-months ago into the patient_archive schema.
+// Live patients are never archived, however old their registration: they stay in (or move to) patient_default.
+// Archived rows are only read with plain SQL on patient_archive, a patient is restored by inserting its row back
+// into patient with deleted_at cleared. Does nothing on H2 or on a non partitioned table.
+// Runs on every shard in turn, each shard has its own partitions.
+@Component
+public class PatientPartitionMaintenance {
+    private static final Logger log = LoggerFactory.getLogger(PatientPartitionMaintenance.class);
+    private static final String PARTITION_PREFIX = "patient_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("uuuu_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardDataSources shards;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsBehind;
+    private final int monthsAhead;
+    private final boolean archiveEnabled;
+    private final int archiveAfterMonths;
+
+    public PatientPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                       ShardDataSources shards,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${patient.partition.months-behind:24}") int monthsBehind,
+                                       @Value("${patient.partition.months-ahead:3}") int monthsAhead,
+                                       @Value("${patient.partition.archive-enabled:false}") boolean archiveEnabled,
+                                       @Value("${patient.partition.archive-after-months:60}") int archiveAfterMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shards = shards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsBehind = monthsBehind;
+        this.monthsAhead = monthsAhead;
+        this.archiveEnabled = archiveEnabled;
+        this.archiveAfterMonths = archiveAfterMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${patient.partition.maintenance-cron:0 0 3 * * *}")
+    public void maintain() {
+        for (String shard : shards.names()) {
+            try {
+                ShardContext.runOn(shard, () -> maintainShard(shard));
+            } catch (RuntimeException e) {
+                // One unreachable shard must not keep the others from getting their partitions
+                log.error("Partition maintenance failed on shard {}", shard, e);
+            }
+        }
+    }
+
+    private void maintainShard(String shard) {
+        if (!isPartitioned()) {
+            log.info("patient table is not partitioned on shard {}, skipping partition maintenance", shard);
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        Set<String> partitions = attachedPartitions();
+
+        // Never recreate months that are due for archiving
+        YearMonth first = current.minusMonths(archiveEnabled ? Math.min(monthsBehind, archiveAfterMonths) : monthsBehind);
+        // Created ahead of time so new registrations never land in the default partition
+        for (YearMonth month = first; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            if (!partitions.contains(partitionName(month))) {
+                createPartition(month);
+            }
+        }
+
+        if (archiveEnabled) {
+            archive(current.minusMonths(archiveAfterMonths), attachedPartitions());
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE patient INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            // The check constraint lets ATTACH skip scanning the new table
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + name + "_bounds CHECK (registered_date >= '"
+                    + from + "' AND registered_date < '" + to + "')");
+            // Rows of that month already sitting in the default partition would make ATTACH fail, move them over first
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM patient_default WHERE registered_date >= ? AND registered_date < ? RETURNING *) "
+                    + "INSERT INTO " + name + " SELECT * FROM moved", from, to);
+            jdbcTemplate.execute("ALTER TABLE patient ATTACH PARTITION " + name + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+            log.info("Created partition {} for [{}, {}), moved {} rows from patient_default", name, from, to, moved);
+        });
+    }
+
+    private void archive(YearMonth cutoff, Set<String> partitions) {
+        for (String name : partitions) {
+            if (!name.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            YearMonth month = YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            if (month.isBefore(cutoff)) {
+                // Detaching is a catalog change, only the live rows are rewritten: no partition covers their month any more,
+                // so they land in patient_default. DETACH locks patient until commit, readers never miss them.
+                Integer kept = transactionTemplate.execute(status -> {
+                    jdbcTemplate.execute("ALTER TABLE patient DETACH PARTITION " + name);
+                    int live = jdbcTemplate.update("WITH live AS (DELETE FROM " + name + " WHERE deleted_at IS NULL RETURNING *) "
+                            + "INSERT INTO patient SELECT * FROM live");
+                    jdbcTemplate.execute("ALTER TABLE " + name + " SET SCHEMA patient_archive");
+                    return live;
+                });
+                log.info("Archived the deleted patients of partition {} to patient_archive, kept {} live patients", name, kept);
+            }
+        }
+
+        // History older than the first monthly partition lives in the default partition and is archived row by row
+        LocalDate cutoffDate = cutoff.atDay(1);
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS patient_archive.patient_default (LIKE patient INCLUDING DEFAULTS)");
+            return jdbcTemplate.update("WITH moved AS (DELETE FROM patient_default WHERE registered_date < ? AND deleted_at IS NOT NULL RETURNING *) "
+                    + "INSERT INTO patient_archive.patient_default SELECT * FROM moved", cutoffDate);
+        });
+        if (moved != null && moved > 0) {
+            log.info("Archived {} deleted patients registered before {} from patient_default", moved, cutoffDate);
+        }
+    }
+
+    private boolean isPartitioned() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            return false;
+        }
+        Integer partitioned = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE c.relname = 'patient' AND n.nspname = current_schema() AND c.relkind = 'p'", Integer.class);
+        return partitioned != null && partitioned > 0;
+    }
+
+    private Set<String> attachedPartitions() {
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+                        + "JOIN pg_namespace n ON n.oid = p.relnamespace WHERE p.relname = 'patient' AND n.nspname = current_schema()",
+                String.class));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
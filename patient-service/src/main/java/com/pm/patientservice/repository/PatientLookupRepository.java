@@ -0,0 +1,63 @@
+package com.pm.patientservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import patient.PatientRecord;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Reads behind the internal gRPC API (PatientGrpcService): plain JDBC straight into the protobuf messages, no entity
+// and no DTO in between. The tenant is passed explicitly, the caller routes to its shard (TenantContext.callAs).
+@Repository
+public class PatientLookupRepository {
+    private static final String COLUMNS = "id, name, email, address, date_of_birth, registered_date, updated_at, deleted_at";
+
+    private static final RowMapper<PatientRecord> RECORD = (rs, rowNum) -> PatientRecord.newBuilder()
+            .setId(rs.getString("id"))
+            .setName(rs.getString("name"))
+            .setEmail(rs.getString("email"))
+            .setAddress(rs.getString("address"))
+            .setDateOfBirth(rs.getString("date_of_birth"))
+            .setRegisteredDate(rs.getString("registered_date"))
+            .setUpdatedAt(rs.getTimestamp("updated_at").toInstant().toString())
+            .setDeleted(rs.getTimestamp("deleted_at") != null)
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public PatientLookupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    // Live patients among ids, in one IN-list query
+    public List<PatientRecord> findByIds(String tenant, Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return namedJdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM patient WHERE tenant_id = :tenant AND id IN (:ids) AND deleted_at IS NULL",
+                new MapSqlParameterSource("tenant", tenant).addValue("ids", ids),
+                RECORD);
+    }
+
+    // One page of changes after (since, afterId) and before until, in (updated_at, id) order. The row comparison
+    // lets the (tenant_id, updated_at, id) index start at the cursor, so every page costs the same however deep it is.
+    public List<PatientRecord> findChangedSince(String tenant, Instant since, UUID afterId, Instant until,
+                                                boolean includeDeleted, int limit) {
+        return jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM patient WHERE tenant_id = ? AND (updated_at, id) > (?, ?) AND updated_at < ?"
+                        + (includeDeleted ? "" : " AND deleted_at IS NULL")
+                        + " ORDER BY updated_at, id LIMIT ?",
+                RECORD,
+                tenant, Timestamp.from(since), afterId, Timestamp.from(until), limit);
+    }
+}
@@ -0,0 +1,79 @@
+package com.pm.patientservice.repository;
+
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.exception.UnknownFieldException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Read side of the patients: JPQL projections straight into PatientResponseDTO, so no managed entity (and no dirty
+// checking snapshot) is created. Ids and dates are turned into strings by the database.
+// Tenant filtering (@TenantId) and the soft delete restriction apply as for entity queries.
+@Repository
+public class PatientReadRepository {
+    // Response field -> JPQL expression, in PatientResponseDTO constructor order
+    private static final Map<String, String> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("id", "cast(p.id as String)");
+        FIELDS.put("name", "p.name");
+        FIELDS.put("email", "p.email");
+        FIELDS.put("address", "p.address");
+        FIELDS.put("dateOfBirth", "cast(p.dateOfBirth as String)");
+    }
+
+    private static final String ALL_FIELDS_QUERY = "SELECT new com.pm.patientservice.dto.PatientResponseDTO("
+            + String.join(", ", FIELDS.values()) + ") FROM Patient p";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // fields null or empty = every field, otherwise only those columns are selected and the others stay null
+    public List<PatientResponseDTO> findAll(Set<String> fields) {
+        if (fields == null || fields.isEmpty() || fields.containsAll(FIELDS.keySet())) {
+            return entityManager.createQuery(ALL_FIELDS_QUERY, PatientResponseDTO.class).getResultList();
+        }
+
+        List<String> selected = new ArrayList<>();
+        for (String field : FIELDS.keySet()) {
+            if (fields.contains(field)) {
+                selected.add(field);
+            }
+        }
+        if (selected.size() != fields.size()) {
+            Set<String> unknown = new HashSet<>(fields);
+            unknown.removeAll(FIELDS.keySet());
+            throw new UnknownFieldException("Unknown fields " + unknown + ", expected any of " + FIELDS.keySet());
+        }
+
+        String select = String.join(", ", selected.stream().map(FIELDS::get).toList());
+        List<Object[]> rows = entityManager.createQuery("SELECT " + select + " FROM Patient p", Object[].class).getResultList();
+        List<PatientResponseDTO> patients = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            PatientResponseDTO patient = new PatientResponseDTO();
+            for (int i = 0; i < row.length; i++) {
+                set(patient, selected.get(i), (String) row[i]);
+            }
+            patients.add(patient);
+        }
+        return patients;
+    }
+
+    private static void set(PatientResponseDTO patient, String field, String value) {
+        switch (field) {
+            case "id" -> patient.setId(value);
+            case "name" -> patient.setName(value);
+            case "email" -> patient.setEmail(value);
+            case "address" -> patient.setAddress(value);
+            case "dateOfBirth" -> patient.setDateOfBirth(value);
+            default -> throw new IllegalStateException("Unmapped field " + field);
+        }
+    }
+}
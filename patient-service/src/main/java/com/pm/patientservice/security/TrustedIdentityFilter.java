@@ -0,0 +1,81 @@
+package com.pm.patientservice.security;
+
+import com.pm.patientservice.config.SecurityConfig;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Map;
+
+// Builds the security context from the identity the api-gateway forwards after validating the JWT
+// (X-User-Email / X-User-Role / X-User-Tenant, see IdentityHeadersGlobalFilter in api-gateway). No token parsing and no crypto:
+// the gateway strips these headers from client requests, and the request must also carry identity.gateway-token
+// as X-Gateway-Token (constant-time comparison). Requests without a usable identity stay anonymous, and so does every
+// request when no gateway token is configured: the headers alone prove nothing once the port is reachable.
+public class TrustedIdentityFilter extends OncePerRequestFilter {
+    public static final String USER_EMAIL_HEADER = "X-User-Email";
+    public static final String USER_ROLE_HEADER = "X-User-Role";
+    public static final String USER_TENANT_HEADER = "X-User-Tenant";
+    public static final String GATEWAY_TOKEN_HEADER = "X-Gateway-Token";
+
+    private static final Logger log = LoggerFactory.getLogger(TrustedIdentityFilter.class);
+    // The roles auth-service hands out, built once. Any other role value authenticates without authorities.
+    private static final Map<String, List<GrantedAuthority>> AUTHORITIES_BY_ROLE = Map.of(
+            SecurityConfig.ADMIN, List.of(new SimpleGrantedAuthority("ROLE_" + SecurityConfig.ADMIN)),
+            SecurityConfig.OPERATOR, List.of(new SimpleGrantedAuthority("ROLE_" + SecurityConfig.OPERATOR)),
+            "USER", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+    private final byte[] gatewayToken;
+
+    public TrustedIdentityFilter(String gatewayToken) {
+        this.gatewayToken = gatewayToken.getBytes(StandardCharsets.UTF_8);
+        if (this.gatewayToken.length == 0) {
+            log.warn("identity.gateway-token is not set, identity headers are ignored and every request is anonymous");
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String email = request.getHeader(USER_EMAIL_HEADER);
+        String role = request.getHeader(USER_ROLE_HEADER);
+        if (email != null && role != null && fromGateway(request)) {
+            String tenant = request.getHeader(USER_TENANT_HEADER);
+            List<GrantedAuthority> authorities = authorities(role, tenant);
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            GatewayIdentity identity = new GatewayIdentity(email, tenant);
+            context.setAuthentication(new PreAuthenticatedAuthenticationToken(identity, null, authorities));
+            SecurityContextHolder.setContext(context);
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // OPERATOR works across every tenant, a user that belongs to a tenant never gets it whatever its role says
+    private static List<GrantedAuthority> authorities(String role, String tenant) {
+        if (SecurityConfig.OPERATOR.equals(role) && tenant != null) {
+            return List.of();
+        }
+        return AUTHORITIES_BY_ROLE.getOrDefault(role, List.of());
+    }
+
+    private boolean fromGateway(HttpServletRequest request) {
+        if (gatewayToken.length == 0) {
+            return false;
+        }
+        String token = request.getHeader(GATEWAY_TOKEN_HEADER);
+        return token != null && MessageDigest.isEqual(gatewayToken, token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,46 +1,77 @@
 package com.pm.patientservice.service;
 
+import com.pm.patientservice.audit.AuditAction;
+import com.pm.patientservice.audit.PatientAuditLog;
+import com.pm.patientservice.audit.PatientAuditRecord;
+import com.pm.patientservice.audit.PatientAuditRepository;
+import com.pm.patientservice.dto.PatientAuditResponseDTO;
 import com.pm.patientservice.dto.PatientRequestDTO;
 import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.duplicate.DuplicateDetector;
+import com.pm.patientservice.duplicate.MatchRecord;
 import com.pm.patientservice.exception.EmailAlreadyExistsException;
 import com.pm.patientservice.exception.PatientNotFoundException;
 import com.pm.patientservice.grpc.BillingServiceGrpcClient;
 import com.pm.patientservice.kafka.KafkaProducer;
 import com.pm.patientservice.mapper.PatientMapper;
 import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientReadRepository;
 import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.sharding.ShardRouter;
+import com.pm.patientservice.sharding.TenantContext;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class PatientService {
     // Dependency Injection makes our code more modular, easier to test, adheres to the principles of inversion control (Common Pattern)
     private final PatientRepository patientRepository;
+    private final PatientReadRepository patientReadRepository;
     private final BillingServiceGrpcClient billingServiceGrpcClient;
     private final KafkaProducer kafkaProducer;
+    private final PatientAuditLog patientAuditLog;
+    private final PatientAuditRepository patientAuditRepository;
+    private final ShardRouter shardRouter;
+    private final DuplicateDetector duplicateDetector;
 
-    public PatientService(PatientRepository patientRepository, BillingServiceGrpcClient billingServiceGrpcClient, KafkaProducer kafkaProducer) {
+    public PatientService(PatientRepository patientRepository, PatientReadRepository patientReadRepository, BillingServiceGrpcClient billingServiceGrpcClient, KafkaProducer kafkaProducer,
+                          PatientAuditLog patientAuditLog, PatientAuditRepository patientAuditRepository, ShardRouter shardRouter,
+                          DuplicateDetector duplicateDetector) {
         this.patientRepository = patientRepository;
+        this.patientReadRepository = patientReadRepository;
         this.billingServiceGrpcClient = billingServiceGrpcClient;
         this.kafkaProducer = kafkaProducer;
+        this.patientAuditLog = patientAuditLog;
+        this.patientAuditRepository = patientAuditRepository;
+        this.shardRouter = shardRouter;
+        this.duplicateDetector = duplicateDetector;
     }
 
-    public List<PatientResponseDTO> getPatients (){
-        List<Patient> patients = patientRepository.findAll();
-
-        return patients.stream()
-                .map(PatientMapper::toDTO).toList(); //  patient -> PatientMapper.toDTO(patient) Lambda replaced
+    // Read-only: Hibernate skips flushing and dirty checking, and the JDBC connection is flagged read-only
+    @Transactional(readOnly = true)
+    public List<PatientResponseDTO> getPatients(Set<String> fields) {
+        return patientReadRepository.findAll(fields);
     }
 
     public PatientResponseDTO createPatient(PatientRequestDTO patientRequestDTO) {
+        // Places a new tenant on a shard, refuses the write while the tenant is switching shards
+        shardRouter.prepareWrite(TenantContext.current());
         if (patientRepository.existsByEmail(patientRequestDTO.getEmail())) {
             // Using our own custom exceptions to make it easy for us to trace errors in the logs
             throw new EmailAlreadyExistsException("A Patient with this email already exists"+ patientRequestDTO.getEmail());
         }
         Patient newPatient = patientRepository.save(PatientMapper.toModel(patientRequestDTO));
+        Instant registeredAt = Instant.now();
+        patientAuditLog.record(AuditAction.CREATED, shardRouter.tenantOrDefault(TenantContext.current()), newPatient.getId(), null, newPatient);
+        // Exact email matches are refused above, other duplicates are matched in the background
+        duplicateDetector.patientChanged(shardRouter.tenantOrDefault(TenantContext.current()), MatchRecord.of(newPatient));
 
         billingServiceGrpcClient.createBillingAccount(
                 newPatient.getId().toString(),
@@ -48,31 +79,44 @@ public class PatientService {
                 newPatient.getEmail()
         );
 
-        kafkaProducer.sendEvent(newPatient);
+        kafkaProducer.sendEvent(newPatient, registeredAt);
 
         return PatientMapper.toDTO(newPatient);
     }
 
     public PatientResponseDTO updatePatient(UUID id, PatientRequestDTO patientRequestDTO) {
+        shardRouter.prepareWrite(TenantContext.current());
         Patient patient = patientRepository.findById(id)
                 .orElseThrow(() -> new PatientNotFoundException("Patient not found with id: " + id));
         if (patientRepository.existsByEmailAndIdNot(patientRequestDTO.getEmail(), id)) {
             // Using our own custom exceptions to make it easy for us to trace errors in the logs
             throw new EmailAlreadyExistsException("A Patient with this email already exists"+ patientRequestDTO.getEmail());
         }
+        // Taken before the setters below, the entity is updated in place
+        Map<String, String> before = PatientAuditRecord.snapshot(patient);
         patient.setName(patientRequestDTO.getName());
         patient.setEmail(patientRequestDTO.getEmail());
         patient.setAddress(patientRequestDTO.getAddress());
         patient.setdateOfBirth(LocalDate.parse(patientRequestDTO.getDateOfBirth()));
         // We don't update the registered date as it should remain unchanged after creation and the id too
         Patient updatedPatient = patientRepository.save(patient);
+        patientAuditLog.record(AuditAction.UPDATED, shardRouter.tenantOrDefault(TenantContext.current()), id, before, PatientAuditRecord.snapshot(updatedPatient));
+        duplicateDetector.patientChanged(shardRouter.tenantOrDefault(TenantContext.current()), MatchRecord.of(updatedPatient));
         return PatientMapper.toDTO(updatedPatient);
     }
 
     public void deletePatient(UUID id) {
-        if (!patientRepository.existsById(id)) {
-            throw new PatientNotFoundException("Patient not found with id: " + id);
-        }
-        patientRepository.deleteById(id);
+        shardRouter.prepareWrite(TenantContext.current());
+        Patient patient = patientRepository.findById(id)
+                .orElseThrow(() -> new PatientNotFoundException("Patient not found with id: " + id));
+        patientRepository.delete(patient); // Soft delete, see @SQLDelete on Patient
+        patientAuditLog.record(AuditAction.DELETED, shardRouter.tenantOrDefault(TenantContext.current()), id, patient, null);
+        duplicateDetector.patientRemoved(shardRouter.tenantOrDefault(TenantContext.current()), id);
+    }
+
+    // Records reach the table asynchronously, the last flush interval (audit.flush-interval) may not be visible yet.
+    // Only the audit trail of the tenant's own patients: another tenant's patient id finds nothing.
+    public List<PatientAuditResponseDTO> getPatientAudit(UUID id) {
+        return patientAuditRepository.findByPatientId(shardRouter.tenantOrDefault(TenantContext.current()), id);
     }
 }
@@ -0,0 +1,44 @@
+package com.pm.patientservice.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Tenant -> shard by consistent hashing: every shard owns virtualNodes points on a 64-bit ring and a tenant belongs to
+// the first point at or after its hash. Adding a shard only takes over ~1/N of the tenants, the others keep their shard.
+// MD5 is used for its spread and stability across JVMs, not for security.
+final class ConsistentHashRing {
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    ConsistentHashRing(Collection<String> shards, int virtualNodes) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("The hash ring needs at least one shard");
+        }
+        for (String shard : shards) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(shard + "#" + i), shard);
+            }
+        }
+    }
+
+    String shardFor(String tenant) {
+        Map.Entry<Long, String> owner = ring.ceilingEntry(hash(tenant));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+
+    private static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.pm.patientservice.sharding;
+
+// State of a tenant in tenant_placement: FROZEN only lasts for the final catch-up of a move, writes are refused meanwhile
+public enum PlacementState {
+    ACTIVE,
+    MOVING,
+    FROZEN
+}
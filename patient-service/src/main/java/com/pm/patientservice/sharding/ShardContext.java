@@ -0,0 +1,36 @@
+package com.pm.patientservice.sharding;
+
+import java.util.function.Supplier;
+
+// Pins the shard regardless of the tenant, for work that targets one shard on purpose (partition maintenance, scatter-gather)
+public final class ShardContext {
+    private static final ThreadLocal<String> SHARD = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    static String current() {
+        return SHARD.get();
+    }
+
+    public static <T> T callOn(String shard, Supplier<T> action) {
+        String previous = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                SHARD.set(previous);
+            } else {
+                SHARD.remove();
+            }
+        }
+    }
+
+    public static void runOn(String shard, Runnable action) {
+        callOn(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.pm.patientservice.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+// The connection pool of every shard by name, the directory shard (spring.datasource.*) first.
+// The directory shard also holds the tenant placements, the audit trail and the default tenant.
+public class ShardDataSources implements AutoCloseable {
+    private final String directoryShard;
+    private final Map<String, DataSource> dataSources;
+
+    ShardDataSources(String directoryShard, Map<String, DataSource> dataSources) {
+        this.directoryShard = directoryShard;
+        this.dataSources = Collections.unmodifiableMap(dataSources);
+    }
+
+    public String directoryShard() {
+        return directoryShard;
+    }
+
+    public DataSource directory() {
+        return dataSources.get(directoryShard);
+    }
+
+    public DataSource get(String shard) {
+        DataSource dataSource = dataSources.get(shard);
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return dataSource;
+    }
+
+    public Set<String> names() {
+        return dataSources.keySet();
+    }
+
+    Map<String, DataSource> asMap() {
+        return dataSources;
+    }
+
+    @Override
+    public void close() {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        }
+    }
+}
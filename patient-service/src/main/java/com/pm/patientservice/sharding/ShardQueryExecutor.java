@@ -0,0 +1,66 @@
+package com.pm.patientservice.sharding;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Scatter-gather for admin queries: the same query runs on every shard in parallel and the results come back per shard.
+// Queries go straight to each shard's pool (no tenant filter), they must not be used for tenant-facing reads.
+@Component
+public class ShardQueryExecutor {
+    public record ShardResult<T>(String shard, List<T> rows) {
+    }
+
+    private final Map<String, JdbcTemplate> templates = new LinkedHashMap<>();
+    private final ExecutorService executor;
+    private final Duration timeout;
+
+    public ShardQueryExecutor(ShardDataSources shards, @Value("${sharding.scatter-gather.timeout:10s}") Duration timeout) {
+        shards.names().forEach(shard -> templates.put(shard, new JdbcTemplate(shards.get(shard))));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(templates.size(), task -> {
+            Thread thread = new Thread(task, "shard-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeout = timeout;
+    }
+
+    public <T> List<ShardResult<T>> scatterGather(Function<JdbcTemplate, List<T>> query) {
+        List<CompletableFuture<ShardResult<T>>> futures = new ArrayList<>();
+        templates.forEach((shard, template) ->
+                futures.add(CompletableFuture.supplyAsync(() -> new ShardResult<>(shard, query.apply(template)), executor)));
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Scatter-gather query timed out after " + timeout);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the shards", e);
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,122 @@
+package com.pm.patientservice.sharding;
+
+import com.pm.patientservice.exception.TenantMovingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Decides which shard holds a tenant. The tenant_placement table of the directory shard is the source of truth:
+// a tenant gets a row on its first write, on the shard the hash ring picks at that moment, and keeps it until
+// TenantRebalancer moves it. Adding a shard to the ring therefore never re-routes existing tenants by itself.
+// Placements are cached and reloaded every sharding.placement-refresh-interval, routing a request is a map lookup.
+@Component
+public class ShardRouter {
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    public record Placement(String shard, PlacementState state) {
+    }
+
+    private final String directoryShard;
+    private final String defaultTenant;
+    private final ConsistentHashRing ring;
+    private final JdbcTemplate directory;
+    private volatile Map<String, Placement> placements = Map.of();
+
+    public ShardRouter(ShardDataSources shards, ShardingProperties properties) {
+        this.directoryShard = shards.directoryShard();
+        this.defaultTenant = properties.defaultTenant();
+        // Sorted so every instance builds the same ring
+        this.ring = new ConsistentHashRing(new TreeSet<>(shards.names()), properties.virtualNodes());
+        this.directory = new JdbcTemplate(shards.directory());
+    }
+
+    public String shardFor(String tenant) {
+        Placement placement = placements.get(tenant);
+        return placement != null ? placement.shard() : ringShard(tenant);
+    }
+
+    // Where the hash ring would put the tenant today, the default tenant (and the seed data) always lives on the directory shard
+    public String ringShard(String tenant) {
+        return defaultTenant.equals(tenant) ? directoryShard : ring.shardFor(tenant);
+    }
+
+    // Called before every write: records the placement of a new tenant and refuses writes during the switch of a move
+    public void prepareWrite(String tenant) {
+        String resolved = tenantOrDefault(tenant);
+        Placement placement = placements.get(resolved);
+        if (placement == null) {
+            placement = place(resolved);
+        }
+        if (placement.state() == PlacementState.FROZEN) {
+            throw new TenantMovingException("Tenant " + resolved + " is being moved to another shard, retry shortly");
+        }
+    }
+
+    public String tenantOrDefault(String tenant) {
+        return tenant != null ? tenant : defaultTenant;
+    }
+
+    public String directoryShard() {
+        return directoryShard;
+    }
+
+    public Map<String, Placement> placements() {
+        return placements;
+    }
+
+    // Used by TenantRebalancer, takes effect here immediately and on the other instances at their next refresh
+    void savePlacement(String tenant, String shard, PlacementState state) {
+        Timestamp now = Timestamp.from(Instant.now());
+        int updated = directory.update("UPDATE tenant_placement SET shard = ?, state = ?, updated_at = ? WHERE tenant_id = ?",
+                shard, state.name(), now, tenant);
+        if (updated == 0) {
+            directory.update("INSERT INTO tenant_placement (tenant_id, shard, state, updated_at) VALUES (?, ?, ?, ?)",
+                    tenant, shard, state.name(), now);
+        }
+        refresh();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${sharding.placement-refresh-interval:2s}")
+    public void refresh() {
+        try {
+            Map<String, Placement> loaded = new HashMap<>();
+            directory.query("SELECT tenant_id, shard, state FROM tenant_placement", rs -> {
+                loaded.put(rs.getString("tenant_id"),
+                        new Placement(rs.getString("shard"), PlacementState.valueOf(rs.getString("state"))));
+            });
+            placements = Map.copyOf(loaded);
+        } catch (DataAccessException e) {
+            log.warn("Could not load tenant placements, keeping {} cached: {}", placements.size(), e.getMessage());
+        }
+    }
+
+    private synchronized Placement place(String tenant) {
+        Placement placement = placements.get(tenant);
+        if (placement != null) {
+            return placement;
+        }
+        try {
+            directory.update("INSERT INTO tenant_placement (tenant_id, shard, state, updated_at) VALUES (?, ?, ?, ?)",
+                    tenant, ringShard(tenant), PlacementState.ACTIVE.name(), Timestamp.from(Instant.now()));
+            log.info("Placed new tenant {} on {}", tenant, ringShard(tenant));
+        } catch (DuplicateKeyException e) {
+            // Placed by another instance in the meantime, its row wins
+        }
+        refresh();
+        placement = placements.get(tenant);
+        return placement != null ? placement : new Placement(ringShard(tenant), PlacementState.ACTIVE);
+    }
+}
@@ -0,0 +1,28 @@
+package com.pm.patientservice.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+
+// The application's DataSource: each connection (so each transaction) comes from the shard of the current tenant,
+// or from the shard pinned with ShardContext. Without either (startup, background threads) it is the directory shard.
+class ShardRoutingDataSource extends AbstractRoutingDataSource {
+    private final ShardRouter shardRouter;
+
+    ShardRoutingDataSource(ShardDataSources shards, ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+        setTargetDataSources(new HashMap<>(shards.asMap()));
+        setDefaultTargetDataSource(shards.directory());
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardContext.current();
+        if (shard != null) {
+            return shard;
+        }
+        String tenant = TenantContext.current();
+        return tenant != null ? shardRouter.shardFor(tenant) : shardRouter.directoryShard();
+    }
+}
@@ -0,0 +1,39 @@
+package com.pm.patientservice.sharding;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.init.DataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// spring.sql.init only runs against the directory shard (schema + seed data). The other shards get the same schema
+// (schema-<platform>.sql then schema.sql) but never data.sql: the seed patients belong to the default tenant.
+@Component
+public class ShardSchemaInitializer implements InitializingBean {
+    private final ShardDataSources shards;
+    private final DatabaseInitializationMode mode;
+    private final String platform;
+
+    public ShardSchemaInitializer(ShardDataSources shards,
+                                  @Value("${spring.sql.init.mode:embedded}") DatabaseInitializationMode mode,
+                                  @Value("${spring.sql.init.platform:all}") String platform) {
+        this.shards = shards;
+        this.mode = mode;
+        this.platform = platform;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setSchemaLocations(List.of("optional:classpath*:schema-" + platform + ".sql", "optional:classpath*:schema.sql"));
+        settings.setMode(mode);
+        for (String shard : shards.names()) {
+            if (!shard.equals(shards.directoryShard())) {
+                new DataSourceScriptDatabaseInitializer(shards.get(shard), settings).initializeDatabase();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.pm.patientservice.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One connection pool per shard behind a routing DataSource, so JPA, JdbcTemplate and spring.sql.init keep working unchanged.
+// Without sharding.shards.* there is a single shard, the spring.datasource.* database, exactly as before.
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardDataSources shardDataSources(DataSourceProperties dataSourceProperties, ShardingProperties sharding, Environment environment) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put(sharding.directoryShard(),
+                pool(dataSourceProperties.initializeDataSourceBuilder(), environment, sharding.directoryShard()));
+        sharding.shards().forEach((name, shard) -> {
+            if (dataSources.containsKey(name)) {
+                throw new IllegalStateException("Shard " + name + " is already the directory shard (spring.datasource.*)");
+            }
+            dataSources.put(name, pool(DataSourceBuilder.create()
+                    .url(shard.url())
+                    .username(shard.username())
+                    .password(shard.password()), environment, name));
+        });
+        return new ShardDataSources(sharding.directoryShard(), dataSources);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardDataSources shardDataSources, ShardRouter shardRouter) {
+        return new ShardRoutingDataSource(shardDataSources, shardRouter);
+    }
+
+    // Declared here because defining our own DataSource keeps Spring Boot's JdbcTemplate, it is bound to the routing DataSource
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer tenantIdentifierResolver(ShardingProperties sharding) {
+        return properties -> properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER,
+                new TenantIdentifierResolver(sharding.defaultTenant()));
+    }
+
+    // Every shard gets the spring.datasource.hikari.* pool settings
+    private static HikariDataSource pool(DataSourceBuilder<?> builder, Environment environment, String shard) {
+        HikariDataSource dataSource = builder.type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName("patient-" + shard);
+        return dataSource;
+    }
+}
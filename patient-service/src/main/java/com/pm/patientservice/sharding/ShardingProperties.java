@@ -0,0 +1,22 @@
+package com.pm.patientservice.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+// sharding.shards.<name>.url/username/password adds a shard next to the directory shard (spring.datasource.*).
+// Shard names are part of the hash ring and of the tenant placements: never rename one that holds data.
+@ConfigurationProperties(prefix = "sharding")
+public record ShardingProperties(@DefaultValue("shard0") String directoryShard,
+                                 @DefaultValue("128") int virtualNodes,
+                                 @DefaultValue("default") String defaultTenant,
+                                 Map<String, Shard> shards) {
+
+    public record Shard(String url, String username, String password) {
+    }
+
+    public Map<String, Shard> shards() {
+        return shards != null ? shards : Map.of();
+    }
+}
@@ -0,0 +1,46 @@
+package com.pm.patientservice.sharding;
+
+import java.util.function.Supplier;
+
+// Tenant (clinic) of the current request, set by TenantFilter. Routes the request to the tenant's shard
+// (ShardRoutingDataSource) and scopes every JPA query to the tenant (@TenantId on Patient).
+public final class TenantContext {
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    private static final ThreadLocal<String> TENANT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    // null outside of a request, the default tenant applies then
+    public static String current() {
+        return TENANT.get();
+    }
+
+    // For work handed to another thread (streaming responses, background jobs)
+    public static <T> T callAs(String tenant, Supplier<T> action) {
+        String previous = TENANT.get();
+        TENANT.set(tenant);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    static void set(String tenant) {
+        TENANT.set(tenant);
+    }
+
+    static void clear() {
+        TENANT.remove();
+    }
+
+    private static void restore(String previous) {
+        if (previous != null) {
+            TENANT.set(previous);
+        } else {
+            TENANT.remove();
+        }
+    }
+}
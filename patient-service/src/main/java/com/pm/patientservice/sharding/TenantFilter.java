@@ -0,0 +1,73 @@
+package com.pm.patientservice.sharding;
+
+import com.pm.patientservice.security.GatewayIdentity;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+// Sets the tenant (clinic) of the request to the tenant of the user's token (X-User-Tenant, see TrustedIdentityFilter),
+// users without one and anonymous requests belong to sharding.default-tenant. X-Tenant-Id is optional and must name
+// that same tenant: a user can't reach another clinic's patients by changing a header.
+// Runs after the security filter chain, so the identity is known.
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 10)
+public class TenantFilter extends OncePerRequestFilter {
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final String defaultTenant;
+
+    public TenantFilter(@Value("${sharding.default-tenant:default}") String defaultTenant) {
+        this.defaultTenant = defaultTenant;
+    }
+
+    // Also checked by callers naming the tenant outside of HTTP (PatientGrpcService)
+    public static boolean isValidTenantId(String tenant) {
+        return TENANT_ID.matcher(tenant).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String requested = request.getHeader(TenantContext.TENANT_HEADER);
+        if (requested != null && !isValidTenantId(requested)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid " + TenantContext.TENANT_HEADER);
+            return;
+        }
+        String tenant = identityTenant();
+        if (!isValidTenantId(tenant)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Invalid tenant of the user");
+            return;
+        }
+        if (requested != null && !requested.equals(tenant)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN,
+                    TenantContext.TENANT_HEADER + " does not match the tenant of the user");
+            return;
+        }
+        TenantContext.set(tenant);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private String identityTenant() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof GatewayIdentity identity
+                && identity.tenant() != null) {
+            return identity.tenant();
+        }
+        return defaultTenant;
+    }
+}
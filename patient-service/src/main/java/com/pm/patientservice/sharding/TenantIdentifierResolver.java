@@ -0,0 +1,23 @@
+package com.pm.patientservice.sharding;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+// Hibernate side of TenantContext: fills @TenantId on insert and adds "tenant_id = ?" to every JPA query
+class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
+    private final String defaultTenant;
+
+    TenantIdentifierResolver(String defaultTenant) {
+        this.defaultTenant = defaultTenant;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        String tenant = TenantContext.current();
+        return tenant != null ? tenant : defaultTenant;
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+package com.pm.patientservice.sharding;
+
+import java.time.Instant;
+
+// Progress of one tenant move, returned by the shard admin endpoints
+public class TenantMove {
+    public enum State { QUEUED, COPYING, CATCHING_UP, FROZEN, CLEANING_UP, DONE, FAILED }
+
+    private final String tenantId;
+    private final String source;
+    private final String target;
+    private final Instant requestedAt = Instant.now();
+    private volatile State state = State.QUEUED;
+    private volatile long copiedRows;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    TenantMove(String tenantId, String source, String target) {
+        this.tenantId = tenantId;
+        this.source = source;
+        this.target = target;
+    }
+
+    void setState(State state) {
+        this.state = state;
+        if (state == State.DONE || state == State.FAILED) {
+            this.finishedAt = Instant.now();
+        }
+    }
+
+    void addCopiedRows(long rows) {
+        this.copiedRows += rows;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        setState(State.FAILED);
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getCopiedRows() {
+        return copiedRows;
+    }
+
+    public Instant getRequestedAt() {
+        return requestedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,196 @@
+package com.pm.patientservice.sharding;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Moves a tenant to another shard while it keeps being served:
+// 1. bulk copy of the tenant's rows (deleted ones included) from the source to the target, in keyset batches
+// 2. catch-up passes copying the rows changed since the previous pass (updated_at), until few rows change per pass
+// 3. the placement is FROZEN: writes are refused with a 503 for a short time, in-flight writes finish during freeze-grace
+//    (it must exceed sharding.placement-refresh-interval so every instance has seen the freeze), then a last catch-up
+// 4. the placement switches to the target, then the rows are deleted from the source
+// Reads keep going to the source until the switch. Moves run one at a time.
+@Service
+public class TenantRebalancer {
+    private static final Logger log = LoggerFactory.getLogger(TenantRebalancer.class);
+    private static final String COLUMNS = "id, tenant_id, name, email, address, date_of_birth, registered_date, deleted_at, updated_at";
+
+    private final ShardDataSources shards;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final int maxCatchUpPasses;
+    private final int catchUpThreshold;
+    private final Duration clockSkew;
+    private final Duration freezeGrace;
+    private final Map<String, TenantMove> moves = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(task -> new Thread(task, "tenant-rebalancer"));
+
+    public TenantRebalancer(ShardDataSources shards,
+                            ShardRouter shardRouter,
+                            @Value("${sharding.rebalance.batch-size:500}") int batchSize,
+                            @Value("${sharding.rebalance.max-catch-up-passes:5}") int maxCatchUpPasses,
+                            @Value("${sharding.rebalance.catch-up-threshold:100}") int catchUpThreshold,
+                            @Value("${sharding.rebalance.clock-skew:5s}") Duration clockSkew,
+                            @Value("${sharding.rebalance.freeze-grace:5s}") Duration freezeGrace) {
+        this.shards = shards;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+        this.maxCatchUpPasses = maxCatchUpPasses;
+        this.catchUpThreshold = catchUpThreshold;
+        this.clockSkew = clockSkew;
+        this.freezeGrace = freezeGrace;
+    }
+
+    public synchronized TenantMove move(String tenant, String target) {
+        shards.get(target);
+        String source = shardRouter.shardFor(tenant);
+        if (source.equals(target)) {
+            throw new IllegalArgumentException("Tenant " + tenant + " is already on " + target);
+        }
+        TenantMove running = moves.get(tenant);
+        if (running != null && !running.isFinished()) {
+            throw new IllegalStateException("Tenant " + tenant + " is already being moved to " + running.getTarget());
+        }
+        TenantMove move = new TenantMove(tenant, source, target);
+        moves.put(tenant, move);
+        executor.submit(() -> run(move));
+        return move;
+    }
+
+    public Collection<TenantMove> moves() {
+        return moves.values();
+    }
+
+    private void run(TenantMove move) {
+        String tenant = move.getTenantId();
+        JdbcTemplate source = new JdbcTemplate(shards.get(move.getSource()));
+        JdbcTemplate target = new JdbcTemplate(shards.get(move.getTarget()));
+        TransactionTemplate targetTransaction = new TransactionTemplate(new DataSourceTransactionManager(shards.get(move.getTarget())));
+        try {
+            log.info("Moving tenant {} from {} to {}", tenant, move.getSource(), move.getTarget());
+            shardRouter.savePlacement(tenant, move.getSource(), PlacementState.MOVING);
+
+            move.setState(TenantMove.State.COPYING);
+            Instant since = Instant.now().minus(clockSkew);
+            copy(move, source, target, targetTransaction, null);
+
+            move.setState(TenantMove.State.CATCHING_UP);
+            for (int pass = 0; pass < maxCatchUpPasses; pass++) {
+                Instant passStart = Instant.now().minus(clockSkew);
+                long changed = copy(move, source, target, targetTransaction, since);
+                since = passStart;
+                if (changed < catchUpThreshold) {
+                    break;
+                }
+            }
+
+            move.setState(TenantMove.State.FROZEN);
+            shardRouter.savePlacement(tenant, move.getSource(), PlacementState.FROZEN);
+            Thread.sleep(freezeGrace.toMillis());
+            copy(move, source, target, targetTransaction, since);
+            shardRouter.savePlacement(tenant, move.getTarget(), PlacementState.ACTIVE);
+
+            move.setState(TenantMove.State.CLEANING_UP);
+            long deleted = deleteTenant(source, tenant);
+            move.setState(TenantMove.State.DONE);
+            log.info("Moved tenant {} to {}: {} rows copied, {} rows removed from {}",
+                    tenant, move.getTarget(), move.getCopiedRows(), deleted, move.getSource());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Moving tenant {} to {} failed, it stays on {}", tenant, move.getTarget(), move.getSource(), e);
+            move.fail(e.getMessage());
+            rollback(move, target);
+        }
+    }
+
+    // Copies the tenant's rows changed since "since" (all of them when null), returns how many were copied
+    private long copy(TenantMove move, JdbcTemplate source, JdbcTemplate target, TransactionTemplate targetTransaction, Instant since) {
+        long copied = 0;
+        Object afterId = null;
+        while (true) {
+            StringBuilder sql = new StringBuilder("SELECT " + COLUMNS + " FROM patient WHERE tenant_id = ?");
+            List<Object> params = new ArrayList<>(List.of(move.getTenantId()));
+            if (afterId != null) {
+                sql.append(" AND id > ?");
+                params.add(afterId);
+            }
+            if (since != null) {
+                sql.append(" AND updated_at >= ?");
+                params.add(Timestamp.from(since));
+            }
+            sql.append(" ORDER BY id LIMIT ").append(batchSize);
+            List<Object[]> rows = source.query(sql.toString(), TenantRebalancer::row, params.toArray());
+            if (rows.isEmpty()) {
+                return copied;
+            }
+
+            // Delete + insert instead of an upsert: portable across PostgreSQL and H2, and rows may be copied several times
+            targetTransaction.executeWithoutResult(status -> {
+                target.batchUpdate("DELETE FROM patient WHERE tenant_id = ? AND id = ?",
+                        rows.stream().map(row -> new Object[]{move.getTenantId(), row[0]}).toList());
+                target.batchUpdate("INSERT INTO patient (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+            });
+            copied += rows.size();
+            move.addCopiedRows(rows.size());
+            afterId = rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    private long deleteTenant(JdbcTemplate template, String tenant) {
+        long deleted = 0;
+        int batch;
+        do {
+            batch = template.update("DELETE FROM patient WHERE tenant_id = ? AND id IN "
+                    + "(SELECT id FROM patient WHERE tenant_id = ? ORDER BY id LIMIT " + batchSize + ")", tenant, tenant);
+            deleted += batch;
+        } while (batch > 0);
+        return deleted;
+    }
+
+    // Back to the source: placement restored (unless the switch already happened) and the partial copy removed
+    private void rollback(TenantMove move, JdbcTemplate target) {
+        try {
+            if (!move.getTarget().equals(shardRouter.shardFor(move.getTenantId()))) {
+                shardRouter.savePlacement(move.getTenantId(), move.getSource(), PlacementState.ACTIVE);
+                deleteTenant(target, move.getTenantId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not roll back the move of tenant {}, check tenant_placement and shard {}",
+                    move.getTenantId(), move.getTarget(), e);
+        }
+    }
+
+    private static Object[] row(ResultSet rs, int rowNum) throws SQLException {
+        Object[] row = new Object[9];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = rs.getObject(i + 1);
+        }
+        return row;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
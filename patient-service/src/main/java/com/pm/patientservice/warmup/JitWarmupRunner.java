@@ -0,0 +1,159 @@
+package com.pm.patientservice.warmup;
+
+import billing.BillingRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pm.patientservice.config.SecurityConfig;
+import com.pm.patientservice.controller.PatientController;
+import com.pm.patientservice.dto.PatientRequestDTO;
+import com.pm.patientservice.dto.PatientResponseDTO;
+import com.pm.patientservice.mapper.PatientMapper;
+import com.pm.patientservice.mapper.PatientProtoMapper;
+import com.pm.patientservice.model.Patient;
+import com.pm.patientservice.repository.PatientRepository;
+import com.pm.patientservice.security.TrustedIdentityFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+import patient.events.PatientEvent;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+// Optional JIT warm-up (warmup.enabled=true). ApplicationRunners finish before Spring Boot publishes
+// ReadinessState.ACCEPTING_TRAFFIC, so /actuator/health/readiness stays OUT_OF_SERVICE until the hot paths are compiled.
+// Nothing is persisted or sent: controller calls target unknown ids (404) and writes are rolled back.
+@Component
+public class JitWarmupRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(JitWarmupRunner.class);
+
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration maxDuration;
+    private final Environment environment;
+    private final PatientRepository patientRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public JitWarmupRunner(@Value("${warmup.enabled:false}") boolean enabled,
+                           @Value("${warmup.iterations:2000}") int iterations,
+                           @Value("${warmup.max-duration:60s}") Duration maxDuration,
+                           Environment environment,
+                           PatientRepository patientRepository,
+                           PlatformTransactionManager transactionManager,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+        this.environment = environment;
+        this.patientRepository = patientRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        // The flag is read at runtime rather than through @ConditionalOnProperty so AOT builds can still toggle it
+        if (!enabled) {
+            return;
+        }
+        // Same identity headers as the api-gateway would forward, so the security filter chain is warmed up too
+        RestClient restClient = RestClient.builder()
+                .baseUrl("http://localhost:" + environment.getProperty("local.server.port"))
+                .defaultHeader(TrustedIdentityFilter.USER_EMAIL_HEADER, "warmup@warmup.invalid")
+                .defaultHeader(TrustedIdentityFilter.USER_ROLE_HEADER, SecurityConfig.ADMIN)
+                .defaultHeader(TrustedIdentityFilter.GATEWAY_TOKEN_HEADER, environment.getProperty("identity.gateway-token", ""))
+                .build();
+        log.info("JIT warm-up started: up to {} iterations or {}", iterations, maxDuration);
+
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        int completed = 0;
+        int failed = 0;
+        while (completed < iterations && System.nanoTime() < deadline) {
+            try {
+                warmup(restClient, completed);
+            } catch (RuntimeException e) {
+                failed++;
+                log.debug("JIT warm-up iteration {} failed", completed, e);
+            }
+            completed++;
+        }
+
+        Duration took = Duration.ofNanos(System.nanoTime() - start);
+        meterRegistry.timer("warmup.duration").record(took);
+        log.info("JIT warm-up finished: {} iterations ({} failed) in {} ms", completed, failed, took.toMillis());
+    }
+
+    private void warmup(RestClient restClient, int iteration) {
+        PatientRequestDTO request = syntheticRequest(iteration);
+
+        // Tomcat -> Jackson -> validation -> controller -> service -> repository -> exception handler, for an id that doesn't exist
+        restClient.put()
+                .uri("/patients/{id}", UUID.randomUUID())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(request)
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, (req, res) -> { })
+                .toBodilessEntity();
+        restClient.put()
+                .uri("/patients/{id}", UUID.randomUUID())
+                .contentType(MediaType.parseMediaType(PatientController.APPLICATION_PROTOBUF))
+                .body(PatientProtoMapper.toProto(request).toByteArray())
+                .retrieve()
+                .onStatus(HttpStatusCode::isError, (req, res) -> { })
+                .toBodilessEntity();
+
+        // Create path without its side effects: the insert is flushed then rolled back, billing and Kafka messages are only serialized
+        transactionTemplate.executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            patientRepository.existsByEmail(request.getEmail());
+            Patient patient = patientRepository.saveAndFlush(PatientMapper.toModel(request));
+            PatientResponseDTO patientResponseDTO = PatientMapper.toDTO(patient);
+            try {
+                objectMapper.writeValueAsBytes(List.of(patientResponseDTO));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            PatientProtoMapper.toProto(List.of(patientResponseDTO)).toByteArray();
+            BillingRequest.newBuilder()
+                    .setPatientId(patientResponseDTO.getId())
+                    .setName(patientResponseDTO.getName())
+                    .setEmail(patientResponseDTO.getEmail())
+                    .build()
+                    .toByteArray();
+            PatientEvent.newBuilder()
+                    .setPatientId(patientResponseDTO.getId())
+                    .setName(patientResponseDTO.getName())
+                    .setEmail(patientResponseDTO.getEmail())
+                    .setEventType("PATIENT_CREATED")
+                    .build()
+                    .toByteArray();
+        });
+    }
+
+    private static PatientRequestDTO syntheticRequest(int iteration) {
+        PatientRequestDTO request = new PatientRequestDTO();
+        request.setName("Warmup Patient " + iteration);
+        request.setEmail("warmup-" + UUID.randomUUID() + "@warmup.invalid");
+        request.setAddress(iteration + " Warmup St");
+        request.setDateOfBirth(LocalDate.of(1970, 1, 1).plusDays(iteration % 10000).toString());
+        request.setRegisteredDate(LocalDate.now().toString());
+        return request;
+    }
+}
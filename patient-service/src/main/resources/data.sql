@@ -1,14 +1,3 @@
--- Ensure the 'patient' table exists
-CREATE TABLE IF NOT EXISTS patient
-(
-    id              UUID PRIMARY KEY NOT NULL,
-    name            VARCHAR(255)        NOT NULL,
-    email           VARCHAR(255) UNIQUE NOT NULL,
-    address         VARCHAR(255)        NOT NULL,
-    date_of_birth   DATE                NOT NULL,
-    registered_date DATE                NOT NULL
-    );
-
 -- Insert well-known UUIDs for specific patients
 INSERT INTO patient (id, name, email, address, date_of_birth, registered_date)
 SELECT '123e4567-e89b-12d3-a456-426614174000',
@@ -0,0 +1,31 @@
+-- Only runs with spring.sql.init.platform=postgresql, before data.sql
+-- Patients are range partitioned by registered_date, monthly partitions are created (and archived) by PatientPartitionMaintenance
+-- PostgreSQL requires the partition key in every unique constraint, so email uniqueness is checked by PatientService
+CREATE TABLE IF NOT EXISTS patient
+(
+    id              UUID         NOT NULL,
+    tenant_id       VARCHAR(64)  DEFAULT 'default' NOT NULL,
+    name            VARCHAR(255) NOT NULL,
+    email           VARCHAR(255) NOT NULL,
+    address         VARCHAR(255) NOT NULL,
+    date_of_birth   DATE         NOT NULL,
+    registered_date DATE         NOT NULL,
+    deleted_at      TIMESTAMP WITH TIME ZONE,
+    updated_at      TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, registered_date)
+    ) PARTITION BY RANGE (registered_date);
+
+-- Catches registrations outside every monthly partition (older history, or a month the job hasn't created yet)
+CREATE TABLE IF NOT EXISTS patient_default PARTITION OF patient DEFAULT;
+
+-- Databases created before partitioning keep their plain table, it still gets the soft delete column
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP WITH TIME ZONE;
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS tenant_id VARCHAR(64) DEFAULT 'default' NOT NULL;
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+-- Email lookups only ever consider live patients of one tenant
+DROP INDEX IF EXISTS patient_email_live_idx;
+CREATE INDEX IF NOT EXISTS patient_tenant_email_live_idx ON patient (tenant_id, email) WHERE deleted_at IS NULL;
+
+-- Soft deleted patients older than patient.partition.archive-after-months are moved here (archive-enabled, off by default)
+CREATE SCHEMA IF NOT EXISTS patient_archive;
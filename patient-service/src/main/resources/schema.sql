@@ -0,0 +1,78 @@
+-- Ensure the 'patient' table exists (on PostgreSQL schema-postgresql.sql has already created it partitioned)
+-- Runs on every shard (ShardSchemaInitializer), data.sql only on the directory shard
+CREATE TABLE IF NOT EXISTS patient
+(
+    id              UUID PRIMARY KEY NOT NULL,
+    tenant_id       VARCHAR(64) DEFAULT 'default' NOT NULL,
+    name            VARCHAR(255)        NOT NULL,
+    email           VARCHAR(255)        NOT NULL,
+    address         VARCHAR(255)        NOT NULL,
+    date_of_birth   DATE                NOT NULL,
+    registered_date DATE                NOT NULL,
+    deleted_at      TIMESTAMP WITH TIME ZONE,
+    updated_at      TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL
+    );
+
+-- Databases created before sharding: their patients belong to the default tenant
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS tenant_id VARCHAR(64) DEFAULT 'default' NOT NULL;
+ALTER TABLE patient ADD COLUMN IF NOT EXISTS updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+-- Every query is scoped to a tenant, tenant moves copy a tenant in id order
+CREATE INDEX IF NOT EXISTS patient_tenant_idx ON patient (tenant_id, id);
+-- Keyset pages of changed patients (ListPatientsSince in PatientGrpcService)
+CREATE INDEX IF NOT EXISTS patient_tenant_updated_idx ON patient (tenant_id, updated_at, id);
+
+-- Which shard holds each tenant, only read on the directory shard (ShardRouter)
+CREATE TABLE IF NOT EXISTS tenant_placement
+(
+    tenant_id  VARCHAR(64)              PRIMARY KEY NOT NULL,
+    shard      VARCHAR(64)              NOT NULL,
+    state      VARCHAR(16)              NOT NULL,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+    );
+
+-- Change history written in batches by PatientAuditLog, changes holds the before/after JSON diff
+-- Only used on the directory shard: the audit trail isn't sharded, every record keeps the tenant of its patient
+CREATE TABLE IF NOT EXISTS patient_audit
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id  VARCHAR(64) DEFAULT 'default' NOT NULL,
+    patient_id UUID                     NOT NULL,
+    action     VARCHAR(16)              NOT NULL,
+    actor      VARCHAR(255)             NOT NULL,
+    changed_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    changes    TEXT                     NOT NULL
+    );
+
+-- Audit trails written before sharding belong to the default tenant
+ALTER TABLE patient_audit ADD COLUMN IF NOT EXISTS tenant_id VARCHAR(64) DEFAULT 'default' NOT NULL;
+
+CREATE INDEX IF NOT EXISTS patient_audit_patient_idx ON patient_audit (patient_id, changed_at);
+
+-- Duplicate detection (DuplicateDetector), only used on the directory shard like the audit trail.
+-- Blocking keys: patients are only compared with the patients sharing one of their keys
+CREATE TABLE IF NOT EXISTS patient_blocking_key
+(
+    tenant_id    VARCHAR(64)  NOT NULL,
+    blocking_key VARCHAR(128) NOT NULL,
+    patient_id   UUID         NOT NULL,
+    PRIMARY KEY (tenant_id, blocking_key, patient_id)
+    );
+
+CREATE INDEX IF NOT EXISTS patient_blocking_key_patient_idx ON patient_blocking_key (patient_id);
+
+-- Suspected duplicates, one row per pair with the lowest id in patient_id, reasons holds the score of every field
+CREATE TABLE IF NOT EXISTS patient_duplicate_candidate
+(
+    tenant_id        VARCHAR(64)              NOT NULL,
+    patient_id       UUID                     NOT NULL,
+    other_patient_id UUID                     NOT NULL,
+    score            DOUBLE PRECISION         NOT NULL,
+    reasons          VARCHAR(255)             NOT NULL,
+    status           VARCHAR(16)              NOT NULL,
+    detected_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (tenant_id, patient_id, other_patient_id)
+    );
+
+CREATE INDEX IF NOT EXISTS patient_duplicate_candidate_review_idx ON patient_duplicate_candidate (tenant_id, status, score);
+CREATE INDEX IF NOT EXISTS patient_duplicate_candidate_other_idx ON patient_duplicate_candidate (other_patient_id);
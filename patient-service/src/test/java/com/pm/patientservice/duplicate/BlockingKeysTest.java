@@ -0,0 +1,64 @@
+package com.pm.patientservice.duplicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockingKeysTest {
+
+    private static Set<String> keys(String name, String address, String dateOfBirth) {
+        return BlockingKeys.of(new MatchRecord(UUID.randomUUID(), name, "x@example.com", address,
+                dateOfBirth == null ? null : LocalDate.parse(dateOfBirth)));
+    }
+
+    private static boolean shareAKey(Set<String> a, Set<String> b) {
+        Set<String> shared = new HashSet<>(a);
+        shared.retainAll(b);
+        return !shared.isEmpty();
+    }
+
+    @Test
+    void soundexMatchesTheReferenceCodes() {
+        assertEquals("R163", BlockingKeys.soundex("robert"));
+        assertEquals("R163", BlockingKeys.soundex("rupert"));
+        assertEquals("A261", BlockingKeys.soundex("ashcraft"));
+        assertEquals("T522", BlockingKeys.soundex("tymczak"));
+        assertEquals("P236", BlockingKeys.soundex("pfister"));
+        assertEquals("L000", BlockingKeys.soundex("lee"));
+    }
+
+    @Test
+    void normalizesCaseAccentsAndPunctuation() {
+        assertEquals("jose alvarez", BlockingKeys.normalize("  José ÁLVAREZ! "));
+        assertEquals(List.of("123", "main", "st", "springfield"), BlockingKeys.addressTokens("123 Main Street, Springfield"));
+        assertEquals(List.of("doe", "jane"), BlockingKeys.nameTokens("Doe, Jane 2"));
+    }
+
+    @Test
+    void spellingVariantsShareABlock() {
+        assertTrue(shareAKey(keys("Jon Smith", "1 Oak Road", "1985-06-15"), keys("John Smyth", "9 Pine Avenue", "1985-06-15")));
+        // Mistyped date of birth: the whole name still sounds alike
+        assertTrue(shareAKey(keys("Jane Doe", "1 Oak Road", "1985-06-15"), keys("Jane Doe", "9 Pine Avenue", "1985-06-16")));
+        // Another name at the same address
+        assertTrue(shareAKey(keys("Jane Doe", "123 Main Street", "1985-06-15"), keys("Jane Miller", "123 Main St.", "1970-01-01")));
+    }
+
+    @Test
+    void unrelatedPatientsShareNoBlock() {
+        assertFalse(shareAKey(keys("John Doe", "123 Main Street", "1985-06-15"), keys("Alice Smith", "456 Elm Street", "1990-09-23")));
+    }
+
+    @Test
+    void leavesOutKeysItCannotBuild() {
+        Set<String> keys = keys("Cher", "Springfield", null);
+        assertTrue(keys.isEmpty(), keys.toString());
+    }
+}
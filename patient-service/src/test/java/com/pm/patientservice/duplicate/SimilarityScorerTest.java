@@ -0,0 +1,73 @@
+package com.pm.patientservice.duplicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimilarityScorerTest {
+    // duplicates.min-score
+    private static final double MIN_SCORE = 0.8;
+
+    private static MatchRecord patient(String name, String email, String address, String dateOfBirth) {
+        return new MatchRecord(UUID.randomUUID(), name, email, address, LocalDate.parse(dateOfBirth));
+    }
+
+    @Test
+    void jaroWinklerMatchesTheReferenceValues() {
+        assertEquals(0.961, SimilarityScorer.jaroWinkler("martha", "marhta"), 0.001);
+        assertEquals(0.840, SimilarityScorer.jaroWinkler("dwayne", "duane"), 0.001);
+        assertEquals(0.813, SimilarityScorer.jaroWinkler("dixon", "dicksonx"), 0.001);
+        assertEquals(1.0, SimilarityScorer.jaroWinkler("jane", "jane"));
+        assertEquals(0.0, SimilarityScorer.jaroWinkler("", "jane"));
+    }
+
+    @Test
+    void levenshteinCountsSingleEdits() {
+        assertEquals(3, SimilarityScorer.levenshtein("kitten", "sitting"));
+        assertEquals(1, SimilarityScorer.levenshtein("1985-06-15", "1985-06-16"));
+        assertEquals(0, SimilarityScorer.levenshtein("", ""));
+    }
+
+    @Test
+    void toleratesTheUsualDateOfBirthTypos() {
+        LocalDate date = LocalDate.parse("1985-06-11");
+        assertEquals(1.0, SimilarityScorer.dateOfBirthSimilarity(date, date));
+        assertEquals(0.8, SimilarityScorer.dateOfBirthSimilarity(date, LocalDate.parse("1985-11-06")));
+        assertEquals(0.6, SimilarityScorer.dateOfBirthSimilarity(date, LocalDate.parse("1985-06-12")));
+        assertEquals(0.0, SimilarityScorer.dateOfBirthSimilarity(date, LocalDate.parse("1990-01-01")));
+        assertEquals(0.0, SimilarityScorer.dateOfBirthSimilarity(date, null));
+    }
+
+    @Test
+    void scoresTheSamePersonUnderAnotherEmailAboveTheThreshold() {
+        MatchRecord registered = patient("John Doe", "john.doe@example.com", "123 Main Street, Springfield, USA", "1985-06-15");
+        MatchRecord again = patient("Jon Doe", "jdoe.private@example.org", "123 Main St, Springfield, USA", "1985-06-15");
+        MatchScore score = SimilarityScorer.score(registered, again);
+        assertTrue(score.score() >= MIN_SCORE, score.reasons());
+    }
+
+    @Test
+    void matchesNamesWrittenInAnotherOrder() {
+        assertEquals(1.0, SimilarityScorer.nameSimilarity("Jane Doe", "DOE, Jane"));
+        assertEquals(1.0, SimilarityScorer.nameSimilarity("José Álvarez", "Jose Alvarez"));
+    }
+
+    @Test
+    void scoresNeighboursWithTheSameSurnameBelowTheThreshold() {
+        MatchRecord husband = patient("John Doe", "john.doe@example.com", "123 Main Street, Springfield, USA", "1985-06-15");
+        MatchRecord wife = patient("Mary Doe", "mary.doe@example.com", "123 Main Street, Springfield, USA", "1987-02-03");
+        MatchScore score = SimilarityScorer.score(husband, wife);
+        assertTrue(score.score() < MIN_SCORE, score.reasons());
+    }
+
+    @Test
+    void scoresUnrelatedPatientsLow() {
+        MatchRecord a = patient("John Doe", "john.doe@example.com", "123 Main Street, Springfield, USA", "1985-06-15");
+        MatchRecord b = patient("Alice Smith", "alice.smith@example.com", "456 Elm Street, Shelbyville, USA", "1990-09-23");
+        assertTrue(SimilarityScorer.score(a, b).score() < 0.5);
+    }
+}
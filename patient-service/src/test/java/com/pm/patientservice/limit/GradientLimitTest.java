@@ -0,0 +1,106 @@
+package com.pm.patientservice.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+    private static final long MILLIS = 1_000_000;
+
+    // Every 10 samples close a window
+    private static GradientLimit limit(int initial, int min, int max) {
+        return new GradientLimit(new ConcurrencyLimitProperties.Limit(initial, min, max), 1.5, 0.2, 0);
+    }
+
+    // A burst of as many requests as the limit lets in, all taking rtt(concurrency) to complete
+    private static void burst(GradientLimit limit, IntToLongFunction rtt, boolean sample) {
+        List<Integer> inflight = new ArrayList<>();
+        int acquired;
+        while ((acquired = limit.acquire()) > 0) {
+            inflight.add(acquired);
+        }
+        long rttNanos = rtt.applyAsLong(inflight.size());
+        for (int inflightAtStart : inflight) {
+            limit.release(System.nanoTime() - rttNanos, inflightAtStart, sample);
+        }
+    }
+
+    // A downstream that serves capacity requests at once in 10 ms, more than that queue
+    private static IntToLongFunction queueing(int capacity) {
+        return concurrency -> 10 * MILLIS * Math.max(1, (concurrency + capacity - 1) / capacity);
+    }
+
+    @Test
+    void growsToTheMaximumWhileLatencyStaysFlat() {
+        GradientLimit limit = limit(20, 5, 100);
+        for (int i = 0; i < 200; i++) {
+            burst(limit, concurrency -> 10 * MILLIS, true);
+        }
+        assertEquals(100, limit.limit());
+    }
+
+    @Test
+    void convergesAroundTheCapacityOfAQueueingDownstream() {
+        GradientLimit limit = limit(20, 5, 150);
+        for (int i = 0; i < 2000; i++) {
+            burst(limit, queueing(40), true);
+        }
+        // Steady state: grows while requests take one round, backs off as soon as a second round queues
+        for (int i = 0; i < 500; i++) {
+            burst(limit, queueing(40), true);
+            assertTrue(limit.limit() >= 30 && limit.limit() <= 60, "limit " + limit.limit());
+        }
+    }
+
+    @Test
+    void shrinksQuicklyWhenTheDownstreamSlowsDown() {
+        GradientLimit limit = limit(20, 5, 100);
+        for (int i = 0; i < 200; i++) {
+            burst(limit, concurrency -> 10 * MILLIS, true);
+        }
+        // Database 5x slower: the limit shrinks by up to half per window down to the minimum
+        for (int i = 0; i < 30; i++) {
+            burst(limit, concurrency -> 50 * MILLIS, true);
+        }
+        assertTrue(limit.limit() <= 10, "limit " + limit.limit());
+        assertTrue(limit.limit() >= 5);
+    }
+
+    @Test
+    void requestsThatAreNotSamplesDoNotMoveTheBaseline() {
+        GradientLimit sampled = limit(50, 5, 100);
+        GradientLimit filtered = limit(50, 5, 100);
+        for (int i = 0; i < 100; i++) {
+            burst(sampled, concurrency -> 10 * MILLIS, true);
+            burst(filtered, concurrency -> 10 * MILLIS, true);
+        }
+        // A flood of fast 404s (JIT warm-up, unknown ids), then normal traffic again
+        for (int i = 0; i < 2000; i++) {
+            burst(sampled, concurrency -> MILLIS / 10, true);
+            burst(filtered, concurrency -> MILLIS / 10, false);
+        }
+        for (int i = 0; i < 20; i++) {
+            burst(sampled, concurrency -> 10 * MILLIS, true);
+            burst(filtered, concurrency -> 10 * MILLIS, true);
+        }
+        assertEquals(100, filtered.limit());
+        assertTrue(sampled.limit() < 50, "limit " + sampled.limit());
+        assertEquals(0, filtered.inflight());
+    }
+
+    @Test
+    void refusesRequestsPastTheLimit() {
+        GradientLimit limit = limit(5, 5, 100);
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(i, limit.acquire());
+        }
+        assertEquals(-1, limit.acquire());
+        limit.release(System.nanoTime(), 5, false);
+        assertEquals(5, limit.acquire());
+    }
+}
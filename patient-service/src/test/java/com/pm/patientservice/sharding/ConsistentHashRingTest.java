@@ -0,0 +1,60 @@
+package com.pm.patientservice.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+    private static final int TENANTS = 20_000;
+
+    @Test
+    void spreadsTenantsEvenlyOverTheShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("shard0", "shard1", "shard2", "shard3"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < TENANTS; i++) {
+            counts.merge(ring.shardFor("clinic-" + i), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        counts.forEach((shard, count) ->
+                assertTrue(Math.abs(count - TENANTS / 4) < 0.2 * TENANTS / 4, shard + " got " + count + " tenants"));
+    }
+
+    @Test
+    void addingAShardOnlyMovesTenantsToTheNewShard() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("shard0", "shard1", "shard2", "shard3"), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("shard0", "shard1", "shard2", "shard3", "shard4"), 128);
+        int moved = 0;
+        for (int i = 0; i < TENANTS; i++) {
+            String tenant = "clinic-" + i;
+            String from = before.shardFor(tenant);
+            String to = after.shardFor(tenant);
+            if (!from.equals(to)) {
+                assertEquals("shard4", to, tenant + " moved between existing shards");
+                moved++;
+            }
+        }
+        // ~1/5 of the tenants for the fifth shard
+        double fraction = (double) moved / TENANTS;
+        assertTrue(fraction > 0.15 && fraction < 0.25, "moved " + fraction);
+    }
+
+    @Test
+    void doesNotDependOnTheOrderOfTheShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("shard0", "shard1", "shard2"), 128);
+        ConsistentHashRing reordered = new ConsistentHashRing(List.of("shard2", "shard0", "shard1"), 128);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ring.shardFor("clinic-" + i), reordered.shardFor("clinic-" + i));
+        }
+    }
+
+    @Test
+    void needsAShard() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+    }
+}
@@ -0,0 +1,84 @@
+package com.pm.patientservice.sharding;
+
+import com.pm.patientservice.exception.TenantMovingException;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardRouterTest {
+    private DataSource directory;
+
+    @BeforeEach
+    void createDirectory() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        directory = dataSource;
+        new JdbcTemplate(directory).execute("CREATE TABLE tenant_placement (tenant_id VARCHAR(64) PRIMARY KEY NOT NULL,"
+                + " shard VARCHAR(64) NOT NULL, state VARCHAR(16) NOT NULL, updated_at TIMESTAMP WITH TIME ZONE NOT NULL)");
+    }
+
+    // Only the directory shard is queried, the other shards just have to exist
+    private ShardRouter router(List<String> shards) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        shards.forEach(shard -> dataSources.put(shard, directory));
+        ShardRouter router = new ShardRouter(new ShardDataSources("shard0", dataSources),
+                new ShardingProperties("shard0", 128, "default", Map.of()));
+        router.refresh();
+        return router;
+    }
+
+    @Test
+    void keepsTheDefaultTenantOnTheDirectoryShard() {
+        ShardRouter router = router(List.of("shard0", "shard1", "shard2"));
+        assertEquals("shard0", router.shardFor("default"));
+        router.prepareWrite(null);
+        assertEquals("shard0", router.placements().get("default").shard());
+    }
+
+    @Test
+    void placedTenantsStayWhenAShardIsAdded() {
+        ShardRouter router = router(List.of("shard0", "shard1"));
+        Map<String, String> placed = new LinkedHashMap<>();
+        for (int i = 0; i < 200; i++) {
+            router.prepareWrite("clinic-" + i);
+            placed.put("clinic-" + i, router.shardFor("clinic-" + i));
+        }
+
+        // Another instance (or a restart) with a third shard on the ring
+        ShardRouter grown = router(List.of("shard0", "shard1", "shard2"));
+        int wouldMove = 0;
+        for (Map.Entry<String, String> tenant : placed.entrySet()) {
+            assertEquals(tenant.getValue(), grown.shardFor(tenant.getKey()));
+            if (!grown.ringShard(tenant.getKey()).equals(tenant.getValue())) {
+                wouldMove++;
+            }
+        }
+        // The ring would put some of them on shard2, that only shows up in the rebalance plan
+        assertTrue(wouldMove > 0);
+        // Tenants without a placement follow the ring
+        assertEquals(grown.ringShard("clinic-new"), grown.shardFor("clinic-new"));
+    }
+
+    @Test
+    void refusesWritesWhileTheTenantIsFrozen() {
+        ShardRouter router = router(List.of("shard0", "shard1"));
+        router.prepareWrite("clinic-north");
+        router.savePlacement("clinic-north", "shard1", PlacementState.FROZEN);
+        assertThrows(TenantMovingException.class, () -> router.prepareWrite("clinic-north"));
+
+        router.savePlacement("clinic-north", "shard1", PlacementState.ACTIVE);
+        router.prepareWrite("clinic-north");
+        assertEquals("shard1", router.shardFor("clinic-north"));
+    }
+}